@@ -0,0 +1,64 @@
+package guru.springframework.msscbrewery.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import guru.springframework.msscbrewery.domain.Beer;
+import guru.springframework.msscbrewery.domain.BeerStyle;
+import guru.springframework.msscbrewery.domain.Customer;
+import guru.springframework.msscbrewery.web.mapper.BeerMapper;
+import guru.springframework.msscbrewery.web.mapper.CustomerMapper;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.sql.Timestamp;
+import java.util.UUID;
+
+/**
+ * Objects shared by the benchmarks, built the way the application builds them.
+ */
+final class BenchmarkFixtures {
+
+    private static final AnnotationConfigApplicationContext MAPPERS =
+            new AnnotationConfigApplicationContext("guru.springframework.msscbrewery.web.mapper");
+
+    private BenchmarkFixtures() {
+    }
+
+    static BeerMapper beerMapper() {
+        return MAPPERS.getBean(BeerMapper.class);
+    }
+
+    static CustomerMapper customerMapper() {
+        return MAPPERS.getBean(CustomerMapper.class);
+    }
+
+    /**
+     * Same settings as the ObjectMapper Spring Boot auto-configures.
+     */
+    static ObjectMapper objectMapper() {
+        return Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+    }
+
+    static Beer beer() {
+        final Timestamp now = new Timestamp(System.currentTimeMillis());
+        return Beer.builder()
+                .id(UUID.randomUUID())
+                .version(3L)
+                .beerName("Galaxy Cat")
+                .beerStyle(BeerStyle.PALE_ALE)
+                .upc(337010000001L)
+                .createdDate(now)
+                .lastUpdatedDate(now)
+                .build();
+    }
+
+    static Customer customer() {
+        return Customer.builder()
+                .id(UUID.randomUUID())
+                .version(1L)
+                .name("Joe Buck")
+                .build();
+    }
+}
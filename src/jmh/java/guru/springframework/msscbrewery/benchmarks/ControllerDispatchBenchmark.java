@@ -0,0 +1,100 @@
+package guru.springframework.msscbrewery.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import guru.springframework.msscbrewery.changes.BeerChangeFeed;
+import guru.springframework.msscbrewery.persistence.MutationLog;
+import guru.springframework.msscbrewery.repositories.BeerInventory;
+import guru.springframework.msscbrewery.repositories.BeerRepository;
+import guru.springframework.msscbrewery.services.v2.BeerServiceV2Impl;
+import guru.springframework.msscbrewery.web.controller.MvcExceptionHandler;
+import guru.springframework.msscbrewery.web.controller.v2.BeerControllerV2;
+import guru.springframework.msscbrewery.web.model.v2.BeerDtoV2;
+import guru.springframework.msscbrewery.web.model.v2.BeerStyleEnum;
+import guru.springframework.msscbrewery.web.validation.DtoValidators;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.cache.support.NoOpCacheManager;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.validation.beanvalidation.LocalValidatorFactoryBean;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+
+/**
+ * Full MockMvc dispatch through {@link BeerControllerV2}: handler lookup, argument binding, validation, the service
+ * and repository, and message conversion. Caching is not wired in, so every GET reaches the service.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ControllerDispatchBenchmark {
+
+    private BeerChangeFeed changeFeed;
+    private MockMvc mockMvc;
+    private String beerPath;
+    private byte[] updateJson;
+
+    @Setup
+    public void setUp() throws Exception {
+        final ObjectMapper objectMapper = BenchmarkFixtures.objectMapper();
+        final LocalValidatorFactoryBean validator = new LocalValidatorFactoryBean();
+        validator.afterPropertiesSet();
+
+        final BeerRepository beerRepository = new BeerRepository(MutationLog.NONE);
+        changeFeed = new BeerChangeFeed(objectMapper, 4096, 1024, Duration.ofSeconds(15), Duration.ofSeconds(3), 1);
+        changeFeed.start();
+        final BeerServiceV2Impl beerService = new BeerServiceV2Impl(beerRepository, BenchmarkFixtures.beerMapper(),
+                changeFeed, new BeerInventory(), new NoOpCacheManager());
+        final BeerControllerV2 controller = new BeerControllerV2(beerService, changeFeed, objectMapper,
+                "http://localhost", "8080", 10_000, 86_400);
+
+        mockMvc = MockMvcBuilders.standaloneSetup(controller)
+                .setControllerAdvice(new MvcExceptionHandler())
+                .setMessageConverters(new MappingJackson2HttpMessageConverter(objectMapper))
+                .setValidator(new DtoValidators(validator))
+                .build();
+
+        final UUID beerId = beerRepository.save(BenchmarkFixtures.beer()).getId();
+        beerPath = "/api/v2/beer/" + beerId;
+        updateJson = objectMapper.writeValueAsBytes(BeerDtoV2.builder()
+                .beerName("Galaxy Cat")
+                .beerStyle(BeerStyleEnum.PALE_ALE)
+                .upc(337010000001L)
+                .build());
+    }
+
+    @Benchmark
+    public MvcResult getBeer() throws Exception {
+        return mockMvc.perform(get(beerPath).accept(MediaType.APPLICATION_JSON)).andReturn();
+    }
+
+    @Benchmark
+    public MvcResult updateBeer() throws Exception {
+        return mockMvc.perform(put(beerPath).contentType(MediaType.APPLICATION_JSON).content(updateJson)).andReturn();
+    }
+
+    @TearDown
+    public void tearDown() {
+        changeFeed.close();
+    }
+}
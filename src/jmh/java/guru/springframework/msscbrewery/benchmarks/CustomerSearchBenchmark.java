@@ -0,0 +1,79 @@
+package guru.springframework.msscbrewery.benchmarks;
+
+import guru.springframework.msscbrewery.domain.Customer;
+import guru.springframework.msscbrewery.persistence.MutationLog;
+import guru.springframework.msscbrewery.repositories.CustomerRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fuzzy name search over a populated {@link CustomerRepository}. Names are random words drawn with English letter
+ * frequencies, and every query is an indexed name with one character replaced.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+public class CustomerSearchBenchmark {
+
+    private static final String LETTERS = "eeeeeeeeeeeetttttttttaaaaaaaaoooooooiiiiiiinnnnnnnsssssshhhhhhrrrrrrdddllllcccuuummmwwffggyyppbbvkjxqz";
+    private static final int QUERIES = 1024;
+
+    @Param({"100000", "1000000"})
+    private int customers;
+
+    private CustomerRepository customerRepository;
+    private String[] queries;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        final Random random = new Random(42);
+        final String[] firstNames = words(random, 5_000);
+        final String[] lastNames = words(random, 50_000);
+
+        customerRepository = new CustomerRepository(MutationLog.NONE);
+        queries = new String[QUERIES];
+        for (int i = 0; i < customers; i++) {
+            final String name = firstNames[random.nextInt(firstNames.length)] + " " + lastNames[random.nextInt(lastNames.length)];
+            customerRepository.save(Customer.builder().name(name).build());
+            if (i < QUERIES) {
+                final int typo = random.nextInt(name.length());
+                queries[i] = name.substring(0, typo) + 'x' + name.substring(typo + 1);
+            }
+        }
+    }
+
+    @Benchmark
+    public List<Customer> search() {
+        return customerRepository.findByNameSimilarTo(queries[next++ & (QUERIES - 1)], 10);
+    }
+
+    private static String[] words(Random random, int count) {
+        final String[] words = new String[count];
+        for (int i = 0; i < count; i++) {
+            final char[] word = new char[4 + random.nextInt(6)];
+            for (int j = 0; j < word.length; j++) {
+                word[j] = LETTERS.charAt(random.nextInt(LETTERS.length()));
+            }
+            word[0] = Character.toUpperCase(word[0]);
+            words[i] = new String(word);
+        }
+        return words;
+    }
+}
@@ -0,0 +1,66 @@
+package guru.springframework.msscbrewery.benchmarks;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Closed-loop HTTP load: keeps {@code connections} requests in flight for a fixed time and counts completions.
+ * Used by the stack comparisons, which need a running server and are not a fit for JMH forks.
+ */
+final class HttpLoad {
+
+    private HttpLoad() {
+    }
+
+    static Result run(URI uri, int connections, Duration duration) throws InterruptedException {
+        final HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        final HttpRequest request = HttpRequest.newBuilder(uri).GET().build();
+        final Semaphore inFlight = new Semaphore(connections);
+        final LongAdder ok = new LongAdder();
+        final LongAdder failed = new LongAdder();
+
+        final long start = System.nanoTime();
+        final long end = start + duration.toNanos();
+        while (System.nanoTime() < end) {
+            inFlight.acquire();
+            client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, error) -> {
+                        if (error == null && response.statusCode() == 200) {
+                            ok.increment();
+                        } else {
+                            failed.increment();
+                        }
+                        inFlight.release();
+                    });
+        }
+        inFlight.acquire(connections);
+        final double seconds = (System.nanoTime() - start) / 1e9;
+
+        return new Result(connections, ok.sum() / seconds, failed.sum());
+    }
+
+    static final class Result {
+        final int connections;
+        final double requestsPerSecond;
+        final long failures;
+
+        Result(int connections, double requestsPerSecond, long failures) {
+            this.connections = connections;
+            this.requestsPerSecond = requestsPerSecond;
+            this.failures = failures;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%6d connections %10.0f req/s %6d failed", connections, requestsPerSecond, failures);
+        }
+    }
+}
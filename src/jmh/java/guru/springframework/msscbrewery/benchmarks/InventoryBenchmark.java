@@ -0,0 +1,62 @@
+package guru.springframework.msscbrewery.benchmarks;
+
+import guru.springframework.msscbrewery.repositories.BeerInventory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Every thread reserving single units of one hot, well stocked beer: {@code striped} through {@link BeerInventory},
+ * {@code single} the same reserve-if-available as a compare-and-set loop on one {@code AtomicLong}. Near zero stock
+ * the striped counter sweeps under a lock, which this does not measure.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(8)
+@Fork(1)
+public class InventoryBenchmark {
+
+    private static final long STOCK = 1_000_000_000_000L;
+
+    private final UUID beerId = UUID.randomUUID();
+    private BeerInventory inventory;
+    private AtomicLong single;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        inventory = new BeerInventory();
+        inventory.adjust(beerId, STOCK);
+        single = new AtomicLong(STOCK);
+    }
+
+    @Benchmark
+    public boolean striped() {
+        return inventory.adjust(beerId, -1);
+    }
+
+    @Benchmark
+    public boolean single() {
+        for (long current = single.get(); current >= 1; current = single.get()) {
+            if (single.compareAndSet(current, current - 1)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
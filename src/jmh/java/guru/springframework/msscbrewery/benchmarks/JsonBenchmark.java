@@ -0,0 +1,76 @@
+package guru.springframework.msscbrewery.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import guru.springframework.msscbrewery.web.model.CustomerDto;
+import guru.springframework.msscbrewery.web.model.v2.BeerDtoV2;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson serialization, deserialization and round trips of the DTOs, with the application's ObjectMapper settings.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JsonBenchmark {
+
+    private ObjectWriter beerWriter;
+    private ObjectReader beerReader;
+    private ObjectWriter customerWriter;
+    private ObjectReader customerReader;
+
+    private BeerDtoV2 beerDto;
+    private byte[] beerJson;
+    private CustomerDto customerDto;
+    private byte[] customerJson;
+
+    @Setup
+    public void setUp() throws IOException {
+        final ObjectMapper objectMapper = BenchmarkFixtures.objectMapper();
+        beerWriter = objectMapper.writerFor(BeerDtoV2.class);
+        beerReader = objectMapper.readerFor(BeerDtoV2.class);
+        customerWriter = objectMapper.writerFor(CustomerDto.class);
+        customerReader = objectMapper.readerFor(CustomerDto.class);
+
+        beerDto = BenchmarkFixtures.beerMapper().beerToBeerDto(BenchmarkFixtures.beer());
+        beerJson = beerWriter.writeValueAsBytes(beerDto);
+        customerDto = BenchmarkFixtures.customerMapper().customerToCustomerDto(BenchmarkFixtures.customer());
+        customerJson = customerWriter.writeValueAsBytes(customerDto);
+    }
+
+    @Benchmark
+    public byte[] writeBeer() throws IOException {
+        return beerWriter.writeValueAsBytes(beerDto);
+    }
+
+    @Benchmark
+    public BeerDtoV2 readBeer() throws IOException {
+        return beerReader.readValue(beerJson);
+    }
+
+    @Benchmark
+    public BeerDtoV2 roundTripBeer() throws IOException {
+        return beerReader.readValue(beerWriter.writeValueAsBytes(beerDto));
+    }
+
+    @Benchmark
+    public CustomerDto roundTripCustomer() throws IOException {
+        return customerReader.readValue(customerWriter.writeValueAsBytes(customerDto));
+    }
+}
@@ -0,0 +1,90 @@
+package guru.springframework.msscbrewery.benchmarks;
+
+import guru.springframework.msscbrewery.domain.Beer;
+import guru.springframework.msscbrewery.domain.Customer;
+import guru.springframework.msscbrewery.web.mapper.BeerMapper;
+import guru.springframework.msscbrewery.web.mapper.CustomerMapper;
+import guru.springframework.msscbrewery.web.mapper.DateMapper;
+import guru.springframework.msscbrewery.web.model.CustomerDto;
+import guru.springframework.msscbrewery.web.model.v2.BeerDtoV2;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.Timestamp;
+import java.time.OffsetDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * MapStruct mapping in both directions and the {@link DateMapper} conversions it delegates to.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MapperBenchmark {
+
+    private BeerMapper beerMapper;
+    private CustomerMapper customerMapper;
+    private DateMapper dateMapper;
+
+    private Beer beer;
+    private BeerDtoV2 beerDto;
+    private Customer customer;
+    private CustomerDto customerDto;
+    private Timestamp timestamp;
+    private OffsetDateTime offsetDateTime;
+
+    @Setup
+    public void setUp() {
+        beerMapper = BenchmarkFixtures.beerMapper();
+        customerMapper = BenchmarkFixtures.customerMapper();
+        dateMapper = new DateMapper();
+
+        beer = BenchmarkFixtures.beer();
+        beerDto = beerMapper.beerToBeerDto(beer);
+        customer = BenchmarkFixtures.customer();
+        customerDto = customerMapper.customerToCustomerDto(customer);
+        timestamp = beer.getCreatedDate();
+        offsetDateTime = beerDto.getCreatedDate();
+    }
+
+    @Benchmark
+    public BeerDtoV2 beerToDto() {
+        return beerMapper.beerToBeerDto(beer);
+    }
+
+    @Benchmark
+    public Beer dtoToBeer() {
+        return beerMapper.beerDtoToBeer(beerDto);
+    }
+
+    @Benchmark
+    public CustomerDto customerToDto() {
+        return customerMapper.customerToCustomerDto(customer);
+    }
+
+    @Benchmark
+    public Customer dtoToCustomer() {
+        return customerMapper.customerDtoToCustomer(customerDto);
+    }
+
+    @Benchmark
+    public OffsetDateTime asOffsetDateTime() {
+        return dateMapper.asOffsetDateTime(timestamp);
+    }
+
+    @Benchmark
+    public Timestamp asTimestamp() {
+        return dateMapper.asTimestamp(offsetDateTime);
+    }
+}
@@ -0,0 +1,157 @@
+package guru.springframework.msscbrewery.benchmarks;
+
+import guru.springframework.msscbrewery.domain.Beer;
+import guru.springframework.msscbrewery.domain.BeerStyle;
+import guru.springframework.msscbrewery.persistence.MappedMutationLog;
+import guru.springframework.msscbrewery.persistence.PersistenceManager;
+import guru.springframework.msscbrewery.persistence.SnapshotStore;
+import guru.springframework.msscbrewery.repositories.BeerInventory;
+import guru.springframework.msscbrewery.repositories.BeerRepository;
+import guru.springframework.msscbrewery.repositories.CustomerRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * The journal behind the repositories. {@code write} saves beers from every core with fsync on, so saves wait for
+ * group commits; {@code recover} reopens a million beers from a snapshot plus a tail of 100,000 log records.
+ */
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+public class PersistenceBenchmark {
+
+    private static final int SEGMENT_SIZE = 64 * 1024 * 1024;
+    private static final int BEERS = 1_000_000;
+    private static final int TAIL = BEERS / 10;
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    @Warmup(iterations = 2, time = 5)
+    @Measurement(iterations = 5, time = 5)
+    @Threads(Threads.MAX)
+    public Beer write(WriteState state) {
+        return state.beers.save(beer("Beer", state.upcs.incrementAndGet()));
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 2)
+    @Measurement(iterations = 5)
+    public long recover(RecoveryState state) throws IOException {
+        final MappedMutationLog log = new MappedMutationLog(state.directory, SEGMENT_SIZE, false);
+        try {
+            final BeerRepository beers = open(log, state.directory);
+            return beers.count();
+        } finally {
+            log.close();
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class WriteState {
+
+        private final AtomicLong upcs = new AtomicLong();
+        private Path directory;
+        private MappedMutationLog log;
+        private BeerRepository beers;
+
+        @Setup(Level.Iteration)
+        public void setUp() throws IOException {
+            directory = Files.createTempDirectory("persistence-benchmark");
+            log = new MappedMutationLog(directory, SEGMENT_SIZE, true);
+            beers = open(log, directory);
+        }
+
+        @TearDown(Level.Iteration)
+        public void tearDown() throws IOException {
+            log.close();
+            delete(directory);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class RecoveryState {
+
+        private Path directory;
+        private List<Path> written;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            directory = Files.createTempDirectory("persistence-benchmark");
+            final MappedMutationLog log = new MappedMutationLog(directory, SEGMENT_SIZE, false);
+            final BeerRepository beers = new BeerRepository(log);
+            final PersistenceManager manager = new PersistenceManager(log, new SnapshotStore(directory), beers,
+                    new BeerInventory(), new CustomerRepository(log));
+            manager.recover();
+            for (int i = 1; i <= BEERS; i++) {
+                beers.save(beer("Beer " + i, i));
+            }
+            manager.snapshot();
+            for (int i = 1; i <= TAIL; i++) {
+                beers.save(beer("Tail " + i, BEERS + i));
+            }
+            log.close();
+
+            try (Stream<Path> files = Files.list(directory)) {
+                written = files.collect(Collectors.toList());
+            }
+        }
+
+        /**
+         * Drops the empty segment each recovery opens, so every run replays the same files.
+         */
+        @TearDown(Level.Invocation)
+        public void dropNewSegments() throws IOException {
+            try (Stream<Path> files = Files.list(directory)) {
+                for (Path file : files.filter(file -> !written.contains(file)).collect(Collectors.toList())) {
+                    Files.delete(file);
+                }
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            delete(directory);
+        }
+    }
+
+    private static BeerRepository open(MappedMutationLog log, Path directory) throws IOException {
+        final BeerRepository beers = new BeerRepository(log);
+        new PersistenceManager(log, new SnapshotStore(directory), beers, new BeerInventory(),
+                new CustomerRepository(log)).recover();
+        return beers;
+    }
+
+    private static Beer beer(String name, long upc) {
+        return Beer.builder().beerName(name).beerStyle(BeerStyle.LAGER).upc(upc).build();
+    }
+
+    private static void delete(Path directory) throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+                Files.delete(file);
+            }
+        }
+    }
+}
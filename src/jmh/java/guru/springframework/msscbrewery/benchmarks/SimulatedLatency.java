@@ -0,0 +1,44 @@
+package guru.springframework.msscbrewery.benchmarks;
+
+import guru.springframework.msscbrewery.services.v2.BeerServiceV2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Makes every {@code BeerServiceV2.getBeerById} call block for {@code brewery.benchmark.latency-ms}, standing in
+ * for a slow downstream call in the service layer.
+ */
+@Configuration
+public class SimulatedLatency {
+
+    @Bean
+    public static BeanPostProcessor simulatedLatencyPostProcessor(
+            @Value("${brewery.benchmark.latency-ms:20}") long latencyMillis) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof BeerServiceV2)) {
+                    return bean;
+                }
+
+                return Proxy.newProxyInstance(BeerServiceV2.class.getClassLoader(), new Class<?>[]{BeerServiceV2.class},
+                        (proxy, method, args) -> {
+                            if (method.getName().equals("getBeerById")) {
+                                TimeUnit.MILLISECONDS.sleep(latencyMillis);
+                            }
+                            try {
+                                return method.invoke(bean, args);
+                            } catch (InvocationTargetException e) {
+                                throw e.getCause();
+                            }
+                        });
+            }
+        };
+    }
+}
@@ -0,0 +1,49 @@
+package guru.springframework.msscbrewery.benchmarks;
+
+import guru.springframework.msscbrewery.MsscBreweryApplication;
+import guru.springframework.msscbrewery.repositories.BeerRepository;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Throughput of {@code GET /api/v2/beer/{id}} against connection count, on Tomcat with the servlet controller and
+ * on Reactor Netty with the WebFlux routes. Run from the benchmark profile:
+ *
+ * <pre>mvn -Pbenchmark test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=guru.springframework.msscbrewery.benchmarks.StackLoadComparison</pre>
+ */
+public class StackLoadComparison {
+
+    private static final int[] CONNECTIONS = {16, 64, 256, 1024, 2048};
+    private static final Duration WARMUP = Duration.ofSeconds(5);
+    private static final Duration MEASUREMENT = Duration.ofSeconds(15);
+
+    public static void main(String[] args) throws Exception {
+        final List<String> report = new ArrayList<>();
+        for (String stack : new String[]{"servlet", "reactive"}) {
+            try (ConfigurableApplicationContext context = new SpringApplicationBuilder(MsscBreweryApplication.class)
+                    .properties("server.port=0", "spring.main.web-application-type=" + stack,
+                            "logging.level.root=WARN")
+                    .run()) {
+
+                final UUID beerId = context.getBean(BeerRepository.class).save(BenchmarkFixtures.beer().toBuilder()
+                        .id(null)
+                        .build()).getId();
+                final String port = context.getEnvironment().getProperty("local.server.port");
+                final URI uri = URI.create("http://localhost:" + port + "/api/v2/beer/" + beerId);
+
+                HttpLoad.run(uri, CONNECTIONS[0], WARMUP);
+                for (int connections : CONNECTIONS) {
+                    report.add(String.format("%-9s%s", stack, HttpLoad.run(uri, connections, MEASUREMENT)));
+                }
+            }
+        }
+        report.forEach(System.out::println);
+    }
+}
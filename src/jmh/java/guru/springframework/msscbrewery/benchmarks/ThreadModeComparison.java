@@ -0,0 +1,49 @@
+package guru.springframework.msscbrewery.benchmarks;
+
+import guru.springframework.msscbrewery.MsscBreweryApplication;
+import guru.springframework.msscbrewery.repositories.BeerRepository;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Saturates {@code GET /api/v2/beer/{id}} with a simulated 20 ms downstream call in the service, once on Tomcat's
+ * platform thread pool and once on virtual threads. The virtual run needs Java 21:
+ *
+ * <pre>mvn -Pbenchmark,jdk21 test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=guru.springframework.msscbrewery.benchmarks.ThreadModeComparison</pre>
+ */
+public class ThreadModeComparison {
+
+    private static final int[] CONNECTIONS = {50, 200, 800, 2000};
+    private static final Duration WARMUP = Duration.ofSeconds(5);
+    private static final Duration MEASUREMENT = Duration.ofSeconds(15);
+
+    public static void main(String[] args) throws Exception {
+        final List<String> report = new ArrayList<>();
+        for (boolean virtual : new boolean[]{false, true}) {
+            try (ConfigurableApplicationContext context = new SpringApplicationBuilder(MsscBreweryApplication.class, SimulatedLatency.class)
+                    .properties("server.port=0", "brewery.threads.virtual=" + virtual,
+                            "brewery.benchmark.latency-ms=20", "logging.level.root=WARN")
+                    .run()) {
+
+                final UUID beerId = context.getBean(BeerRepository.class).save(BenchmarkFixtures.beer().toBuilder()
+                        .id(null)
+                        .build()).getId();
+                final String port = context.getEnvironment().getProperty("local.server.port");
+                final URI uri = URI.create("http://localhost:" + port + "/api/v2/beer/" + beerId);
+
+                HttpLoad.run(uri, CONNECTIONS[0], WARMUP);
+                for (int connections : CONNECTIONS) {
+                    report.add(String.format("%-9s%s", virtual ? "virtual" : "platform", HttpLoad.run(uri, connections, MEASUREMENT)));
+                }
+            }
+        }
+        report.forEach(System.out::println);
+    }
+}
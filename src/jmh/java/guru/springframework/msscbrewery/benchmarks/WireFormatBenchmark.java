@@ -0,0 +1,87 @@
+package guru.springframework.msscbrewery.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import guru.springframework.msscbrewery.web.controller.CborMessageConverter;
+import guru.springframework.msscbrewery.web.model.CustomerDto;
+import guru.springframework.msscbrewery.web.model.v2.BeerDtoV2;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encode and decode cost of one entity in JSON and in CBOR, each with the ObjectMapper the application uses for it.
+ * The encoded size of each entity is printed once per fork, next to the timings.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WireFormatBenchmark {
+
+    @Param({"json", "cbor"})
+    private String format;
+
+    private ObjectWriter beerWriter;
+    private ObjectReader beerReader;
+    private ObjectWriter customerWriter;
+    private ObjectReader customerReader;
+
+    private BeerDtoV2 beerDto;
+    private byte[] encodedBeer;
+    private CustomerDto customerDto;
+    private byte[] encodedCustomer;
+
+    @Setup
+    public void setUp() throws IOException {
+        final ObjectMapper objectMapper = "cbor".equals(format)
+                ? CborMessageConverter.objectMapper()
+                : BenchmarkFixtures.objectMapper();
+        beerWriter = objectMapper.writerFor(BeerDtoV2.class);
+        beerReader = objectMapper.readerFor(BeerDtoV2.class);
+        customerWriter = objectMapper.writerFor(CustomerDto.class);
+        customerReader = objectMapper.readerFor(CustomerDto.class);
+
+        beerDto = BenchmarkFixtures.beerMapper().beerToBeerDto(BenchmarkFixtures.beer());
+        encodedBeer = beerWriter.writeValueAsBytes(beerDto);
+        customerDto = BenchmarkFixtures.customerMapper().customerToCustomerDto(BenchmarkFixtures.customer());
+        encodedCustomer = customerWriter.writeValueAsBytes(customerDto);
+
+        System.out.println(format + ": " + encodedBeer.length + " bytes per beer, "
+                + encodedCustomer.length + " bytes per customer");
+    }
+
+    @Benchmark
+    public byte[] encodeBeer() throws IOException {
+        return beerWriter.writeValueAsBytes(beerDto);
+    }
+
+    @Benchmark
+    public BeerDtoV2 decodeBeer() throws IOException {
+        return beerReader.readValue(encodedBeer);
+    }
+
+    @Benchmark
+    public byte[] encodeCustomer() throws IOException {
+        return customerWriter.writeValueAsBytes(customerDto);
+    }
+
+    @Benchmark
+    public CustomerDto decodeCustomer() throws IOException {
+        return customerReader.readValue(encodedCustomer);
+    }
+}
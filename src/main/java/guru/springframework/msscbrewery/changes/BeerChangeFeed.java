@@ -0,0 +1,620 @@
+package guru.springframework.msscbrewery.changes;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import guru.springframework.msscbrewery.web.model.v2.BeerChangeDto;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Beer changes as server-sent events, for clients keeping their own copy of the catalog. A change is encoded once
+ * into an event frame, kept in a ring of the most recent frames and handed to every subscriber by one dispatcher
+ * thread, so a thousand subscribers cost a thousand queue inserts of the same bytes and never a store read.
+ *
+ * Every subscriber has a bounded queue keyed by beer id: a change to a beer that is still queued replaces it when it
+ * carries a higher version, so a slow subscriber skips straight to the latest state even when two writes to one
+ * beer were published out of order. One whose queue is still full when the next changes arrive
+ * is dropped and reconnects, so a queue never holds more than its capacity plus one ring of changes.
+ * Event ids are {@code <epoch>-<sequence>}, with a new epoch on every start. A client reconnecting with
+ * {@code Last-Event-ID} gets the events after it from the ring, or a {@code reset} event when the ring no longer
+ * covers it, telling the client to reload the catalog. Writer threads send everything queued for a subscriber in
+ * one write; an idle feed sends a comment now and then, which keeps proxies from closing the stream.
+ */
+@Slf4j
+public class BeerChangeFeed implements Closeable {
+
+    public static final String LAST_EVENT_ID = "Last-Event-ID";
+
+    private static final long LIVE = -1;
+    private static final long RESET = -2;
+    private static final byte[] HEARTBEAT = ":\n\n".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] FRAME_END = "\n\n".getBytes(StandardCharsets.UTF_8);
+
+    private final ObjectWriter changeWriter;
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final Frame[] ring;
+    private final int mask;
+    private final int queueCapacity;
+    private final long heartbeatNanos;
+    private final byte[] retry;
+    private final ExecutorService writers;
+
+    // a lock rather than a monitor, so virtual threads publishing changes do not pin their carrier
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+    private final Condition dispatchedChanged = lock.newCondition();
+    private final List<Subscriber> joining = new ArrayList<>();
+    private long published;
+    private long dispatched;
+    private boolean open = true;
+    private boolean running;
+    private Thread dispatcher;
+
+    // only touched by the dispatcher thread
+    private final List<Subscriber> subscribers = new ArrayList<>();
+
+    private volatile int subscriberCount;
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+
+    public BeerChangeFeed(ObjectMapper objectMapper, int retainedEvents, int queueCapacity, Duration heartbeat,
+                          Duration reconnectDelay, int writerThreads) {
+        if (retainedEvents < 1 || Integer.bitCount(retainedEvents) != 1) {
+            throw new IllegalArgumentException("Retained events must be a power of two, was " + retainedEvents);
+        }
+
+        this.changeWriter = objectMapper.writerFor(BeerChangeDto.class);
+        this.ring = new Frame[retainedEvents];
+        this.mask = retainedEvents - 1;
+        this.queueCapacity = queueCapacity;
+        this.heartbeatNanos = heartbeat.toNanos();
+        this.retry = ("retry: " + reconnectDelay.toMillis() + "\n\n").getBytes(StandardCharsets.UTF_8);
+
+        final AtomicInteger threads = new AtomicInteger();
+        this.writers = Executors.newFixedThreadPool(writerThreads, task -> {
+            final Thread thread = new Thread(task, "beer-change-writer-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public void start() {
+        lock.lock();
+        try {
+            running = true;
+        } finally {
+            lock.unlock();
+        }
+        dispatcher = new Thread(this::dispatchLoop, "beer-change-dispatcher");
+        dispatcher.setDaemon(true);
+        dispatcher.start();
+    }
+
+    /**
+     * Blocks while the ring is full of changes the dispatcher has not taken yet. It never waits on subscribers, so
+     * this only holds writers back to the rate the dispatcher can queue changes at.
+     */
+    public void publish(BeerChangeDto change) {
+        final byte[] data;
+        try {
+            data = changeWriter.writeValueAsBytes(change);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot encode change of beer " + change.getBeerId(), e);
+        }
+        final String event = "\nevent: " + change.getType().name().toLowerCase(Locale.ROOT) + "\ndata: ";
+
+        lock.lock();
+        try {
+            while (running && published - dispatched >= ring.length) {
+                try {
+                    dispatchedChanged.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+            final long sequence = ++published;
+            final byte[] header = ("id: " + eventId(sequence) + event).getBytes(StandardCharsets.UTF_8);
+            ring[(int) (sequence & mask)] = new Frame(change.getBeerId(), versionOf(change),
+                    concat(header, data, FRAME_END));
+            changed.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Starts sending changes to {@code sink}: those after {@code lastEventId} when given, otherwise those published
+     * from now on.
+     */
+    public Subscription subscribe(String lastEventId, ChangeSink sink) {
+        final Subscriber subscriber = new Subscriber(sink, resumeAfter(lastEventId));
+        lock.lock();
+        try {
+            if (!open) {
+                throw new IllegalStateException("Change feed is closed");
+            }
+            joining.add(subscriber);
+            changed.signal();
+        } finally {
+            lock.unlock();
+        }
+        return subscriber;
+    }
+
+    public int getSubscribers() {
+        return subscriberCount;
+    }
+
+    public long getPublished() {
+        lock.lock();
+        try {
+            return published;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getCoalesced() {
+        return coalesced.get();
+    }
+
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            open = false;
+            running = false;
+            changed.signal();
+            dispatchedChanged.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        if (dispatcher != null) {
+            try {
+                dispatcher.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        writers.shutdown();
+        lock.lock();
+        try {
+            subscribers.addAll(joining);
+            joining.clear();
+        } finally {
+            lock.unlock();
+        }
+        for (Subscriber subscriber : subscribers) {
+            if (subscriber.cancelled()) {
+                subscriber.sink.close();
+            }
+        }
+        subscribers.clear();
+    }
+
+    private void dispatchLoop() {
+        try {
+            dispatchUntilClosed();
+        } catch (RuntimeException e) {
+            log.error("Change dispatcher failed, no more changes are sent", e);
+        } finally {
+            // nobody takes changes any more, so writers must not wait for room
+            lock.lock();
+            try {
+                running = false;
+                dispatchedChanged.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private void dispatchUntilClosed() {
+        final List<Frame> batch = new ArrayList<>();
+        final List<Subscriber> admitted = new ArrayList<>();
+        long idleSince = System.nanoTime();
+        while (true) {
+            boolean heartbeat = false;
+            final boolean lapped;
+            final long resumeFrom;
+            lock.lock();
+            try {
+                while (open && published == dispatched && joining.isEmpty() && !heartbeat) {
+                    final long remaining = heartbeatNanos - (System.nanoTime() - idleSince);
+                    if (remaining > 0) {
+                        changed.awaitNanos(remaining);
+                    } else {
+                        heartbeat = true;
+                    }
+                }
+                if (!open) {
+                    return;
+                }
+
+                // the ring holds the sequences after oldest; a dispatcher that far behind lost some, which only
+                // happens when an interrupted writer did not wait for room
+                final long oldest = published - ring.length;
+                lapped = dispatched < oldest;
+                resumeFrom = Math.max(dispatched, oldest);
+                for (long sequence = resumeFrom + 1; sequence <= published; sequence++) {
+                    batch.add(ring[(int) (sequence & mask)]);
+                }
+                for (Subscriber subscriber : joining) {
+                    admit(subscriber, oldest, resumeFrom);
+                    admitted.add(subscriber);
+                }
+                joining.clear();
+                dispatched = published;
+                dispatchedChanged.signalAll();
+            } catch (InterruptedException e) {
+                return;
+            } finally {
+                lock.unlock();
+            }
+
+            if (lapped) {
+                log.warn("Change dispatcher fell more than {} events behind, resetting {} subscribers", ring.length,
+                        subscribers.size());
+                final byte[] reset = resetFrame(resumeFrom);
+                subscribers.forEach(subscriber -> subscriber.reset(reset));
+            }
+            subscribers.addAll(admitted);
+            admitted.clear();
+            if (!batch.isEmpty()) {
+                for (Subscriber subscriber : subscribers) {
+                    subscriber.offer(batch);
+                }
+            }
+            if (heartbeat) {
+                subscribers.forEach(Subscriber::heartbeat);
+            }
+            subscribers.removeIf(subscriber -> subscriber.closed);
+            subscriberCount = subscribers.size();
+
+            if (heartbeat || !batch.isEmpty()) {
+                idleSince = System.nanoTime();
+            }
+            batch.clear();
+        }
+    }
+
+    /**
+     * Queues what a new subscriber missed, up to the last dispatched event. Runs under the lock.
+     */
+    private void admit(Subscriber subscriber, long oldest, long resumeFrom) {
+        final long after = subscriber.resumeAfter;
+        if (after == LIVE) {
+            subscriber.start(retry, false);
+            return;
+        }
+
+        if (after != RESET && after >= oldest && after <= dispatched) {
+            for (long sequence = after + 1; sequence <= dispatched; sequence++) {
+                subscriber.replay(ring[(int) (sequence & mask)]);
+            }
+            // a gap too large to queue takes a reload anyway
+            if (subscriber.queued() <= queueCapacity) {
+                subscriber.start(retry, true);
+                return;
+            }
+        }
+        subscriber.start(concat(retry, resetFrame(resumeFrom)), false);
+    }
+
+    private long resumeAfter(String lastEventId) {
+        if (lastEventId == null || lastEventId.isEmpty()) {
+            return LIVE;
+        }
+        if (!lastEventId.startsWith(epoch) || lastEventId.length() < epoch.length() + 2
+                || lastEventId.charAt(epoch.length()) != '-') {
+            return RESET;
+        }
+        try {
+            final long sequence = Long.parseLong(lastEventId.substring(epoch.length() + 1));
+            return sequence < 0 ? RESET : sequence;
+        } catch (NumberFormatException e) {
+            return RESET;
+        }
+    }
+
+    private String eventId(long sequence) {
+        return epoch + '-' + sequence;
+    }
+
+    private byte[] resetFrame(long sequence) {
+        return ("id: " + eventId(sequence) + "\nevent: reset\ndata: {}\n\n").getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] concat(byte[]... parts) {
+        int length = 0;
+        for (byte[] part : parts) {
+            length += part.length;
+        }
+        final byte[] joined = new byte[length];
+        int offset = 0;
+        for (byte[] part : parts) {
+            System.arraycopy(part, 0, joined, offset, part.length);
+            offset += part.length;
+        }
+        return joined;
+    }
+
+    public interface Subscription {
+
+        /**
+         * Stops sending; called once the client is gone.
+         */
+        void cancel();
+    }
+
+    private static long versionOf(BeerChangeDto change) {
+        return change.getVersion() == null ? Long.MIN_VALUE : change.getVersion();
+    }
+
+    private static final class Frame {
+
+        private final UUID beerId;
+        private final long version;
+        private final byte[] bytes;
+
+        private Frame(UUID beerId, long version, byte[] bytes) {
+            this.beerId = beerId;
+            this.version = version;
+            this.bytes = bytes;
+        }
+    }
+
+    private final class Subscriber implements Subscription {
+
+        private final ChangeSink sink;
+        private final long resumeAfter;
+        private final ReentrantLock queueLock = new ReentrantLock();
+        private final LinkedHashMap<UUID, Frame> queue = new LinkedHashMap<>();
+        private byte[] preamble;
+        private boolean heartbeat;
+        private boolean draining;
+        private boolean drop;
+        private volatile boolean closed;
+
+        private Subscriber(ChangeSink sink, long resumeAfter) {
+            this.sink = sink;
+            this.resumeAfter = resumeAfter;
+        }
+
+        @Override
+        public void cancel() {
+            cancelled();
+        }
+
+        /**
+         * @return false when the subscriber was already closed.
+         */
+        boolean cancelled() {
+            queueLock.lock();
+            try {
+                if (closed) {
+                    return false;
+                }
+                closed = true;
+                queue.clear();
+                preamble = null;
+                return true;
+            } finally {
+                queueLock.unlock();
+            }
+        }
+
+        void replay(Frame frame) {
+            queueLock.lock();
+            try {
+                enqueue(frame);
+            } finally {
+                queueLock.unlock();
+            }
+        }
+
+        int queued() {
+            queueLock.lock();
+            try {
+                return queue.size();
+            } finally {
+                queueLock.unlock();
+            }
+        }
+
+        /**
+         * Sends {@code preamble} ahead of the replayed events, or alone when {@code replayed} is false.
+         */
+        void start(byte[] preamble, boolean replayed) {
+            final boolean schedule;
+            queueLock.lock();
+            try {
+                if (!replayed) {
+                    queue.clear();
+                }
+                this.preamble = preamble;
+                schedule = claimDrain();
+            } finally {
+                queueLock.unlock();
+            }
+            drainIf(schedule);
+        }
+
+        /**
+         * Replaces everything queued with a reset event.
+         */
+        void reset(byte[] reset) {
+            final boolean schedule;
+            queueLock.lock();
+            try {
+                queue.clear();
+                preamble = preamble == null ? reset : concat(preamble, reset);
+                schedule = claimDrain();
+            } finally {
+                queueLock.unlock();
+            }
+            drainIf(schedule);
+        }
+
+        void offer(List<Frame> frames) {
+            final boolean schedule;
+            queueLock.lock();
+            try {
+                if (closed) {
+                    return;
+                }
+                // the writer had a whole batch's time to catch up, so this subscriber is too slow
+                if (queue.size() >= queueCapacity) {
+                    log.debug("Dropping change subscriber with {} events queued", queue.size());
+                    dropped.incrementAndGet();
+                    closed = true;
+                    drop = true;
+                    queue.clear();
+                    preamble = null;
+                } else {
+                    for (Frame frame : frames) {
+                        if (enqueue(frame)) {
+                            coalesced.incrementAndGet();
+                        }
+                    }
+                }
+                schedule = claimDrain();
+            } finally {
+                queueLock.unlock();
+            }
+            drainIf(schedule);
+        }
+
+        /**
+         * Queues {@code frame} unless a frame of a newer version of the beer is queued already. Runs under the queue
+         * lock.
+         *
+         * @return true when a queued frame of the same beer was replaced or kept instead.
+         */
+        private boolean enqueue(Frame frame) {
+            final Frame queued = queue.get(frame.beerId);
+            if (queued == null) {
+                queue.put(frame.beerId, frame);
+                return false;
+            }
+            if (frame.version > queued.version) {
+                // re-inserted at the end, so the queue stays in sequence order
+                queue.remove(frame.beerId);
+                queue.put(frame.beerId, frame);
+            }
+            return true;
+        }
+
+        void heartbeat() {
+            final boolean schedule;
+            queueLock.lock();
+            try {
+                heartbeat = true;
+                schedule = claimDrain();
+            } finally {
+                queueLock.unlock();
+            }
+            drainIf(schedule);
+        }
+
+        /**
+         * @return true when the caller must start a drain. Runs under the queue lock.
+         */
+        private boolean claimDrain() {
+            if (draining || (closed && !drop)) {
+                return false;
+            }
+            draining = true;
+            return true;
+        }
+
+        private void drainIf(boolean schedule) {
+            if (schedule) {
+                writers.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            while (true) {
+                final byte[] frames;
+                final boolean close;
+                queueLock.lock();
+                try {
+                    close = drop;
+                    drop = false;
+                    frames = closed ? null : takeFrames();
+                    if (frames == null) {
+                        draining = false;
+                    }
+                } finally {
+                    queueLock.unlock();
+                }
+
+                if (frames == null) {
+                    if (close) {
+                        sink.close();
+                    }
+                    return;
+                }
+                try {
+                    sink.send(frames);
+                } catch (IOException | RuntimeException e) {
+                    log.debug("Change subscriber went away: {}", e.toString());
+                    queueLock.lock();
+                    try {
+                        closed = true;
+                        queue.clear();
+                        preamble = null;
+                        draining = false;
+                    } finally {
+                        queueLock.unlock();
+                    }
+                    sink.close();
+                    return;
+                }
+            }
+        }
+
+        /**
+         * @return the preamble and queued frames in one array, a heartbeat when nothing else is due, or null.
+         */
+        private byte[] takeFrames() {
+            final boolean beat = heartbeat;
+            heartbeat = false;
+            if (preamble == null && queue.isEmpty()) {
+                return beat ? HEARTBEAT : null;
+            }
+
+            final List<byte[]> parts = new ArrayList<>(queue.size() + 1);
+            if (preamble != null) {
+                parts.add(preamble);
+                preamble = null;
+            }
+            queue.values().forEach(frame -> parts.add(frame.bytes));
+            queue.clear();
+            return parts.size() == 1 ? parts.get(0) : concat(parts.toArray(new byte[0][]));
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package guru.springframework.msscbrewery.changes;
+
+import java.io.IOException;
+
+/**
+ * Where a subscriber's events go, usually an open HTTP response. Called by one writer thread at a time.
+ */
+public interface ChangeSink {
+
+    /**
+     * Writes and flushes one or more complete server-sent event frames, already UTF-8 encoded.
+     */
+    void send(byte[] frames) throws IOException;
+
+    /**
+     * Ends the stream, after which the client reconnects with {@code Last-Event-ID}.
+     */
+    void close();
+}
@@ -0,0 +1,18 @@
+package guru.springframework.msscbrewery.cluster;
+
+import guru.springframework.msscbrewery.domain.Beer;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A beer handed to its new owner together with its stock level, which is kept apart from the beer, see
+ * {@link guru.springframework.msscbrewery.repositories.BeerInventory}.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BeerTransfer {
+    private Beer beer;
+    private long quantityOnHand;
+}
@@ -0,0 +1,30 @@
+package guru.springframework.msscbrewery.cluster;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Member-to-member calls, not part of the public API. Servlet only, like the filter that keeps them to members.
+ */
+@RestController
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "brewery.cluster.enabled", havingValue = "true")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class ClusterController {
+
+    private final Rebalancer rebalancer;
+
+    @PutMapping(PeerClient.BEERS_PATH)
+    public ResponseEntity<List<UUID>> receiveBeers(@RequestBody List<BeerTransfer> beers) {
+        return new ResponseEntity<>(rebalancer.receive(beers), HttpStatus.OK);
+    }
+}
@@ -0,0 +1,44 @@
+package guru.springframework.msscbrewery.cluster;
+
+import guru.springframework.msscbrewery.repositories.BeerRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * {@code /actuator/cluster}: the members, the local shard size and rebalance progress. A POST of
+ * {@code {"members": "http://host-a:8080,http://host-b:8080"}} changes the membership of this instance and moves
+ * the beers it no longer owns; send the same list to every member.
+ */
+@Endpoint(id = "cluster")
+@RequiredArgsConstructor
+public class ClusterEndpoint {
+
+    private final ClusterMembership membership;
+    private final Rebalancer rebalancer;
+    private final BeerRepository beerRepository;
+
+    @ReadOperation
+    public Map<String, Object> cluster() {
+        final Map<String, Object> report = new LinkedHashMap<>();
+        report.put("self", membership.getSelf());
+        report.put("members", membership.getRing().getMembers());
+        report.put("localBeers", beerRepository.count());
+        report.put("rebalancing", rebalancer.isRunning());
+        report.put("moved", rebalancer.getMoved());
+        report.put("received", rebalancer.getReceived());
+        report.put("failed", rebalancer.getFailed());
+        report.put("retryScheduled", rebalancer.isRetryScheduled());
+        return report;
+    }
+
+    @WriteOperation
+    public void members(String members) {
+        rebalancer.changeMembers(Arrays.asList(members.split(",")));
+    }
+}
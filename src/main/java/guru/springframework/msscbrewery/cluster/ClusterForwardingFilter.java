@@ -0,0 +1,93 @@
+package guru.springframework.msscbrewery.cluster;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Sends requests for a single beer, {@code <prefix><beerId>} optionally followed by one of the given sub-resources,
+ * to the member owning that id, and serves everything else locally: creates need no routing as ids are minted in
+ * local ranges, and listings cover the local shard.
+ * The body is passed through as bytes, never parsed here. An unreachable owner answers 503 with Retry-After.
+ * A request another member forwarded is served here without routing it again; {@link PeerClient#FORWARDED_BY}
+ * only counts together with the cluster secret, so a client cannot set it to reach a member that does not own
+ * the beer.
+ */
+@Slf4j
+public class ClusterForwardingFilter extends OncePerRequestFilter {
+
+    private static final int UUID_LENGTH = 36;
+
+    private final ClusterMembership membership;
+    private final PeerClient peerClient;
+    private final List<String> beerPathPrefixes;
+    private final List<String> beerSubResources;
+    private final String retryAfterSeconds;
+
+    public ClusterForwardingFilter(ClusterMembership membership, PeerClient peerClient, List<String> beerPathPrefixes,
+                                   List<String> beerSubResources, int retryAfterSeconds) {
+        this.membership = membership;
+        this.peerClient = peerClient;
+        this.beerPathPrefixes = beerPathPrefixes;
+        this.beerSubResources = beerSubResources;
+        this.retryAfterSeconds = String.valueOf(retryAfterSeconds);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+
+        final boolean forwarded = request.getHeader(PeerClient.FORWARDED_BY) != null && peerClient.isPeer(request);
+        final UUID beerId = forwarded ? null : beerId(request);
+        final String owner = beerId == null ? null : membership.ownerOf(beerId);
+        if (owner == null || owner.equals(membership.getSelf())) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        try {
+            peerClient.forward(owner, request, response);
+        } catch (IOException e) {
+            if (response.isCommitted()) {
+                throw e;
+            }
+            log.warn("Forwarding {} {} to {} failed: {}", request.getMethod(), request.getRequestURI(), owner, e.toString());
+            response.reset();
+            response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, retryAfterSeconds);
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.getOutputStream().write(("[\"Owner of beer " + beerId + " is unavailable, retry later\"]")
+                    .getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    /**
+     * @return the id when the path is a prefix followed by a UUID and nothing else but a sub-resource, null otherwise.
+     */
+    private UUID beerId(HttpServletRequest request) {
+        final String path = request.getRequestURI().substring(request.getContextPath().length());
+        for (String prefix : beerPathPrefixes) {
+            final int idEnd = prefix.length() + UUID_LENGTH;
+            if (path.length() >= idEnd && path.startsWith(prefix)
+                    && (path.length() == idEnd || beerSubResources.contains(path.substring(idEnd)))) {
+                try {
+                    return UUID.fromString(path.substring(prefix.length(), idEnd));
+                } catch (IllegalArgumentException e) {
+                    return null;
+                }
+            }
+        }
+        return null;
+    }
+}
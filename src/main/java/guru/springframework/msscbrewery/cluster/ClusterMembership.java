@@ -0,0 +1,71 @@
+package guru.springframework.msscbrewery.cluster;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * This instance's view of the cluster: its own base URL and the current {@link HashRing}. A membership change swaps
+ * in a new ring at once; requests already routed with the old one finish where they were sent.
+ */
+public class ClusterMembership {
+
+    private final String self;
+    private final int virtualNodes;
+    private volatile HashRing ring;
+
+    /**
+     * @throws IllegalArgumentException when {@code self} is not one of {@code members}: the instance would own no
+     * beers and forward every request, a typo that should stop startup rather than surface as misrouted traffic.
+     */
+    public ClusterMembership(String self, Collection<String> members, int virtualNodes) {
+        this.self = normalize(self);
+        this.virtualNodes = virtualNodes;
+        final List<String> normalized = normalize(members);
+        if (!normalized.contains(this.self)) {
+            throw new IllegalArgumentException("brewery.cluster.self " + this.self
+                    + " is not one of brewery.cluster.peers " + normalized);
+        }
+        this.ring = new HashRing(normalized, virtualNodes);
+    }
+
+    public String getSelf() {
+        return self;
+    }
+
+    public HashRing getRing() {
+        return ring;
+    }
+
+    public String ownerOf(UUID id) {
+        return ring.ownerOf(id);
+    }
+
+    public boolean isLocal(UUID id) {
+        return self.equals(ring.ownerOf(id));
+    }
+
+    public synchronized HashRing setMembers(Collection<String> members) {
+        ring = new HashRing(normalize(members), virtualNodes);
+        return ring;
+    }
+
+    /**
+     * Members are compared as strings, so {@code http://host:8081/} and {@code http://host:8081} must be one member.
+     */
+    private static List<String> normalize(Collection<String> members) {
+        final List<String> normalized = new ArrayList<>(members.size());
+        for (String member : members) {
+            if (!member.isBlank()) {
+                normalized.add(normalize(member));
+            }
+        }
+        return normalized;
+    }
+
+    private static String normalize(String member) {
+        final String trimmed = member.trim();
+        return trimmed.endsWith("/") ? trimmed.substring(0, trimmed.length() - 1) : trimmed;
+    }
+}
@@ -0,0 +1,114 @@
+package guru.springframework.msscbrewery.cluster;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.UUID;
+
+/**
+ * Consistent-hash ring over the cluster members, each placed at {@code virtualNodes} points so ownership stays even
+ * and a membership change moves only the ranges next to the points that came or went. Members are base URLs; every
+ * instance given the same members builds the same ring, whatever order they are listed in.
+ *
+ * Immutable: a membership change builds a new ring. Lookups are a binary search over a sorted {@code long[]}.
+ */
+public final class HashRing {
+
+    private final List<String> members;
+    private final long[] tokens;
+    private final int[] owners;
+
+    public HashRing(Collection<String> members, int virtualNodes) {
+        if (members.isEmpty()) {
+            throw new IllegalArgumentException("A ring needs at least one member");
+        }
+        if (virtualNodes < 1) {
+            throw new IllegalArgumentException("virtualNodes must be positive");
+        }
+
+        this.members = Collections.unmodifiableList(new ArrayList<>(new TreeSet<>(members)));
+        final int size = this.members.size() * virtualNodes;
+        final long[] points = new long[size];
+        for (int member = 0; member < this.members.size(); member++) {
+            final String name = this.members.get(member);
+            for (int node = 0; node < virtualNodes; node++) {
+                points[member * virtualNodes + node] = token(name, node);
+            }
+        }
+
+        final Integer[] order = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+        // members are sorted, so colliding tokens break ties the same way on every instance
+        Arrays.sort(order, (a, b) -> {
+            final int byToken = Long.compareUnsigned(points[a], points[b]);
+            return byToken != 0 ? byToken : Integer.compare(a, b);
+        });
+
+        this.tokens = new long[size];
+        this.owners = new int[size];
+        for (int i = 0; i < size; i++) {
+            tokens[i] = points[order[i]];
+            owners[i] = order[i] / virtualNodes;
+        }
+    }
+
+    public List<String> getMembers() {
+        return members;
+    }
+
+    public boolean contains(String member) {
+        return Collections.binarySearch(members, member) >= 0;
+    }
+
+    /**
+     * @return the member owning {@code id}: the one at the first point clockwise from the id's hash.
+     */
+    public String ownerOf(UUID id) {
+        final long hash = hash(id);
+        int low = 0;
+        int high = tokens.length - 1;
+        while (low <= high) {
+            final int mid = (low + high) >>> 1;
+            if (Long.compareUnsigned(tokens[mid], hash) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return members.get(owners[low == tokens.length ? 0 : low]);
+    }
+
+    static long hash(UUID id) {
+        return mix(id.getMostSignificantBits() ^ mix(id.getLeastSignificantBits()));
+    }
+
+    /**
+     * FNV-1a over {@code member#node}, finished with a 64-bit mixer so nearby names spread over the whole ring.
+     */
+    private static long token(String member, int node) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : (member + '#' + node).getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xFF;
+            hash *= 0x100000001b3L;
+        }
+        return mix(hash);
+    }
+
+    /**
+     * The MurmurHash3 64-bit finalizer.
+     */
+    private static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        value *= 0xc4ceb9fe1a85ec53L;
+        value ^= value >>> 33;
+        return value;
+    }
+}
@@ -0,0 +1,32 @@
+package guru.springframework.msscbrewery.cluster;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.util.IdGenerator;
+
+import java.util.UUID;
+
+/**
+ * Hands out random ids that hash into this instance's ranges, so a beer is always created where it will live and
+ * a create never needs forwarding. With {@code n} members a draw takes {@code n} tries on average.
+ */
+@RequiredArgsConstructor
+public class OwnedIdGenerator implements IdGenerator {
+
+    private final ClusterMembership membership;
+
+    @Override
+    public UUID generateId() {
+        final HashRing ring = membership.getRing();
+        final String self = membership.getSelf();
+        if (!ring.contains(self)) {
+            // leaving the cluster: the next rebalance moves the beer to its owner
+            return UUID.randomUUID();
+        }
+
+        UUID id;
+        do {
+            id = UUID.randomUUID();
+        } while (!self.equals(ring.ownerOf(id)));
+        return id;
+    }
+}
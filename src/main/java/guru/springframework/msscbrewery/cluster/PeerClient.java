@@ -0,0 +1,158 @@
+package guru.springframework.msscbrewery.cluster;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.type.TypeFactory;
+import guru.springframework.msscbrewery.web.controller.IdempotentCreates;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * HTTP calls to the other cluster members over one shared {@link HttpClient}, which keeps idle connections open
+ * per peer and reuses them, so a forwarded request does not pay for a new TCP connection.
+ */
+public class PeerClient {
+
+    /**
+     * Set on forwarded requests; the receiving member serves them itself, so a request is forwarded at most once
+     * even while two members disagree about the ring.
+     */
+    public static final String FORWARDED_BY = "X-Brewery-Forwarded-By";
+
+    /**
+     * Carries {@code brewery.cluster.secret} on every call to another member; requests without it are not peers.
+     */
+    public static final String PEER_SECRET = "X-Brewery-Cluster-Secret";
+
+    public static final String INTERNAL_PATH = "/internal/cluster";
+
+    static final String BEERS_PATH = INTERNAL_PATH + "/beers";
+
+    private static final List<String> REQUEST_HEADERS = List.of(HttpHeaders.ACCEPT, HttpHeaders.CONTENT_TYPE,
+            HttpHeaders.IF_NONE_MATCH, HttpHeaders.IF_MATCH, IdempotentCreates.IDEMPOTENCY_KEY);
+    // Vary and Cache-Control too: the owner negotiates JSON or CBOR, and a cache must key on Accept either way
+    private static final List<String> RESPONSE_HEADERS = List.of(HttpHeaders.CONTENT_TYPE, HttpHeaders.ETAG,
+            HttpHeaders.LOCATION, HttpHeaders.RETRY_AFTER, HttpHeaders.VARY, HttpHeaders.CACHE_CONTROL);
+    private static final Set<String> BODYLESS_METHODS = Set.of("GET", "HEAD", "DELETE", "OPTIONS");
+
+    private final HttpClient httpClient;
+    private final String self;
+    private final String secret;
+    private final byte[] secretBytes;
+    private final Duration requestTimeout;
+    private final ObjectWriter beersWriter;
+    private final ObjectReader idsReader;
+
+    /**
+     * @throws IllegalArgumentException when {@code secret} is blank: anyone could then pass for a member.
+     */
+    public PeerClient(String self, String secret, Duration connectTimeout, Duration requestTimeout,
+                      ObjectMapper objectMapper) {
+        if (secret == null || secret.isBlank()) {
+            throw new IllegalArgumentException("brewery.cluster.secret must be set in cluster mode");
+        }
+
+        // plain HTTP/1.1: an HTTP/2 upgrade attempt on every new connection buys nothing between members
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(connectTimeout)
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .build();
+        this.self = self;
+        this.secret = secret;
+        this.secretBytes = secret.getBytes(StandardCharsets.UTF_8);
+        this.requestTimeout = requestTimeout;
+        final TypeFactory types = objectMapper.getTypeFactory();
+        this.beersWriter = objectMapper.writerFor(types.constructCollectionType(List.class, BeerTransfer.class));
+        this.idsReader = objectMapper.readerFor(types.constructCollectionType(List.class, UUID.class));
+    }
+
+    /**
+     * @return true when {@code request} carries the cluster secret, compared in constant time.
+     */
+    public boolean isPeer(HttpServletRequest request) {
+        final String presented = request.getHeader(PEER_SECRET);
+        return presented != null && MessageDigest.isEqual(secretBytes, presented.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Replays {@code request} on {@code peer} and copies the answer into {@code response}, streaming the body.
+     *
+     * @throws IOException when the peer cannot be reached or does not answer in time.
+     */
+    public void forward(String peer, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        final String query = request.getQueryString();
+        final String path = request.getRequestURI() + (query == null ? "" : "?" + query);
+        final HttpRequest.BodyPublisher body = BODYLESS_METHODS.contains(request.getMethod())
+                ? HttpRequest.BodyPublishers.noBody()
+                : HttpRequest.BodyPublishers.ofByteArray(request.getInputStream().readAllBytes());
+
+        final HttpRequest.Builder forwarded = HttpRequest.newBuilder(URI.create(peer + path))
+                .timeout(requestTimeout)
+                .method(request.getMethod(), body)
+                .header(FORWARDED_BY, self)
+                .header(PEER_SECRET, secret);
+        for (String name : REQUEST_HEADERS) {
+            final String value = request.getHeader(name);
+            if (value != null) {
+                forwarded.header(name, value);
+            }
+        }
+
+        final HttpResponse<InputStream> answer = send(forwarded.build(), HttpResponse.BodyHandlers.ofInputStream());
+        try (InputStream answerBody = answer.body()) {
+            response.setStatus(answer.statusCode());
+            for (String name : RESPONSE_HEADERS) {
+                answer.headers().allValues(name).forEach(value -> response.addHeader(name, value));
+            }
+            answerBody.transferTo(response.getOutputStream());
+        }
+    }
+
+    /**
+     * Hands beers and their stock to their new owner.
+     *
+     * @return ids of the beers the peer now holds, at the sent version or a newer one.
+     */
+    public List<UUID> transfer(String peer, List<BeerTransfer> beers) throws IOException {
+        final HttpRequest request = HttpRequest.newBuilder(URI.create(peer + BEERS_PATH))
+                .timeout(requestTimeout)
+                .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                .header(FORWARDED_BY, self)
+                .header(PEER_SECRET, secret)
+                .PUT(HttpRequest.BodyPublishers.ofByteArray(beersWriter.writeValueAsBytes(beers)))
+                .build();
+
+        final HttpResponse<byte[]> answer = send(request, HttpResponse.BodyHandlers.ofByteArray());
+        if (answer.statusCode() != 200) {
+            throw new IOException(peer + " refused beers with status " + answer.statusCode());
+        }
+        return idsReader.readValue(answer.body());
+    }
+
+    private <T> HttpResponse<T> send(HttpRequest request, HttpResponse.BodyHandler<T> bodyHandler) throws IOException {
+        try {
+            return httpClient.send(request, bodyHandler);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted calling " + request.uri());
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package guru.springframework.msscbrewery.cluster;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Answers 403 to member-to-member calls that do not carry the cluster secret, see {@link PeerClient#isPeer}, before
+ * their body is read.
+ */
+public class PeerOnlyFilter extends OncePerRequestFilter {
+
+    private final PeerClient peerClient;
+
+    public PeerOnlyFilter(PeerClient peerClient) {
+        this.peerClient = peerClient;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        if (!peerClient.isPeer(request)) {
+            response.sendError(HttpStatus.FORBIDDEN.value());
+            return;
+        }
+        filterChain.doFilter(request, response);
+    }
+}
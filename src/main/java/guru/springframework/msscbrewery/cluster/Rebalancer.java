@@ -0,0 +1,307 @@
+package guru.springframework.msscbrewery.cluster;
+
+import guru.springframework.msscbrewery.changes.BeerChangeFeed;
+import guru.springframework.msscbrewery.config.CacheConfig;
+import guru.springframework.msscbrewery.domain.Beer;
+import guru.springframework.msscbrewery.repositories.BeerInventory;
+import guru.springframework.msscbrewery.repositories.BeerRepository;
+import guru.springframework.msscbrewery.repositories.DuplicateUpcException;
+import guru.springframework.msscbrewery.web.mapper.BeerMapper;
+import guru.springframework.msscbrewery.web.model.v2.BeerChangeDto;
+import guru.springframework.msscbrewery.web.model.v2.BeerChangeType;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskExecutor;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Moves beers to the member owning them: after a membership change, and at startup for beers persisted under an
+ * older ring. A pass walks the local store once, ships the beers it no longer owns to their owners in batches and
+ * deletes each shipped beer locally unless it was written meanwhile, which a later pass then picks up. Stock goes
+ * along with its beer and is dropped here with it; an adjustment that still reaches this member between the two,
+ * from a member routing with the old ring, is lost. Both ends tell their change feed: the new owner publishes the
+ * beer as created, the old one publishes it as moved.
+ *
+ * Passes run one at a time on the task executor; changes arriving during a pass are coalesced into one more pass.
+ * A batch the owner does not take stays here and a later pass retries it, after a delay that doubles with every
+ * failing pass up to a maximum and starts over once a pass gets everything moved.
+ */
+@Slf4j
+public class Rebalancer {
+
+    static final int BATCH_SIZE = 500;
+
+    private final ClusterMembership membership;
+    private final BeerRepository beerRepository;
+    private final BeerInventory inventory;
+    private final BeerMapper beerMapper;
+    private final BeerChangeFeed changeFeed;
+    private final PeerClient peerClient;
+    private final CacheManager cacheManager;
+    private final TaskExecutor taskExecutor;
+    private final ScheduledExecutorService retries;
+    private final long minRetryDelayMillis;
+    private final long maxRetryDelayMillis;
+    private final AtomicInteger requestedPasses = new AtomicInteger();
+    private final AtomicBoolean retryScheduled = new AtomicBoolean();
+    private final AtomicLong moved = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong received = new AtomicLong();
+
+    // only touched by the pass running, passes are handed over through requestedPasses
+    private long retryDelayMillis;
+    private boolean passFailed;
+
+    public Rebalancer(ClusterMembership membership, BeerRepository beerRepository, BeerInventory inventory,
+                      BeerMapper beerMapper, BeerChangeFeed changeFeed, PeerClient peerClient,
+                      CacheManager cacheManager, TaskExecutor taskExecutor,
+                      Duration minRetryDelay, Duration maxRetryDelay) {
+        this.membership = membership;
+        this.beerRepository = beerRepository;
+        this.inventory = inventory;
+        this.beerMapper = beerMapper;
+        this.changeFeed = changeFeed;
+        this.peerClient = peerClient;
+        this.cacheManager = cacheManager;
+        this.taskExecutor = taskExecutor;
+        this.minRetryDelayMillis = minRetryDelay.toMillis();
+        this.maxRetryDelayMillis = Math.max(maxRetryDelay.toMillis(), minRetryDelayMillis);
+        this.retryDelayMillis = minRetryDelayMillis;
+        this.retries = Executors.newSingleThreadScheduledExecutor(task -> {
+            final Thread thread = new Thread(task, "cluster-rebalance-retry");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public void changeMembers(Collection<String> members) {
+        final HashRing ring = membership.setMembers(members);
+        log.info("Cluster members are now {}", ring.getMembers());
+        requestPass();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void requestPass() {
+        if (requestedPasses.getAndIncrement() == 0) {
+            taskExecutor.execute(this::runPasses);
+        }
+    }
+
+    public boolean isRunning() {
+        return requestedPasses.get() > 0;
+    }
+
+    public long getMoved() {
+        return moved.get();
+    }
+
+    public long getFailed() {
+        return failed.get();
+    }
+
+    public long getReceived() {
+        return received.get();
+    }
+
+    public boolean isRetryScheduled() {
+        return retryScheduled.get();
+    }
+
+    public void close() {
+        retries.shutdownNow();
+    }
+
+    /**
+     * Stores beers and their stock handed over by another member. A beer already held at the sent version or a
+     * newer one keeps its stock, so a transfer retried after a lost answer does not overwrite adjustments made here.
+     * Beers that are incomplete or that this member does not own on its ring are not taken; the sender keeps them
+     * and retries, which succeeds once both members agree on the ring.
+     *
+     * @return ids of the beers now held here, at the sent version or a newer one.
+     */
+    public List<UUID> receive(List<BeerTransfer> transfers) {
+        final List<UUID> held = new ArrayList<>(transfers.size());
+        for (BeerTransfer transfer : transfers) {
+            final String invalid = invalid(transfer);
+            if (invalid != null) {
+                log.warn("Not taking transferred beer: {}", invalid);
+                continue;
+            }
+
+            final Beer beer = transfer.getBeer();
+            try {
+                if (beerRepository.put(beer)) {
+                    inventory.restore(beer.getId(), transfer.getQuantityOnHand());
+                    received.incrementAndGet();
+                    changeFeed.publish(BeerChangeDto.builder()
+                            .type(BeerChangeType.CREATED)
+                            .beerId(beer.getId())
+                            .version(beer.getVersion())
+                            .beer(beerMapper.beerToBeerDto(beer))
+                            .build());
+                }
+                evict(beer.getId());
+                held.add(beer.getId());
+            } catch (DuplicateUpcException e) {
+                log.warn("Not taking beer {}: {}", beer.getId(), e.getMessage());
+            }
+        }
+        return held;
+    }
+
+    /**
+     * @return why {@code transfer} cannot be stored here, null when it can.
+     */
+    private String invalid(BeerTransfer transfer) {
+        final Beer beer = transfer.getBeer();
+        if (beer == null || beer.getId() == null) {
+            return "no beer id";
+        }
+        if (!membership.isLocal(beer.getId())) {
+            return "beer " + beer.getId() + " is owned by " + membership.ownerOf(beer.getId());
+        }
+        if (beer.getVersion() == null || beer.getVersion() < 0 || beer.getBeerName() == null
+                || beer.getBeerStyle() == null || (beer.getUpc() != null && beer.getUpc() <= 0)
+                || transfer.getQuantityOnHand() < 0) {
+            return "beer " + beer.getId() + " is incomplete: " + transfer;
+        }
+        return null;
+    }
+
+    private void runPasses() {
+        int requested = requestedPasses.get();
+        while (true) {
+            boolean again = false;
+            passFailed = false;
+            try {
+                again = pass();
+            } catch (RuntimeException e) {
+                log.error("Rebalance pass failed", e);
+                passFailed = true;
+            }
+            if (passFailed) {
+                scheduleRetry();
+            } else {
+                retryDelayMillis = minRetryDelayMillis;
+            }
+
+            // this pass covered every request made before it started; keep one back if a beer must be retried
+            final int remaining = requestedPasses.addAndGet(again ? 1 - requested : -requested);
+            if (remaining == 0) {
+                return;
+            }
+            requested = remaining;
+        }
+    }
+
+    /**
+     * Requests a pass once the current retry delay has passed, unless one is already due, and doubles the delay.
+     */
+    private void scheduleRetry() {
+        if (!retryScheduled.compareAndSet(false, true)) {
+            return;
+        }
+
+        log.info("Retrying beers that could not be moved in {} ms", retryDelayMillis);
+        retries.schedule(() -> {
+            retryScheduled.set(false);
+            requestPass();
+        }, retryDelayMillis, TimeUnit.MILLISECONDS);
+        retryDelayMillis = Math.min(retryDelayMillis * 2, maxRetryDelayMillis);
+    }
+
+    /**
+     * @return true when a beer changed while it was being moved, so another pass is needed.
+     */
+    private boolean pass() {
+        final String self = membership.getSelf();
+        final Map<String, List<Beer>> batches = new HashMap<>();
+        boolean changed = false;
+        for (Beer beer : beerRepository.findAll()) {
+            final String owner = membership.ownerOf(beer.getId());
+            if (owner.equals(self)) {
+                continue;
+            }
+
+            final List<Beer> batch = batches.computeIfAbsent(owner, key -> new ArrayList<>(BATCH_SIZE));
+            batch.add(beer);
+            if (batch.size() == BATCH_SIZE) {
+                changed |= ship(owner, batch);
+                batch.clear();
+            }
+        }
+        for (Map.Entry<String, List<Beer>> batch : batches.entrySet()) {
+            if (!batch.getValue().isEmpty()) {
+                changed |= ship(batch.getKey(), batch.getValue());
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * @return true when a shipped beer was written locally before it could be deleted.
+     */
+    private boolean ship(String owner, List<Beer> batch) {
+        final List<BeerTransfer> transfers = new ArrayList<>(batch.size());
+        for (Beer beer : batch) {
+            transfers.add(new BeerTransfer(beer, inventory.getQuantityOnHand(beer.getId())));
+        }
+
+        final Set<UUID> held;
+        try {
+            held = new HashSet<>(peerClient.transfer(owner, transfers));
+        } catch (IOException e) {
+            log.warn("Moving {} beers to {} failed: {}", batch.size(), owner, e.toString());
+            failed.addAndGet(batch.size());
+            passFailed = true;
+            return false;
+        }
+
+        boolean changed = false;
+        for (Beer beer : batch) {
+            if (!held.contains(beer.getId())) {
+                failed.incrementAndGet();
+                passFailed = true;
+            } else if (beerRepository.deleteIfUnchanged(beer)) {
+                inventory.remove(beer.getId());
+                moved.incrementAndGet();
+                evict(beer.getId());
+                // one past the version shipped, like a delete, so it outranks a change to it still queued
+                changeFeed.publish(BeerChangeDto.builder()
+                        .type(BeerChangeType.MOVED)
+                        .beerId(beer.getId())
+                        .version(beer.getVersion() + 1)
+                        .build());
+            } else {
+                changed = beerRepository.findById(beer.getId()).isPresent() || changed;
+            }
+        }
+        return changed;
+    }
+
+    private void evict(UUID beerId) {
+        final Cache cache = cacheManager.getCache(CacheConfig.BEER_CACHE);
+        if (cache != null) {
+            cache.evict(beerId);
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package guru.springframework.msscbrewery.concurrency;
+
+import lombok.Getter;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * AIMD concurrency limit driven by observed latency. Every request finishing under the latency threshold while the
+ * limit is in use adds {@code 1/limit}, so the limit grows by about one per round of requests; a request over the
+ * threshold, or failing with a server error, cuts the limit by 10%. Only requests started after the last cut can
+ * cut again, so one slow burst backs off once instead of collapsing the limit to its minimum.
+ *
+ * Both are compare-and-set loops, the limit kept as the bits of a double, so releases never wait on each other; an
+ * increase losing a race is retried against the limit that beat it, and only the release that moves the last cut
+ * forward gets to cut.
+ */
+public class AdaptiveLimiter {
+
+    private static final double BACKOFF_RATIO = 0.9;
+
+    @Getter
+    private final String name;
+    private final int minLimit;
+    private final int maxLimit;
+    private final long latencyThresholdNanos;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final LongAdder rejected = new LongAdder();
+
+    private final AtomicLong limitBits;
+    private final AtomicLong lastBackoffNanos = new AtomicLong(Long.MIN_VALUE);
+
+    public AdaptiveLimiter(String name, int initialLimit, int minLimit, int maxLimit, long latencyThresholdMillis) {
+        if (minLimit < 1 || minLimit > initialLimit || initialLimit > maxLimit) {
+            throw new IllegalArgumentException("Limits of " + name + " must satisfy 1 <= min <= initial <= max");
+        }
+
+        this.name = name;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.latencyThresholdNanos = latencyThresholdMillis * 1_000_000;
+        this.limitBits = new AtomicLong(Double.doubleToLongBits(initialLimit));
+    }
+
+    /**
+     * @return the start time to pass to {@link #release(long, boolean)}, or -1 when the limit is reached and the
+     * request must be shed.
+     */
+    public long tryAcquire() {
+        while (true) {
+            final int current = inFlight.get();
+            if (current >= getLimit()) {
+                rejected.increment();
+                return -1;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return System.nanoTime();
+            }
+        }
+    }
+
+    public void release(long startNanos, boolean failed) {
+        final long now = System.nanoTime();
+        final int inFlightBefore = inFlight.getAndDecrement();
+
+        if (failed || now - startNanos > latencyThresholdNanos) {
+            backOff(startNanos, now);
+        } else {
+            increase(inFlightBefore);
+        }
+    }
+
+    public int getLimit() {
+        return (int) Double.longBitsToDouble(limitBits.get());
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    private void backOff(long startNanos, long now) {
+        while (true) {
+            final long last = lastBackoffNanos.get();
+            if (startNanos <= last) {
+                return;
+            }
+            if (lastBackoffNanos.compareAndSet(last, now)) {
+                break;
+            }
+        }
+
+        while (true) {
+            final long bits = limitBits.get();
+            final double next = Math.max(minLimit, Double.longBitsToDouble(bits) * BACKOFF_RATIO);
+            if (limitBits.compareAndSet(bits, Double.doubleToLongBits(next))) {
+                return;
+            }
+        }
+    }
+
+    private void increase(int inFlightBefore) {
+        while (true) {
+            final long bits = limitBits.get();
+            final double current = Double.longBitsToDouble(bits);
+            if (inFlightBefore * 2 < current) {
+                return;
+            }
+
+            final double next = Math.min(maxLimit, current + 1.0 / current);
+            if (next == current || limitBits.compareAndSet(bits, Double.doubleToLongBits(next))) {
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package guru.springframework.msscbrewery.concurrency;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Sheds requests over the adaptive limit with 503 and Retry-After. Reads and writes go through separate limiters,
+ * so a write storm backs off writes without queueing the GETs behind them. Paths under {@code unlimitedPaths} are
+ * not limited; their latency, like that of a large upload, says nothing about the load.
+ */
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+
+    private final AdaptiveLimiter readLimiter;
+    private final AdaptiveLimiter writeLimiter;
+    private final String retryAfterSeconds;
+    private final List<String> unlimitedPaths;
+
+    public ConcurrencyLimitFilter(AdaptiveLimiter readLimiter, AdaptiveLimiter writeLimiter, int retryAfterSeconds,
+                                  List<String> unlimitedPaths) {
+        this.readLimiter = readLimiter;
+        this.writeLimiter = writeLimiter;
+        this.retryAfterSeconds = String.valueOf(retryAfterSeconds);
+        this.unlimitedPaths = unlimitedPaths;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        final String path = request.getRequestURI().substring(request.getContextPath().length());
+        for (String unlimitedPath : unlimitedPaths) {
+            if (path.startsWith(unlimitedPath)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+
+        final AdaptiveLimiter limiter = isRead(request.getMethod()) ? readLimiter : writeLimiter;
+        final long startNanos = limiter.tryAcquire();
+        if (startNanos < 0) {
+            reject(response, limiter);
+            return;
+        }
+
+        boolean released = false;
+        try {
+            filterChain.doFilter(request, response);
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new ReleasingListener(limiter, startNanos));
+                released = true;
+            }
+        } catch (IOException | ServletException | RuntimeException e) {
+            limiter.release(startNanos, true);
+            released = true;
+            throw e;
+        } finally {
+            if (!released) {
+                limiter.release(startNanos, response.getStatus() >= 500);
+            }
+        }
+    }
+
+    private void reject(HttpServletResponse response, AdaptiveLimiter limiter) throws IOException {
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, retryAfterSeconds);
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.getOutputStream().write(("[\"Too many concurrent " + limiter.getName() + "s, retry later\"]")
+                .getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static boolean isRead(String method) {
+        return "GET".equals(method) || "HEAD".equals(method) || "OPTIONS".equals(method);
+    }
+
+    private static final class ReleasingListener implements AsyncListener {
+
+        private final AdaptiveLimiter limiter;
+        private final long startNanos;
+
+        ReleasingListener(AdaptiveLimiter limiter, long startNanos) {
+            this.limiter = limiter;
+            this.startNanos = startNanos;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            final HttpServletResponse response = (HttpServletResponse) event.getSuppliedResponse();
+            limiter.release(startNanos, response.getStatus() >= 500);
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            // onComplete follows
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            // onComplete follows
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            event.getAsyncContext().addListener(this);
+        }
+    }
+}
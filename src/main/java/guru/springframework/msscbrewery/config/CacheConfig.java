@@ -0,0 +1,15 @@
+package guru.springframework.msscbrewery.config;
+
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Caches are Caffeine caches configured in application.properties. Caffeine evicts with W-TinyLFU, so a burst of
+ * one-off lookups cannot push the hot beers out, and {@code recordStats} feeds the actuator cache metrics.
+ */
+@EnableCaching
+@Configuration
+public class CacheConfig {
+
+    public static final String BEER_CACHE = "beer";
+}
@@ -0,0 +1,44 @@
+package guru.springframework.msscbrewery.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import guru.springframework.msscbrewery.changes.BeerChangeFeed;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * The beer change feed behind {@code GET /api/v2/beer/changes}, see {@link BeerChangeFeed}.
+ */
+@Configuration
+public class ChangeFeedConfig {
+
+    @Bean
+    public BeerChangeFeed beerChangeFeed(ObjectMapper objectMapper,
+                                         @Value("${brewery.changes.retained-events:4096}") int retainedEvents,
+                                         @Value("${brewery.changes.queue-capacity:1024}") int queueCapacity,
+                                         @Value("${brewery.changes.heartbeat-ms:15000}") long heartbeatMillis,
+                                         @Value("${brewery.changes.retry-ms:3000}") long retryMillis,
+                                         @Value("${brewery.changes.writer-threads:4}") int writerThreads,
+                                         MeterRegistry meterRegistry) {
+        final BeerChangeFeed changeFeed = new BeerChangeFeed(objectMapper, retainedEvents, queueCapacity,
+                Duration.ofMillis(heartbeatMillis), Duration.ofMillis(retryMillis), writerThreads);
+        changeFeed.start();
+
+        Gauge.builder("brewery.changes.subscribers", changeFeed, BeerChangeFeed::getSubscribers)
+                .register(meterRegistry);
+        FunctionCounter.builder("brewery.changes.published", changeFeed, BeerChangeFeed::getPublished)
+                .register(meterRegistry);
+        FunctionCounter.builder("brewery.changes.coalesced", changeFeed, BeerChangeFeed::getCoalesced)
+                .description("Queued changes replaced by a newer change to the same beer")
+                .register(meterRegistry);
+        FunctionCounter.builder("brewery.changes.dropped", changeFeed, BeerChangeFeed::getDropped)
+                .description("Subscribers disconnected for falling too far behind")
+                .register(meterRegistry);
+        return changeFeed;
+    }
+}
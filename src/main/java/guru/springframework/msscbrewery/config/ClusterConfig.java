@@ -0,0 +1,112 @@
+package guru.springframework.msscbrewery.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import guru.springframework.msscbrewery.changes.BeerChangeFeed;
+import guru.springframework.msscbrewery.cluster.ClusterEndpoint;
+import guru.springframework.msscbrewery.cluster.ClusterForwardingFilter;
+import guru.springframework.msscbrewery.cluster.ClusterMembership;
+import guru.springframework.msscbrewery.cluster.OwnedIdGenerator;
+import guru.springframework.msscbrewery.cluster.PeerClient;
+import guru.springframework.msscbrewery.cluster.PeerOnlyFilter;
+import guru.springframework.msscbrewery.cluster.Rebalancer;
+import guru.springframework.msscbrewery.repositories.BeerInventory;
+import guru.springframework.msscbrewery.repositories.BeerRepository;
+import guru.springframework.msscbrewery.web.mapper.BeerMapper;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.util.IdGenerator;
+import org.springframework.util.JdkIdGenerator;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Cluster mode, off by default. With {@code brewery.cluster.enabled=true} the instances in
+ * {@code brewery.cluster.peers} split the beer catalog on a consistent-hash ring of their base URLs, each one
+ * listing itself as {@code brewery.cluster.self}. Requests for a single beer are forwarded to its owner, after
+ * tracing and load shedding so both still see them; creates stay local, see {@link OwnedIdGenerator}. Members
+ * prove themselves to each other with {@code brewery.cluster.secret}, which every member must share; the
+ * member-to-member endpoints refuse everyone else.
+ */
+@Configuration
+public class ClusterConfig {
+
+    @Bean
+    @ConditionalOnProperty(name = "brewery.cluster.enabled", havingValue = "false", matchIfMissing = true)
+    public IdGenerator beerIdGenerator() {
+        return new JdkIdGenerator();
+    }
+
+    @Configuration
+    @ConditionalOnProperty(name = "brewery.cluster.enabled", havingValue = "true")
+    static class Clustered {
+
+        @Bean
+        public ClusterMembership clusterMembership(@Value("${brewery.cluster.self}") String self,
+                                                   @Value("${brewery.cluster.peers}") List<String> peers,
+                                                   @Value("${brewery.cluster.virtual-nodes:128}") int virtualNodes) {
+            return new ClusterMembership(self, peers, virtualNodes);
+        }
+
+        @Bean
+        public IdGenerator beerIdGenerator(ClusterMembership membership) {
+            return new OwnedIdGenerator(membership);
+        }
+
+        @Bean
+        public PeerClient peerClient(ClusterMembership membership, ObjectMapper objectMapper,
+                                     @Value("${brewery.cluster.secret}") String secret,
+                                     @Value("${brewery.cluster.connect-timeout-ms:500}") long connectTimeoutMillis,
+                                     @Value("${brewery.cluster.request-timeout-ms:5000}") long requestTimeoutMillis) {
+            return new PeerClient(membership.getSelf(), secret, Duration.ofMillis(connectTimeoutMillis),
+                    Duration.ofMillis(requestTimeoutMillis), objectMapper);
+        }
+
+        @Bean
+        public FilterRegistrationBean<PeerOnlyFilter> peerOnlyFilter(PeerClient peerClient) {
+            final FilterRegistrationBean<PeerOnlyFilter> registration =
+                    new FilterRegistrationBean<>(new PeerOnlyFilter(peerClient));
+            registration.addUrlPatterns(PeerClient.INTERNAL_PATH + "/*");
+            registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+            return registration;
+        }
+
+        @Bean
+        public Rebalancer rebalancer(ClusterMembership membership, BeerRepository beerRepository,
+                                     BeerInventory inventory, BeerMapper beerMapper,
+                                     BeerChangeFeed changeFeed, PeerClient peerClient,
+                                     CacheManager cacheManager,
+                                     @Qualifier("applicationTaskExecutor") TaskExecutor taskExecutor,
+                                     @Value("${brewery.cluster.retry-delay-ms:1000}") long retryDelayMillis,
+                                     @Value("${brewery.cluster.max-retry-delay-ms:60000}") long maxRetryDelayMillis) {
+            return new Rebalancer(membership, beerRepository, inventory, beerMapper, changeFeed, peerClient,
+                    cacheManager, taskExecutor, Duration.ofMillis(retryDelayMillis),
+                    Duration.ofMillis(maxRetryDelayMillis));
+        }
+
+        @Bean
+        public ClusterEndpoint clusterEndpoint(ClusterMembership membership, Rebalancer rebalancer,
+                                               BeerRepository beerRepository) {
+            return new ClusterEndpoint(membership, rebalancer, beerRepository);
+        }
+
+        @Bean
+        public FilterRegistrationBean<ClusterForwardingFilter> clusterForwardingFilter(
+                ClusterMembership membership, PeerClient peerClient,
+                @Value("${brewery.limiter.retry-after-seconds:1}") int retryAfterSeconds) {
+            final FilterRegistrationBean<ClusterForwardingFilter> registration = new FilterRegistrationBean<>(
+                    new ClusterForwardingFilter(membership, peerClient, List.of("/api/v1/beer/", "/api/v2/beer/"),
+                            List.of("/inventory/adjust"), retryAfterSeconds));
+            registration.addUrlPatterns("/api/v1/beer/*", "/api/v2/beer/*");
+            registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 2);
+            return registration;
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package guru.springframework.msscbrewery.config;
+
+import guru.springframework.msscbrewery.concurrency.AdaptiveLimiter;
+import guru.springframework.msscbrewery.concurrency.ConcurrencyLimitFilter;
+import guru.springframework.msscbrewery.web.controller.CustomerImportController;
+import guru.springframework.msscbrewery.web.controller.v2.BeerControllerV2;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import java.util.List;
+
+/**
+ * Adaptive concurrency limits for the v2 beer and customer APIs, one bulkhead for reads and one for writes, see
+ * {@link AdaptiveLimiter}. Runs right after tracing, so shed requests still show up in traces. Customer imports
+ * are bounded by their own job limit instead, and catalog exports and change streams are left out since their
+ * long lives would read as overload.
+ */
+@Configuration
+@ConditionalOnProperty(name = "brewery.limiter.enabled", havingValue = "true", matchIfMissing = true)
+public class ConcurrencyLimitConfig {
+
+    @Bean
+    public AdaptiveLimiter readLimiter(@Value("${brewery.limiter.read.initial-limit:100}") int initialLimit,
+                                       @Value("${brewery.limiter.read.min-limit:10}") int minLimit,
+                                       @Value("${brewery.limiter.read.max-limit:1000}") int maxLimit,
+                                       @Value("${brewery.limiter.read.latency-threshold-ms:25}") long latencyThresholdMillis,
+                                       MeterRegistry meterRegistry) {
+        return bind(new AdaptiveLimiter("read", initialLimit, minLimit, maxLimit, latencyThresholdMillis), meterRegistry);
+    }
+
+    @Bean
+    public AdaptiveLimiter writeLimiter(@Value("${brewery.limiter.write.initial-limit:20}") int initialLimit,
+                                        @Value("${brewery.limiter.write.min-limit:2}") int minLimit,
+                                        @Value("${brewery.limiter.write.max-limit:200}") int maxLimit,
+                                        @Value("${brewery.limiter.write.latency-threshold-ms:100}") long latencyThresholdMillis,
+                                        MeterRegistry meterRegistry) {
+        return bind(new AdaptiveLimiter("write", initialLimit, minLimit, maxLimit, latencyThresholdMillis), meterRegistry);
+    }
+
+    @Bean
+    public FilterRegistrationBean<ConcurrencyLimitFilter> concurrencyLimitFilter(AdaptiveLimiter readLimiter,
+                                                                                 AdaptiveLimiter writeLimiter,
+                                                                                 @Value("${brewery.limiter.retry-after-seconds:1}") int retryAfterSeconds) {
+        final FilterRegistrationBean<ConcurrencyLimitFilter> registration =
+                new FilterRegistrationBean<>(new ConcurrencyLimitFilter(readLimiter, writeLimiter, retryAfterSeconds,
+                        List.of(CustomerImportController.API_V1_CUSTOMER_IMPORTS, BeerControllerV2.API_V2_BEER_EXPORT,
+                                BeerControllerV2.API_V2_BEER_CHANGES)));
+        registration.addUrlPatterns("/api/v2/beer/*", "/api/v1/customer/*");
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 1);
+        return registration;
+    }
+
+    private static AdaptiveLimiter bind(AdaptiveLimiter limiter, MeterRegistry meterRegistry) {
+        Gauge.builder("brewery.limiter.limit", limiter, AdaptiveLimiter::getLimit)
+                .tag("bulkhead", limiter.getName())
+                .register(meterRegistry);
+        Gauge.builder("brewery.limiter.inflight", limiter, AdaptiveLimiter::getInFlight)
+                .tag("bulkhead", limiter.getName())
+                .register(meterRegistry);
+        FunctionCounter.builder("brewery.limiter.rejected", limiter, AdaptiveLimiter::getRejected)
+                .tag("bulkhead", limiter.getName())
+                .register(meterRegistry);
+        return limiter;
+    }
+}
@@ -0,0 +1,20 @@
+package guru.springframework.msscbrewery.config;
+
+import guru.springframework.msscbrewery.web.controller.CborMessageConverter;
+import guru.springframework.msscbrewery.web.controller.VaryOnAcceptInterceptor;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * The APIs answer in JSON or, when asked, CBOR, see {@link CborMessageConverter}; their reads vary on
+ * {@code Accept}.
+ */
+@Configuration
+public class ContentNegotiationConfig implements WebMvcConfigurer {
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new VaryOnAcceptInterceptor()).addPathPatterns("/api/**");
+    }
+}
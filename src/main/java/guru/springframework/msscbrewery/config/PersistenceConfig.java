@@ -0,0 +1,57 @@
+package guru.springframework.msscbrewery.config;
+
+import guru.springframework.msscbrewery.persistence.MappedMutationLog;
+import guru.springframework.msscbrewery.persistence.MutationLog;
+import guru.springframework.msscbrewery.persistence.PersistenceManager;
+import guru.springframework.msscbrewery.persistence.SnapshotStore;
+import guru.springframework.msscbrewery.repositories.BeerInventory;
+import guru.springframework.msscbrewery.repositories.BeerRepository;
+import guru.springframework.msscbrewery.repositories.CustomerRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+import java.nio.file.Path;
+
+/**
+ * Durability of the in-memory repositories, off by default. With {@code brewery.persistence.enabled=true} every
+ * write goes to a memory-mapped log under {@code brewery.persistence.directory} and snapshots are taken on a
+ * fixed delay; with {@code fsync=false} a write returns before the log is forced, trading up to a second of
+ * writes on power loss for throughput.
+ */
+@Configuration
+public class PersistenceConfig {
+
+    @Bean
+    @ConditionalOnProperty(name = "brewery.persistence.enabled", havingValue = "false", matchIfMissing = true)
+    public MutationLog noMutationLog() {
+        return MutationLog.NONE;
+    }
+
+    @EnableScheduling
+    @Configuration
+    @ConditionalOnProperty(name = "brewery.persistence.enabled", havingValue = "true")
+    static class Durable {
+
+        @Bean
+        public MappedMutationLog mutationLog(@Value("${brewery.persistence.directory}") Path directory,
+                                             @Value("${brewery.persistence.segment-size:67108864}") int segmentSize,
+                                             @Value("${brewery.persistence.fsync:true}") boolean fsync) {
+            return new MappedMutationLog(directory, segmentSize, fsync);
+        }
+
+        @Bean
+        public SnapshotStore snapshotStore(@Value("${brewery.persistence.directory}") Path directory) {
+            return new SnapshotStore(directory);
+        }
+
+        @Bean
+        public PersistenceManager persistenceManager(MappedMutationLog mutationLog, SnapshotStore snapshotStore,
+                                                     BeerRepository beerRepository, BeerInventory inventory,
+                                                     CustomerRepository customerRepository) {
+            return new PersistenceManager(mutationLog, snapshotStore, beerRepository, inventory, customerRepository);
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package guru.springframework.msscbrewery.config;
+
+import guru.springframework.msscbrewery.tracing.RequestTraceEndpoint;
+import guru.springframework.msscbrewery.tracing.RequestTracer;
+import guru.springframework.msscbrewery.tracing.TracingFilter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+/**
+ * Sampled request tracing of the v2 beer and customer APIs, see {@link RequestTracer}. The filter runs first so a
+ * trace covers every other filter too.
+ */
+@Configuration
+public class TracingConfig {
+
+    @Bean
+    public RequestTracer requestTracer(@Value("${brewery.tracing.capacity:1024}") int capacity,
+                                       @Value("${brewery.tracing.sample-rate:0}") double sampleRate) {
+        return new RequestTracer(capacity, sampleRate);
+    }
+
+    @Bean
+    public FilterRegistrationBean<TracingFilter> tracingFilter(RequestTracer requestTracer) {
+        final FilterRegistrationBean<TracingFilter> registration = new FilterRegistrationBean<>(new TracingFilter(requestTracer));
+        registration.addUrlPatterns("/api/v2/beer/*", "/api/v1/customer/*");
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registration;
+    }
+
+    @Bean
+    public RequestTraceEndpoint requestTraceEndpoint(RequestTracer requestTracer) {
+        return new RequestTraceEndpoint(requestTracer);
+    }
+}
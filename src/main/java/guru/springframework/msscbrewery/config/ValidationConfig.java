@@ -0,0 +1,28 @@
+package guru.springframework.msscbrewery.config;
+
+import guru.springframework.msscbrewery.tracing.TracingValidator;
+import guru.springframework.msscbrewery.web.validation.DtoValidators;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.validation.Validator;
+import org.springframework.validation.beanvalidation.SpringValidatorAdapter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Spring MVC validates request bodies with the hand-written DTO validators, see {@link DtoValidators}, falling back
+ * to the application's bean validator for other types. The whole chain is wrapped in a {@link TracingValidator} so
+ * traced requests show validation as its own phase.
+ */
+@Configuration
+public class ValidationConfig implements WebMvcConfigurer {
+
+    private final javax.validation.Validator validator;
+
+    public ValidationConfig(javax.validation.Validator validator) {
+        this.validator = validator;
+    }
+
+    @Override
+    public Validator getValidator() {
+        return new TracingValidator(new DtoValidators(new SpringValidatorAdapter(validator)));
+    }
+}
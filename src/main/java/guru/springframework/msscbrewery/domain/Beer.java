@@ -10,10 +10,11 @@ import java.util.UUID;
 
 @NoArgsConstructor
 @AllArgsConstructor
-@Builder
+@Builder(toBuilder = true)
 @Data
 public class Beer {
     private UUID id;
+    private Long version;
     private String beerName;
     private BeerStyle beerStyle;
     private Long upc;
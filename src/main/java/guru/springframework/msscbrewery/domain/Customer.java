@@ -9,9 +9,10 @@ import java.util.UUID;
 
 @AllArgsConstructor
 @NoArgsConstructor
-@Builder
+@Builder(toBuilder = true)
 @Data
 public class Customer {
     private UUID id;
+    private Long version;
     private String name;
 }
@@ -0,0 +1,32 @@
+package guru.springframework.msscbrewery.metrics;
+
+import guru.springframework.msscbrewery.repositories.BeerRepository;
+import guru.springframework.msscbrewery.repositories.CustomerRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Entity counts of the in-memory stores. Cache sizes and hit rates come from Boot's Caffeine cache metrics.
+ */
+@Component
+@RequiredArgsConstructor
+public class StoreMetrics implements MeterBinder {
+
+    private final BeerRepository beerRepository;
+    private final CustomerRepository customerRepository;
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("brewery.store.size", beerRepository, BeerRepository::count)
+                .tag("store", "beer")
+                .description("Beers held in memory")
+                .register(registry);
+        Gauge.builder("brewery.store.size", customerRepository, CustomerRepository::count)
+                .tag("store", "customer")
+                .description("Customers held in memory")
+                .register(registry);
+    }
+}
@@ -0,0 +1,72 @@
+package guru.springframework.msscbrewery.metrics;
+
+import guru.springframework.msscbrewery.tracing.Phase;
+import guru.springframework.msscbrewery.tracing.RequestTracer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times every service and mapper method, and marks them as phases of sampled request traces. Timers are looked up once per method and cached, so the hot path is a map
+ * read and a clock read on each side. Runs outside the caching advice, so service timings include cache hits.
+ * Percentile histograms are switched on per meter name in application.properties.
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class TimingAspect {
+
+    public static final String SERVICE_TIMER = "brewery.service";
+    public static final String MAPPER_TIMER = "brewery.mapper";
+
+    private final MeterRegistry meterRegistry;
+    private final ConcurrentMap<Method, Timer> timers = new ConcurrentHashMap<>();
+
+    public TimingAspect(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Around("execution(* guru.springframework.msscbrewery.services.BeerService.*(..))"
+            + " || execution(* guru.springframework.msscbrewery.services.CustomerService.*(..))"
+            + " || execution(* guru.springframework.msscbrewery.services.v2.BeerServiceV2.*(..))")
+    public Object timeService(ProceedingJoinPoint joinPoint) throws Throwable {
+        return time(SERVICE_TIMER, Phase.SERVICE, joinPoint);
+    }
+
+    @Around("execution(* guru.springframework.msscbrewery.web.mapper.BeerMapper.*(..))"
+            + " || execution(* guru.springframework.msscbrewery.web.mapper.CustomerMapper.*(..))")
+    public Object timeMapper(ProceedingJoinPoint joinPoint) throws Throwable {
+        return time(MAPPER_TIMER, Phase.MAPPING, joinPoint);
+    }
+
+    private Object time(String name, Phase phase, ProceedingJoinPoint joinPoint) throws Throwable {
+        final Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        Timer timer = timers.get(method);
+        if (timer == null) {
+            timer = timers.computeIfAbsent(method, key -> Timer.builder(name)
+                    .tag("class", key.getDeclaringClass().getSimpleName())
+                    .tag("method", key.getName())
+                    .register(meterRegistry));
+        }
+
+        RequestTracer.enter(phase);
+        final long start = System.nanoTime();
+        try {
+            return joinPoint.proceed();
+        } finally {
+            timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            RequestTracer.exit(phase);
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package guru.springframework.msscbrewery.persistence;
+
+import guru.springframework.msscbrewery.domain.Beer;
+import guru.springframework.msscbrewery.domain.BeerStyle;
+import guru.springframework.msscbrewery.domain.Customer;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.util.UUID;
+
+/**
+ * Compact binary encoding of log and snapshot records: a type byte followed by fixed width fields, with a
+ * presence bitmask instead of per-field null markers.
+ */
+final class EntityCodec {
+
+    static final byte BEER_SAVED = 1;
+    static final byte BEER_DELETED = 2;
+    static final byte CUSTOMER_SAVED = 3;
+    static final byte CUSTOMER_DELETED = 4;
+    static final byte BEER_STOCK = 5;
+
+    static final int STOCK_SIZE = 1 + 16 + 8;
+
+    private static final int HAS_NAME = 1;
+    private static final int HAS_STYLE = 1 << 1;
+    private static final int HAS_UPC = 1 << 2;
+    private static final int HAS_CREATED = 1 << 3;
+    private static final int HAS_UPDATED = 1 << 4;
+
+    private static final BeerStyle[] STYLES = BeerStyle.values();
+
+    private EntityCodec() {
+    }
+
+    static int maxSize(Beer beer) {
+        return 1 + 16 + 8 + 1 + maxSize(beer.getBeerName()) + 1 + 8 + 8 + 8;
+    }
+
+    static int maxSize(Customer customer) {
+        return 1 + 16 + 8 + maxSize(customer.getName());
+    }
+
+    static void writeBeer(ByteBuffer buffer, Beer beer) {
+        buffer.put(BEER_SAVED);
+        writeUuid(buffer, beer.getId());
+        buffer.putLong(beer.getVersion());
+
+        int present = 0;
+        present |= beer.getBeerName() != null ? HAS_NAME : 0;
+        present |= beer.getBeerStyle() != null ? HAS_STYLE : 0;
+        present |= beer.getUpc() != null ? HAS_UPC : 0;
+        present |= beer.getCreatedDate() != null ? HAS_CREATED : 0;
+        present |= beer.getLastUpdatedDate() != null ? HAS_UPDATED : 0;
+        buffer.put((byte) present);
+
+        if (beer.getBeerName() != null) {
+            writeString(buffer, beer.getBeerName());
+        }
+        if (beer.getBeerStyle() != null) {
+            buffer.put((byte) beer.getBeerStyle().ordinal());
+        }
+        if (beer.getUpc() != null) {
+            buffer.putLong(beer.getUpc());
+        }
+        if (beer.getCreatedDate() != null) {
+            buffer.putLong(beer.getCreatedDate().getTime());
+        }
+        if (beer.getLastUpdatedDate() != null) {
+            buffer.putLong(beer.getLastUpdatedDate().getTime());
+        }
+    }
+
+    static void writeCustomer(ByteBuffer buffer, Customer customer) {
+        buffer.put(CUSTOMER_SAVED);
+        writeUuid(buffer, customer.getId());
+        buffer.putLong(customer.getVersion());
+        writeString(buffer, customer.getName() == null ? "" : customer.getName());
+    }
+
+    static void writeStock(ByteBuffer buffer, UUID beerId, long quantityOnHand) {
+        buffer.put(BEER_STOCK);
+        writeUuid(buffer, beerId);
+        buffer.putLong(quantityOnHand);
+    }
+
+    static void writeDeleted(ByteBuffer buffer, byte type, UUID id) {
+        buffer.put(type);
+        writeUuid(buffer, id);
+    }
+
+    /**
+     * Decodes one record starting at the buffer's position, which must be a type byte.
+     */
+    static void read(ByteBuffer buffer, MutationHandler handler) {
+        final byte type = buffer.get();
+        switch (type) {
+            case BEER_SAVED:
+                handler.beerSaved(readBeer(buffer));
+                break;
+            case BEER_DELETED:
+                handler.beerDeleted(readUuid(buffer));
+                break;
+            case CUSTOMER_SAVED:
+                handler.customerSaved(Customer.builder()
+                        .id(readUuid(buffer))
+                        .version(buffer.getLong())
+                        .name(readString(buffer))
+                        .build());
+                break;
+            case CUSTOMER_DELETED:
+                handler.customerDeleted(readUuid(buffer));
+                break;
+            case BEER_STOCK:
+                handler.beerStock(readUuid(buffer), buffer.getLong());
+                break;
+            default:
+                throw new IllegalStateException("Unknown record type " + type);
+        }
+    }
+
+    private static Beer readBeer(ByteBuffer buffer) {
+        final Beer.BeerBuilder beer = Beer.builder()
+                .id(readUuid(buffer))
+                .version(buffer.getLong());
+
+        final int present = buffer.get();
+        if ((present & HAS_NAME) != 0) {
+            beer.beerName(readString(buffer));
+        }
+        if ((present & HAS_STYLE) != 0) {
+            beer.beerStyle(STYLES[buffer.get()]);
+        }
+        if ((present & HAS_UPC) != 0) {
+            beer.upc(buffer.getLong());
+        }
+        if ((present & HAS_CREATED) != 0) {
+            beer.createdDate(new Timestamp(buffer.getLong()));
+        }
+        if ((present & HAS_UPDATED) != 0) {
+            beer.lastUpdatedDate(new Timestamp(buffer.getLong()));
+        }
+        return beer.build();
+    }
+
+    private static void writeUuid(ByteBuffer buffer, UUID id) {
+        buffer.putLong(id.getMostSignificantBits());
+        buffer.putLong(id.getLeastSignificantBits());
+    }
+
+    private static UUID readUuid(ByteBuffer buffer) {
+        return new UUID(buffer.getLong(), buffer.getLong());
+    }
+
+    private static int maxSize(String value) {
+        // worst case of 3 UTF-8 bytes per UTF-16 char
+        return 4 + (value == null ? 0 : value.length() * 3);
+    }
+
+    private static void writeString(ByteBuffer buffer, String value) {
+        final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        buffer.putInt(bytes.length);
+        buffer.put(bytes);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        final int length = buffer.getInt();
+        if (!buffer.hasArray()) {
+            final byte[] bytes = new byte[length];
+            buffer.get(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        final String value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+        return value;
+    }
+}
@@ -0,0 +1,392 @@
+package guru.springframework.msscbrewery.persistence;
+
+import guru.springframework.msscbrewery.domain.Beer;
+import guru.springframework.msscbrewery.domain.Customer;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * {@link MutationLog} written to memory-mapped segment files.
+ *
+ * A record is {@code [int length][int crc32][payload]}; an all zero or corrupt header marks the end of a
+ * segment, so a torn write on crash only loses the records nobody was told were durable. Positions are
+ * {@code segment << 32 | offset}.
+ *
+ * Durability uses group commit: a single flusher thread forces the current segment while appenders keep writing,
+ * then releases every waiter covered by that force. With fsync disabled appends do not wait and the flusher
+ * still forces once per second.
+ */
+@Slf4j
+public class MappedMutationLog implements MutationLog, Closeable {
+
+    private static final String SEGMENT_PREFIX = "journal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final int HEADER_BYTES = 8;
+    private static final long IDLE_FLUSH_MILLIS = 1000;
+
+    private final Path directory;
+    private final int segmentSize;
+    private final boolean fsync;
+
+    private final ReentrantReadWriteLock snapshotGate = new ReentrantReadWriteLock();
+    private final ReentrantLock appendLock = new ReentrantLock();
+    // a lock rather than a monitor, so virtual threads waiting for a force do not pin their carrier
+    private final ReentrantLock durableLock = new ReentrantLock();
+    private final Condition durableChanged = durableLock.newCondition();
+    private final CRC32 crc = new CRC32();
+    private ByteBuffer scratch = ByteBuffer.allocate(4096);
+
+    private int segmentIndex = -1;
+    private FileChannel channel;
+    private volatile MappedByteBuffer segment;
+    private volatile long writtenPosition;
+    private long durablePosition;
+    private volatile boolean open;
+    private Thread flusher;
+
+    public MappedMutationLog(Path directory, int segmentSize, boolean fsync) {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.fsync = fsync;
+    }
+
+    /**
+     * Feeds every intact record from {@code fromPosition} on to {@code handler}, segment by segment.
+     */
+    public void replay(long fromPosition, MutationHandler handler) throws IOException {
+        final int fromSegment = segmentOf(fromPosition);
+        for (int index : segmentIndexes()) {
+            if (index < fromSegment) {
+                continue;
+            }
+
+            try (FileChannel file = FileChannel.open(segmentPath(index), StandardOpenOption.READ)) {
+                final MappedByteBuffer buffer = file.map(FileChannel.MapMode.READ_ONLY, 0, file.size());
+                buffer.position(index == fromSegment ? offsetOf(fromPosition) : 0);
+                final CRC32 checksum = new CRC32();
+
+                while (buffer.remaining() >= HEADER_BYTES) {
+                    final int length = buffer.getInt();
+                    final int expectedCrc = buffer.getInt();
+                    if (length <= 0 || length > buffer.remaining()) {
+                        break;
+                    }
+
+                    final ByteBuffer record = buffer.slice();
+                    record.limit(length);
+                    checksum.reset();
+                    checksum.update(record.duplicate());
+                    if ((int) checksum.getValue() != expectedCrc) {
+                        log.warn("Stopping replay of {} at torn record, offset {}", segmentPath(index), buffer.position() - HEADER_BYTES);
+                        break;
+                    }
+
+                    EntityCodec.read(record, handler);
+                    buffer.position(buffer.position() + length);
+                }
+            }
+        }
+    }
+
+    /**
+     * Opens a fresh segment after the existing ones and starts accepting appends.
+     */
+    public void start() throws IOException {
+        Files.createDirectories(directory);
+        final List<Integer> existing = segmentIndexes();
+        segmentIndex = existing.isEmpty() ? -1 : existing.get(existing.size() - 1);
+        appendLock.lock();
+        try {
+            rollSegment();
+        } finally {
+            appendLock.unlock();
+        }
+
+        open = true;
+        flusher = new Thread(this::flushLoop, "mutation-log-flusher");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    /**
+     * Position the next record will be written at, taken once no mutation is in flight. Everything before it is
+     * visible in the repositories.
+     */
+    public long snapshotPosition() {
+        snapshotGate.writeLock().lock();
+        try {
+            return writtenPosition;
+        } finally {
+            snapshotGate.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Deletes segments that only hold records before {@code position}.
+     */
+    public void truncateBefore(long position) throws IOException {
+        final int keepFrom = segmentOf(position);
+        for (int index : segmentIndexes()) {
+            if (index < keepFrom) {
+                Files.deleteIfExists(segmentPath(index));
+            }
+        }
+    }
+
+    @Override
+    public <T> T logged(Supplier<T> mutation) {
+        snapshotGate.readLock().lock();
+        try {
+            return mutation.get();
+        } finally {
+            snapshotGate.readLock().unlock();
+        }
+    }
+
+    @Override
+    public long beerSaved(Beer beer) {
+        appendLock.lock();
+        try {
+            EntityCodec.writeBeer(scratch(EntityCodec.maxSize(beer)), beer);
+            return appendScratch();
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    @Override
+    public long beerDeleted(UUID beerId) {
+        appendLock.lock();
+        try {
+            EntityCodec.writeDeleted(scratch(17), EntityCodec.BEER_DELETED, beerId);
+            return appendScratch();
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    @Override
+    public long customerSaved(Customer customer) {
+        appendLock.lock();
+        try {
+            EntityCodec.writeCustomer(scratch(EntityCodec.maxSize(customer)), customer);
+            return appendScratch();
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    @Override
+    public long customerDeleted(UUID customerId) {
+        appendLock.lock();
+        try {
+            EntityCodec.writeDeleted(scratch(17), EntityCodec.CUSTOMER_DELETED, customerId);
+            return appendScratch();
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    @Override
+    public void awaitDurable(long position) {
+        if (!fsync) {
+            return;
+        }
+
+        durableLock.lock();
+        try {
+            durableChanged.signalAll();
+            while (durablePosition < position) {
+                if (!open) {
+                    throw new IllegalStateException("Mutation log is closed");
+                }
+                try {
+                    durableChanged.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted waiting for the mutation log", e);
+                }
+            }
+        } finally {
+            durableLock.unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        durableLock.lock();
+        try {
+            open = false;
+            durableChanged.signalAll();
+        } finally {
+            durableLock.unlock();
+        }
+        if (flusher != null) {
+            try {
+                flusher.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        appendLock.lock();
+        try {
+            if (channel != null) {
+                segment.force();
+                channel.close();
+            }
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    private ByteBuffer scratch(int maxSize) {
+        if (scratch.capacity() < maxSize) {
+            scratch = ByteBuffer.allocate(Math.max(maxSize, scratch.capacity() * 2));
+        }
+        scratch.clear();
+        return scratch;
+    }
+
+    private long appendScratch() {
+        if (!open) {
+            throw new IllegalStateException("Mutation log is not open");
+        }
+
+        scratch.flip();
+        final int length = scratch.remaining();
+        if (HEADER_BYTES + length > segmentSize - HEADER_BYTES) {
+            throw new IllegalArgumentException("Record of " + length + " bytes does not fit a log segment");
+        }
+
+        try {
+            if (segment.remaining() < HEADER_BYTES + length + HEADER_BYTES) {
+                rollSegment();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        crc.reset();
+        crc.update(scratch.duplicate());
+        segment.putInt(length);
+        segment.putInt((int) crc.getValue());
+        segment.put(scratch);
+
+        writtenPosition = position(segmentIndex, segment.position());
+        return writtenPosition;
+    }
+
+    /**
+     * Forces and closes the current segment, then maps the next one. Called with the append lock held.
+     */
+    private void rollSegment() throws IOException {
+        if (channel != null) {
+            segment.force();
+            channel.close();
+        }
+
+        segmentIndex++;
+        channel = FileChannel.open(segmentPath(segmentIndex),
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        writtenPosition = position(segmentIndex, 0);
+
+        // a rolled segment was forced above, so everything before the new one is durable
+        durableLock.lock();
+        try {
+            durablePosition = writtenPosition;
+            durableChanged.signalAll();
+        } finally {
+            durableLock.unlock();
+        }
+    }
+
+    private void flushLoop() {
+        while (true) {
+            final long target;
+            durableLock.lock();
+            try {
+                if (open && durablePosition >= writtenPosition) {
+                    try {
+                        durableChanged.await(IDLE_FLUSH_MILLIS, TimeUnit.MILLISECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                }
+                if (!open) {
+                    return;
+                }
+                target = writtenPosition;
+                if (durablePosition >= target) {
+                    continue;
+                }
+            } finally {
+                durableLock.unlock();
+            }
+
+            // appends keep going while we force; they are picked up by the next round
+            segment.force();
+
+            durableLock.lock();
+            try {
+                durablePosition = Math.max(durablePosition, target);
+                durableChanged.signalAll();
+            } finally {
+                durableLock.unlock();
+            }
+        }
+    }
+
+    private List<Integer> segmentIndexes() throws IOException {
+        final List<Integer> indexes = new ArrayList<>();
+        if (!Files.isDirectory(directory)) {
+            return indexes;
+        }
+
+        try (Stream<Path> files = Files.list(directory)) {
+            files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX))
+                    .map(name -> Integer.parseInt(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length())))
+                    .sorted()
+                    .forEach(indexes::add);
+        }
+        return indexes;
+    }
+
+    private Path segmentPath(int index) {
+        return directory.resolve(String.format("%s%010d%s", SEGMENT_PREFIX, index, SEGMENT_SUFFIX));
+    }
+
+    static long position(int segment, int offset) {
+        return ((long) segment << 32) | offset;
+    }
+
+    static int segmentOf(long position) {
+        return (int) (position >>> 32);
+    }
+
+    static int offsetOf(long position) {
+        return (int) position;
+    }
+}
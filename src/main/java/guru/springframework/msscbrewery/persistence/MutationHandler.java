@@ -0,0 +1,25 @@
+package guru.springframework.msscbrewery.persistence;
+
+import guru.springframework.msscbrewery.domain.Beer;
+import guru.springframework.msscbrewery.domain.Customer;
+
+import java.util.UUID;
+
+/**
+ * Receives decoded log and snapshot records during recovery.
+ */
+public interface MutationHandler {
+
+    void beerSaved(Beer beer);
+
+    void beerDeleted(UUID beerId);
+
+    /**
+     * The stock level of a beer; only snapshots carry these, right after the beer.
+     */
+    void beerStock(UUID beerId, long quantityOnHand);
+
+    void customerSaved(Customer customer);
+
+    void customerDeleted(UUID customerId);
+}
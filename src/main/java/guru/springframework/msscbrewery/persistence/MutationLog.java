@@ -0,0 +1,67 @@
+package guru.springframework.msscbrewery.persistence;
+
+import guru.springframework.msscbrewery.domain.Beer;
+import guru.springframework.msscbrewery.domain.Customer;
+
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * Append-only log of beer and customer mutations.
+ *
+ * Repositories append from inside the map operation that applies the change, so the log order of one entity
+ * always matches the order its changes were applied in. Appends return the log position right after the
+ * record; {@link #awaitDurable(long)} blocks until that position is on disk.
+ */
+public interface MutationLog {
+
+    /**
+     * A log that records nothing, used when persistence is disabled.
+     */
+    MutationLog NONE = new MutationLog() {
+        @Override
+        public <T> T logged(Supplier<T> mutation) {
+            return mutation.get();
+        }
+
+        @Override
+        public long beerSaved(Beer beer) {
+            return 0;
+        }
+
+        @Override
+        public long beerDeleted(UUID beerId) {
+            return 0;
+        }
+
+        @Override
+        public long customerSaved(Customer customer) {
+            return 0;
+        }
+
+        @Override
+        public long customerDeleted(UUID customerId) {
+            return 0;
+        }
+
+        @Override
+        public void awaitDurable(long position) {
+        }
+    };
+
+    /**
+     * Runs a mutation that appends to this log. Snapshots wait for running mutations, so they never capture a
+     * log position whose records are not yet visible in the repositories.
+     */
+    <T> T logged(Supplier<T> mutation);
+
+    long beerSaved(Beer beer);
+
+    long beerDeleted(UUID beerId);
+
+    long customerSaved(Customer customer);
+
+    long customerDeleted(UUID customerId);
+
+    void awaitDurable(long position);
+}
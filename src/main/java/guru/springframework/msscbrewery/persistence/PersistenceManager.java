@@ -0,0 +1,102 @@
+package guru.springframework.msscbrewery.persistence;
+
+import guru.springframework.msscbrewery.domain.Beer;
+import guru.springframework.msscbrewery.domain.Customer;
+import guru.springframework.msscbrewery.repositories.BeerInventory;
+import guru.springframework.msscbrewery.repositories.BeerRepository;
+import guru.springframework.msscbrewery.repositories.CustomerRepository;
+import guru.springframework.msscbrewery.repositories.DuplicateUpcException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.UUID;
+
+/**
+ * Recovers the repositories on startup and takes periodic snapshots so the log can be truncated.
+ *
+ * Recovery is the newest snapshot followed by the log from the position stored in it. A snapshot is taken while
+ * writes keep going, so it may already contain some of the replayed changes; records carry the whole entity and
+ * are applied in order, so applying one twice ends in the same state.
+ *
+ * Stock levels are not journaled, see {@link BeerInventory}: they are saved with every snapshot and once more on
+ * shutdown, so a crash loses the adjustments made since the last snapshot and a clean restart loses none.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class PersistenceManager {
+
+    private final MappedMutationLog mutationLog;
+    private final SnapshotStore snapshotStore;
+    private final BeerRepository beerRepository;
+    private final BeerInventory inventory;
+    private final CustomerRepository customerRepository;
+
+    @PostConstruct
+    public void recover() throws IOException {
+        final long started = System.nanoTime();
+        final MutationHandler handler = new RepositoryHandler();
+
+        final long replayFrom = snapshotStore.load(handler).orElse(0L);
+        mutationLog.replay(replayFrom, handler);
+        mutationLog.start();
+
+        log.info("Recovered {} beers and {} customers in {} ms", beerRepository.count(), customerRepository.count(),
+                (System.nanoTime() - started) / 1_000_000);
+    }
+
+    @Scheduled(initialDelayString = "${brewery.persistence.snapshot-interval-ms:300000}",
+            fixedDelayString = "${brewery.persistence.snapshot-interval-ms:300000}")
+    public void snapshot() throws IOException {
+        final long replayFrom = mutationLog.snapshotPosition();
+        snapshotStore.write(replayFrom, beerRepository.findAll(), inventory::getQuantityOnHand,
+                customerRepository.findAll());
+        mutationLog.truncateBefore(replayFrom);
+        log.debug("Wrote snapshot at log position {}", replayFrom);
+    }
+
+    /**
+     * Saves the stock levels adjusted since the last snapshot, which the log does not hold.
+     */
+    @PreDestroy
+    public void snapshotOnShutdown() throws IOException {
+        snapshot();
+    }
+
+    private class RepositoryHandler implements MutationHandler {
+
+        @Override
+        public void beerSaved(Beer beer) {
+            try {
+                beerRepository.restore(beer);
+            } catch (DuplicateUpcException e) {
+                // the snapshot already holds a later state that moved this UPC; the records that follow catch up
+                log.debug("Skipping replayed beer {}: {}", beer.getId(), e.getMessage());
+            }
+        }
+
+        @Override
+        public void beerDeleted(UUID beerId) {
+            beerRepository.restoreDeleted(beerId);
+            inventory.remove(beerId);
+        }
+
+        @Override
+        public void beerStock(UUID beerId, long quantityOnHand) {
+            inventory.restore(beerId, quantityOnHand);
+        }
+
+        @Override
+        public void customerSaved(Customer customer) {
+            customerRepository.restore(customer);
+        }
+
+        @Override
+        public void customerDeleted(UUID customerId) {
+            customerRepository.restoreDeleted(customerId);
+        }
+    }
+}
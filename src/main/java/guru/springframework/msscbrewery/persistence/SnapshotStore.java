@@ -0,0 +1,150 @@
+package guru.springframework.msscbrewery.persistence;
+
+import guru.springframework.msscbrewery.domain.Beer;
+import guru.springframework.msscbrewery.domain.Customer;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.ToLongFunction;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Point-in-time images of the repositories.
+ *
+ * A snapshot file is {@code [int magic][int format][long replayFrom]} followed by {@code [int length][record]}
+ * entries in the {@link EntityCodec} format and a zero length terminator. {@code replayFrom} is the log position
+ * recovery continues from. Since format 2 every beer with stock on hand is followed by a stock record; format 1
+ * files, written before stock was kept, still load. Files are written under a temporary name and renamed, so a snapshot is either
+ * complete or absent.
+ */
+@Slf4j
+public class SnapshotStore {
+
+    private static final int MAGIC = 0x42525753;
+    private static final int FORMAT = 2;
+    private static final int FORMAT_WITHOUT_STOCK = 1;
+    private static final String PREFIX = "snapshot-";
+    private static final String SUFFIX = ".bin";
+    private static final int BUFFER_BYTES = 1 << 20;
+
+    private final Path directory;
+
+    public SnapshotStore(Path directory) {
+        this.directory = directory;
+    }
+
+    public void write(long replayFrom, Iterable<Beer> beers, ToLongFunction<UUID> quantityOnHand,
+                      Iterable<Customer> customers) throws IOException {
+        Files.createDirectories(directory);
+        final Path target = directory.resolve(String.format("%s%016x%s", PREFIX, replayFrom, SUFFIX));
+        final Path temp = directory.resolve(target.getFileName() + ".tmp");
+
+        ByteBuffer record = ByteBuffer.allocate(4096);
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp), BUFFER_BYTES))) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT);
+            out.writeLong(replayFrom);
+
+            for (Beer beer : beers) {
+                record = ensureCapacity(record, EntityCodec.maxSize(beer));
+                EntityCodec.writeBeer(record, beer);
+                writeRecord(out, record);
+
+                final long stock = quantityOnHand.applyAsLong(beer.getId());
+                if (stock != 0) {
+                    record = ensureCapacity(record, EntityCodec.STOCK_SIZE);
+                    EntityCodec.writeStock(record, beer.getId(), stock);
+                    writeRecord(out, record);
+                }
+            }
+            for (Customer customer : customers) {
+                record = ensureCapacity(record, EntityCodec.maxSize(customer));
+                EntityCodec.writeCustomer(record, customer);
+                writeRecord(out, record);
+            }
+            out.writeInt(0);
+        }
+
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        for (Path older : snapshots()) {
+            if (!older.equals(target)) {
+                Files.deleteIfExists(older);
+            }
+        }
+    }
+
+    /**
+     * Loads the newest snapshot into {@code handler}.
+     *
+     * @return the log position to replay from, empty when there is no snapshot yet.
+     */
+    public Optional<Long> load(MutationHandler handler) throws IOException {
+        final List<Path> snapshots = snapshots();
+        if (snapshots.isEmpty()) {
+            return Optional.empty();
+        }
+
+        final Path newest = snapshots.get(snapshots.size() - 1);
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(newest), BUFFER_BYTES))) {
+            final int magic = in.readInt();
+            final int format = in.readInt();
+            if (magic != MAGIC || (format != FORMAT && format != FORMAT_WITHOUT_STOCK)) {
+                throw new IOException("Not a brewery snapshot: " + newest);
+            }
+            final long replayFrom = in.readLong();
+
+            ByteBuffer record = ByteBuffer.allocate(4096);
+            int length;
+            while ((length = in.readInt()) > 0) {
+                record = ensureCapacity(record, length);
+                in.readFully(record.array(), 0, length);
+                record.limit(length);
+                EntityCodec.read(record, handler);
+            }
+
+            log.info("Loaded snapshot {}", newest);
+            return Optional.of(replayFrom);
+        }
+    }
+
+    private List<Path> snapshots() throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> {
+                        final String name = path.getFileName().toString();
+                        return name.startsWith(PREFIX) && name.endsWith(SUFFIX);
+                    })
+                    .sorted(Comparator.comparing(path -> path.getFileName().toString()))
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private static void writeRecord(DataOutputStream out, ByteBuffer record) throws IOException {
+        record.flip();
+        out.writeInt(record.remaining());
+        out.write(record.array(), 0, record.remaining());
+    }
+
+    private static ByteBuffer ensureCapacity(ByteBuffer buffer, int size) {
+        final ByteBuffer result = buffer.capacity() < size ? ByteBuffer.allocate(Math.max(size, buffer.capacity() * 2)) : buffer;
+        result.clear();
+        return result;
+    }
+}
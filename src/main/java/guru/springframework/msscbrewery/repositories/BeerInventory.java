@@ -0,0 +1,70 @@
+package guru.springframework.msscbrewery.repositories;
+
+import org.springframework.stereotype.Repository;
+
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * In-memory stock levels keyed by beer id, one {@link StockCounter} per beer that has ever been adjusted.
+ *
+ * Kept apart from {@link BeerRepository} on purpose: an adjustment neither replaces the stored beer, bumps its
+ * version nor goes through the {@link guru.springframework.msscbrewery.persistence.MutationLog}, all of which
+ * would serialize the writers of a hot beer. Stock levels are therefore only persisted with snapshots, see
+ * {@link guru.springframework.msscbrewery.persistence.PersistenceManager}.
+ */
+@Repository
+public class BeerInventory {
+
+    private final ConcurrentMap<UUID, StockCounter> counters = new ConcurrentHashMap<>();
+
+    public long getQuantityOnHand(UUID beerId) {
+        final StockCounter counter = counters.get(beerId);
+        return counter == null ? 0 : counter.sum();
+    }
+
+    /**
+     * Adds stock when {@code delta} is positive and reserves it when negative, all or nothing.
+     *
+     * @return false, with nothing changed, when fewer than {@code -delta} units are on hand.
+     */
+    public boolean adjust(UUID beerId, long delta) {
+        if (delta == 0) {
+            return true;
+        }
+
+        StockCounter counter = counters.get(beerId);
+        if (counter == null) {
+            if (delta < 0) {
+                return false;
+            }
+            counter = counters.computeIfAbsent(beerId, id -> new StockCounter());
+        }
+
+        if (delta > 0) {
+            counter.add(delta);
+            return true;
+        }
+        return counter.tryReserve(-delta);
+    }
+
+    /**
+     * Sets the stock level, replacing any counter; used by recovery and when a beer moves here from another
+     * cluster member.
+     */
+    public void restore(UUID beerId, long quantityOnHand) {
+        if (quantityOnHand <= 0) {
+            counters.remove(beerId);
+            return;
+        }
+
+        final StockCounter counter = new StockCounter();
+        counter.add(quantityOnHand);
+        counters.put(beerId, counter);
+    }
+
+    public void remove(UUID beerId) {
+        counters.remove(beerId);
+    }
+}
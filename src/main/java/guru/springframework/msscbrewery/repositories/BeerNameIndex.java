@@ -0,0 +1,57 @@
+package guru.springframework.msscbrewery.repositories;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Case-insensitive prefix index over beer names.
+ *
+ * Entries are kept sorted by lower-cased name, so the matches of a prefix form one contiguous range that is
+ * located in O(log n) and read in order. Keys carry the beer id to keep beers with equal names apart.
+ */
+class BeerNameIndex {
+
+    private static final char ID_SEPARATOR = '\u0000';
+    private static final char MAX_CHAR = Character.MAX_VALUE;
+
+    private final ConcurrentSkipListMap<String, UUID> names = new ConcurrentSkipListMap<>();
+
+    void add(String beerName, UUID beerId) {
+        if (beerName != null) {
+            names.put(key(beerName, beerId), beerId);
+        }
+    }
+
+    void remove(String beerName, UUID beerId) {
+        if (beerName != null) {
+            names.remove(key(beerName, beerId));
+        }
+    }
+
+    /**
+     * @return ids of up to {@code limit} beers whose name starts with {@code prefix}, ordered by name.
+     */
+    List<UUID> findByPrefix(String prefix, int limit) {
+        final String from = normalize(prefix);
+        final List<UUID> ids = new ArrayList<>(limit);
+
+        for (UUID beerId : names.subMap(from, true, from + MAX_CHAR, true).values()) {
+            if (ids.size() == limit) {
+                break;
+            }
+            ids.add(beerId);
+        }
+        return ids;
+    }
+
+    private static String key(String beerName, UUID beerId) {
+        return normalize(beerName) + ID_SEPARATOR + beerId;
+    }
+
+    private static String normalize(String value) {
+        return value.toLowerCase(Locale.ROOT);
+    }
+}
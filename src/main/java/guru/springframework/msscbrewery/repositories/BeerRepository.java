@@ -0,0 +1,315 @@
+package guru.springframework.msscbrewery.repositories;
+
+import guru.springframework.msscbrewery.domain.Beer;
+import guru.springframework.msscbrewery.domain.BeerStyle;
+import guru.springframework.msscbrewery.persistence.MutationLog;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Repository;
+import org.springframework.util.IdGenerator;
+import org.springframework.util.JdkIdGenerator;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.UnaryOperator;
+
+/**
+ * In-memory beer store keyed by id.
+ *
+ * Reads never lock, writes to the same beer are serialized per key. Stored instances are never mutated:
+ * every write replaces the entry with a new {@link Beer}, so callers must treat returned beers as read only.
+ * UPCs are unique; a write that would reuse another beer's UPC fails with {@link DuplicateUpcException}.
+ * Every write is appended to the {@link MutationLog} before it returns. New beers get their id from the
+ * {@link IdGenerator}, which in cluster mode only hands out ids this instance owns.
+ */
+@Repository
+public class BeerRepository {
+
+    private final ConcurrentMap<UUID, Beer> beers = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListSet<UUID> orderedIds = new ConcurrentSkipListSet<>();
+    private final UpcIndex upcIndex = new UpcIndex();
+    private final BeerNameIndex nameIndex = new BeerNameIndex();
+    private final LongAdder[] styleCounts = newStyleCounts();
+    private final MutationLog mutationLog;
+    private final IdGenerator idGenerator;
+
+    public BeerRepository(MutationLog mutationLog) {
+        this(mutationLog, new JdkIdGenerator());
+    }
+
+    @Autowired
+    public BeerRepository(MutationLog mutationLog, IdGenerator idGenerator) {
+        this.mutationLog = mutationLog;
+        this.idGenerator = idGenerator;
+    }
+
+    public Optional<Beer> findById(UUID beerId) {
+        return Optional.ofNullable(beers.get(beerId));
+    }
+
+    public Optional<Beer> findByUpc(long upc) {
+        final UUID beerId = upcIndex.get(upc);
+        if (beerId == null) {
+            return Optional.empty();
+        }
+
+        // the index may briefly run ahead of the map during a concurrent write
+        final Beer beer = beers.get(beerId);
+        return beer != null && beer.getUpc() != null && beer.getUpc() == upc ? Optional.of(beer) : Optional.empty();
+    }
+
+    /**
+     * @return up to {@code limit} beers whose name starts with {@code prefix}, ignoring case, ordered by name.
+     */
+    public List<Beer> findByNamePrefix(String prefix, int limit) {
+        final List<UUID> ids = nameIndex.findByPrefix(prefix, limit);
+        final List<Beer> matches = new ArrayList<>(ids.size());
+        for (UUID beerId : ids) {
+            final Beer beer = beers.get(beerId);
+            if (beer != null) {
+                matches.add(beer);
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Live number of beers per style, read from counters maintained on every write instead of a scan.
+     */
+    public Map<BeerStyle, Long> countByStyle() {
+        final Map<BeerStyle, Long> counts = new EnumMap<>(BeerStyle.class);
+        for (BeerStyle style : BeerStyle.values()) {
+            counts.put(style, styleCounts[style.ordinal()].sum());
+        }
+        return counts;
+    }
+
+    public Beer save(Beer beer) {
+        final Timestamp now = now();
+        final Beer saved = beer.toBuilder()
+                .id(idGenerator.generateId())
+                .version(1L)
+                .createdDate(now)
+                .lastUpdatedDate(now)
+                .build();
+
+        final long[] position = new long[1];
+        mutationLog.logged(() -> beers.compute(saved.getId(), (id, current) -> apply(current, saved, position)));
+        mutationLog.awaitDurable(position[0]);
+        return saved;
+    }
+
+    /**
+     * Keyset page in id order: up to {@code limit} beers whose id sorts after {@code afterId}, or from the start
+     * when {@code afterId} is null. Cost depends on the page size only, not on how deep the page is.
+     */
+    public List<Beer> findPage(UUID afterId, int limit) {
+        final List<Beer> page = new ArrayList<>(limit);
+        final Iterator<UUID> ids = afterId == null ? orderedIds.iterator() : orderedIds.tailSet(afterId, false).iterator();
+
+        while (page.size() < limit && ids.hasNext()) {
+            final Beer beer = beers.get(ids.next());
+            if (beer != null) {
+                page.add(beer);
+            }
+        }
+        return page;
+    }
+
+    /**
+     * Atomically replaces the beer with the result of {@code updater}. The updater runs while the entry is
+     * locked, so concurrent updates of the same beer are never lost; keep it short.
+     */
+    public Optional<Beer> update(UUID beerId, UnaryOperator<Beer> updater) {
+        final long[] position = new long[1];
+        final Beer updated = mutationLog.logged(() -> beers.computeIfPresent(beerId, (id, current) -> apply(current,
+                updater.apply(current)
+                        .toBuilder()
+                        .id(id)
+                        .version(current.getVersion() + 1)
+                        .createdDate(current.getCreatedDate())
+                        .lastUpdatedDate(now())
+                        .build(),
+                position)));
+
+        mutationLog.awaitDurable(position[0]);
+        return Optional.ofNullable(updated);
+    }
+
+    public Optional<Beer> deleteById(UUID beerId) {
+        final long[] position = new long[1];
+        final Beer[] removed = new Beer[1];
+        mutationLog.logged(() -> beers.computeIfPresent(beerId, (id, current) -> {
+            removed[0] = current;
+            return apply(current, null, position);
+        }));
+
+        mutationLog.awaitDurable(position[0]);
+        return Optional.ofNullable(removed[0]);
+    }
+
+    /**
+     * Stores a beer exactly as given, keeping its id, version and dates, unless the stored copy is at least as new.
+     * Journaled; used when a beer moves here from another cluster member.
+     *
+     * @return false when the stored copy was kept.
+     */
+    public boolean put(Beer beer) {
+        final long[] position = new long[1];
+        final boolean[] stored = new boolean[1];
+        mutationLog.logged(() -> beers.compute(beer.getId(), (id, current) -> {
+            if (current != null && current.getVersion() >= beer.getVersion()) {
+                return current;
+            }
+            stored[0] = true;
+            return apply(current, beer, position);
+        }));
+
+        mutationLog.awaitDurable(position[0]);
+        return stored[0];
+    }
+
+    /**
+     * Deletes the beer only while {@code beer} is still the stored instance, so a write that landed after it was
+     * read is never dropped.
+     *
+     * @return false when the beer was changed or deleted in the meantime.
+     */
+    public boolean deleteIfUnchanged(Beer beer) {
+        final long[] position = new long[1];
+        final boolean[] deleted = new boolean[1];
+        mutationLog.logged(() -> beers.computeIfPresent(beer.getId(), (id, current) -> {
+            if (current != beer) {
+                return current;
+            }
+            deleted[0] = true;
+            return apply(current, null, position);
+        }));
+
+        mutationLog.awaitDurable(position[0]);
+        return deleted[0];
+    }
+
+    /**
+     * Puts a beer exactly as given, keeping its id, version and dates. Used by recovery, not journaled.
+     */
+    public void restore(Beer beer) {
+        beers.compute(beer.getId(), (id, current) -> apply(current, beer, null));
+    }
+
+    /**
+     * Removes a beer during recovery, not journaled.
+     */
+    public void restoreDeleted(UUID beerId) {
+        beers.computeIfPresent(beerId, (id, current) -> apply(current, null, null));
+    }
+
+    /**
+     * Weakly consistent view of all beers, for snapshots and exports.
+     */
+    public Collection<Beer> findAll() {
+        return Collections.unmodifiableCollection(beers.values());
+    }
+
+    public int count() {
+        return beers.size();
+    }
+
+    /**
+     * Moves one beer from {@code current} to {@code next} (either may be null) in the log and in every index.
+     * Runs inside the map operation of the beer. Only the UPC claim can fail, and it is taken before anything
+     * else changes.
+     *
+     * @param position receives the log position of the record, null when the change must not be journaled.
+     */
+    private Beer apply(Beer current, Beer next, long[] position) {
+        final Long oldUpc = current == null ? null : current.getUpc();
+        final Long newUpc = next == null ? null : next.getUpc();
+        final boolean upcChanged = !Objects.equals(oldUpc, newUpc);
+        if (upcChanged) {
+            claimUpc(next);
+        }
+
+        if (position != null) {
+            try {
+                position[0] = next == null ? mutationLog.beerDeleted(current.getId()) : mutationLog.beerSaved(next);
+            } catch (RuntimeException e) {
+                if (upcChanged) {
+                    releaseUpc(next);
+                }
+                throw e;
+            }
+        }
+
+        if (upcChanged) {
+            releaseUpc(current);
+        }
+        if (current == null) {
+            orderedIds.add(next.getId());
+        } else if (next == null) {
+            orderedIds.remove(current.getId());
+        }
+        if (current == null || next == null || !Objects.equals(current.getBeerName(), next.getBeerName())) {
+            if (next != null) {
+                nameIndex.add(next.getBeerName(), next.getId());
+            }
+            if (current != null) {
+                nameIndex.remove(current.getBeerName(), current.getId());
+            }
+        }
+        if (current == null || next == null || current.getBeerStyle() != next.getBeerStyle()) {
+            if (next != null) {
+                countStyle(next.getBeerStyle(), 1);
+            }
+            if (current != null) {
+                countStyle(current.getBeerStyle(), -1);
+            }
+        }
+        return next;
+    }
+
+    private void claimUpc(Beer beer) {
+        if (beer != null && beer.getUpc() != null) {
+            final UUID owner = upcIndex.putIfAbsent(beer.getUpc(), beer.getId());
+            if (owner != null && !owner.equals(beer.getId())) {
+                throw new DuplicateUpcException(beer.getUpc(), owner);
+            }
+        }
+    }
+
+    private void releaseUpc(Beer beer) {
+        if (beer != null && beer.getUpc() != null) {
+            upcIndex.remove(beer.getUpc(), beer.getId());
+        }
+    }
+
+    private void countStyle(BeerStyle style, int delta) {
+        if (style != null) {
+            styleCounts[style.ordinal()].add(delta);
+        }
+    }
+
+    private static LongAdder[] newStyleCounts() {
+        final LongAdder[] counts = new LongAdder[BeerStyle.values().length];
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = new LongAdder();
+        }
+        return counts;
+    }
+
+    private static Timestamp now() {
+        return new Timestamp(System.currentTimeMillis());
+    }
+}
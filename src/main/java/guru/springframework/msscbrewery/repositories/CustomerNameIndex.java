@@ -0,0 +1,484 @@
+package guru.springframework.msscbrewery.repositories;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntConsumer;
+import java.util.function.LongConsumer;
+
+/**
+ * Typo tolerant search over customer names through a trigram inverted index.
+ *
+ * Names are lower-cased and split into words, each word padded like pg_trgm does: "ann" yields "  a", " an",
+ * "ann" and "nn ". Every indexed name gets an ordinal, and the posting list of a trigram holds the ordinals of
+ * the names containing it as zigzag varint deltas, one or two bytes per entry once a list is dense. Lists are only
+ * appended to: a renamed customer gets a new ordinal and its old one is counted dead, and a list is rewritten
+ * without its dead ordinals once they make up half of it. Once dead ordinals outnumber live names the whole index
+ * is rebuilt with the live names numbered from zero, so ordinals, and the per-search counts below, grow with the
+ * live customers rather than with every write ever made. Writers wait while that runs; searches keep reading the
+ * index they started on.
+ *
+ * Matches are ranked by trigram similarity, {@code shared / (query + name - shared)}. A search decodes the lists of
+ * the query trigrams into an open addressing table of per-ordinal counts sized by the postings read, so its cost
+ * follows the names sharing a trigram with the query rather than every name indexed, with no per-candidate
+ * allocation.
+ */
+class CustomerNameIndex {
+
+    static final double MIN_SIMILARITY = 0.3;
+
+    private static final int CHUNK_BITS = 14;
+    private static final int CHUNK_MASK = (1 << CHUNK_BITS) - 1;
+
+    // ordinals handed out before dead ones are worth renumbering away
+    static final int MIN_RENUMBERED_ORDINALS = 1 << CHUNK_BITS;
+
+    // adds and removes share the read side, renumbering takes the write side; a lock rather than a monitor, so
+    // virtual threads waiting for a renumbering do not pin their carrier
+    private final ReentrantReadWriteLock renumbering = new ReentrantReadWriteLock();
+    private volatile Generation current = new Generation();
+
+    /**
+     * Indexes a name. Calls for the same customer must not run concurrently.
+     */
+    void add(String name, UUID customerId) {
+        if (name == null) {
+            return;
+        }
+
+        final long[] trigrams = trigrams(name);
+        renumbering.readLock().lock();
+        try {
+            current.add(name, customerId, trigrams);
+        } finally {
+            renumbering.readLock().unlock();
+        }
+    }
+
+    /**
+     * Drops the name indexed for a customer. Calls for the same customer must not run concurrently.
+     */
+    void remove(String name, UUID customerId) {
+        final boolean renumber;
+        renumbering.readLock().lock();
+        try {
+            final Generation generation = current;
+            renumber = generation.remove(name, customerId) && generation.needsRenumbering();
+        } finally {
+            renumbering.readLock().unlock();
+        }
+
+        if (renumber) {
+            renumber();
+        }
+    }
+
+    /**
+     * Ordinals handed out in the current index, live or dead.
+     */
+    int ordinals() {
+        return current.nextOrdinal.get();
+    }
+
+    /**
+     * @return ids of up to {@code limit} customers whose name is at least {@link #MIN_SIMILARITY} similar to
+     * {@code query}, most similar first.
+     */
+    List<UUID> search(String query, int limit) {
+        final long[] trigrams = trigrams(query);
+        if (trigrams.length == 0) {
+            return Collections.emptyList();
+        }
+
+        final Generation generation = current;
+        final Postings[] lists = new Postings[trigrams.length];
+        for (int i = 0; i < trigrams.length; i++) {
+            final PostingList list = generation.postings.get(trigrams[i]);
+            lists[i] = list == null ? Postings.EMPTY : list.postings;
+        }
+
+        final Comparator<Match> ranking = Comparator.comparingDouble((Match match) -> match.similarity)
+                .thenComparing(match -> match.entry.name, Comparator.reverseOrder());
+        final PriorityQueue<Match> top = new PriorityQueue<>(limit + 1, ranking);
+
+        // ordinals handed out after this point may already be in the lists, they are skipped
+        final int ordinalLimit = generation.nextOrdinal.get();
+        int postings = 0;
+        for (Postings list : lists) {
+            postings += list.count;
+        }
+        final OrdinalCounts counts = new OrdinalCounts(Math.min(postings, ordinalLimit));
+        for (Postings list : lists) {
+            list.forEach(ordinal -> {
+                if (ordinal < ordinalLimit) {
+                    counts.increment(ordinal);
+                }
+            });
+        }
+
+        // a name sharing fewer trigrams cannot reach the minimum similarity, whatever its length
+        final int minShared = (int) Math.ceil(MIN_SIMILARITY * lists.length);
+        counts.forEach((ordinal, shared) -> {
+            final Entry entry = shared < minShared ? null : generation.entry(ordinal);
+            if (entry == null) {
+                return;
+            }
+
+            final double similarity = shared / (double) (trigrams.length + entry.trigramCount - shared);
+            if (similarity >= MIN_SIMILARITY && (top.size() < limit || similarity >= top.peek().similarity)) {
+                top.offer(new Match(entry, similarity));
+                if (top.size() > limit) {
+                    top.poll();
+                }
+            }
+        });
+
+        final UUID[] ids = new UUID[top.size()];
+        for (int i = ids.length - 1; i >= 0; i--) {
+            ids[i] = top.poll().entry.customerId;
+        }
+        return Arrays.asList(ids);
+    }
+
+    /**
+     * @return the distinct trigrams of {@code value}, sorted, each packed as three chars into a long.
+     */
+    static long[] trigrams(String value) {
+        final long[][] buffer = {new long[value.length() + 8]};
+        final int[] size = {0};
+        forEachTrigram(value, trigram -> {
+            if (size[0] == buffer[0].length) {
+                buffer[0] = Arrays.copyOf(buffer[0], size[0] * 2);
+            }
+            buffer[0][size[0]++] = trigram;
+        });
+
+        final long[] trigrams = buffer[0];
+        Arrays.sort(trigrams, 0, size[0]);
+        int distinct = 0;
+        for (int i = 0; i < size[0]; i++) {
+            if (i == 0 || trigrams[i] != trigrams[i - 1]) {
+                trigrams[distinct++] = trigrams[i];
+            }
+        }
+        return Arrays.copyOf(trigrams, distinct);
+    }
+
+    private static void forEachTrigram(String value, LongConsumer consumer) {
+        long window = pack(' ', ' ');
+        boolean inWord = false;
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                window = (window << 16 | Character.toLowerCase(c)) & 0xFFFF_FFFF_FFFFL;
+                consumer.accept(window);
+                inWord = true;
+            } else if (inWord) {
+                consumer.accept((window << 16 | ' ') & 0xFFFF_FFFF_FFFFL);
+                window = pack(' ', ' ');
+                inWord = false;
+            }
+        }
+        if (inWord) {
+            consumer.accept((window << 16 | ' ') & 0xFFFF_FFFF_FFFFL);
+        }
+    }
+
+    private static long pack(char first, char second) {
+        return (long) first << 16 | second;
+    }
+
+    /**
+     * Rebuilds the index from its live names, numbered from zero in ordinal order, and publishes it in one step.
+     */
+    private void renumber() {
+        renumbering.writeLock().lock();
+        try {
+            final Generation previous = current;
+            if (!previous.needsRenumbering()) {
+                // renumbered by another writer in the meantime
+                return;
+            }
+
+            // only the live ordinals, in order; the dead ones outnumber them here
+            final int[] live = previous.ordinals.values().stream().mapToInt(Integer::intValue).sorted().toArray();
+            final Generation renumbered = new Generation();
+            for (int ordinal : live) {
+                final Entry entry = previous.entry(ordinal);
+                if (entry != null) {
+                    renumbered.add(entry.name, entry.customerId, trigrams(entry.name));
+                }
+            }
+            current = renumbered;
+        } finally {
+            renumbering.writeLock().unlock();
+        }
+    }
+
+    /**
+     * The postings and names of one numbering of the ordinals.
+     */
+    private static final class Generation {
+
+        private final ConcurrentMap<Long, PostingList> postings = new ConcurrentHashMap<>();
+        private final ConcurrentMap<UUID, Integer> ordinals = new ConcurrentHashMap<>();
+        private final AtomicInteger nextOrdinal = new AtomicInteger();
+        private volatile Entry[][] entries = new Entry[16][];
+
+        void add(String name, UUID customerId, long[] trigrams) {
+            final int ordinal = nextOrdinal.getAndIncrement();
+            store(ordinal, new Entry(customerId, name, trigrams.length));
+            ordinals.put(customerId, ordinal);
+            for (long trigram : trigrams) {
+                postings.computeIfAbsent(trigram, key -> new PostingList()).append(ordinal);
+            }
+        }
+
+        /**
+         * @return whether a name was indexed for the customer.
+         */
+        boolean remove(String name, UUID customerId) {
+            final Integer ordinal = ordinals.remove(customerId);
+            if (name == null || ordinal == null) {
+                return false;
+            }
+
+            store(ordinal, null);
+            for (long trigram : trigrams(name)) {
+                final PostingList list = postings.get(trigram);
+                if (list != null) {
+                    list.markDead(this);
+                }
+            }
+            return true;
+        }
+
+        boolean needsRenumbering() {
+            final int handedOut = nextOrdinal.get();
+            return handedOut >= MIN_RENUMBERED_ORDINALS && handedOut - ordinals.size() > ordinals.size();
+        }
+
+        boolean isLive(int ordinal) {
+            return entry(ordinal) != null;
+        }
+
+        Entry entry(int ordinal) {
+            final Entry[][] chunks = entries;
+            final int chunk = ordinal >>> CHUNK_BITS;
+            if (chunk >= chunks.length || chunks[chunk] == null) {
+                return null;
+            }
+            return chunks[chunk][ordinal & CHUNK_MASK];
+        }
+
+        private void store(int ordinal, Entry entry) {
+            final int chunk = ordinal >>> CHUNK_BITS;
+            Entry[][] chunks = entries;
+            if (chunk >= chunks.length || chunks[chunk] == null) {
+                synchronized (this) {
+                    chunks = entries;
+                    if (chunk >= chunks.length) {
+                        chunks = Arrays.copyOf(chunks, Math.max(chunk + 1, chunks.length * 2));
+                    }
+                    if (chunks[chunk] == null) {
+                        chunks[chunk] = new Entry[1 << CHUNK_BITS];
+                    }
+                    entries = chunks;
+                }
+            }
+            chunks[chunk][ordinal & CHUNK_MASK] = entry;
+        }
+    }
+
+    private static final class Entry {
+
+        final UUID customerId;
+        final String name;
+        final int trigramCount;
+
+        Entry(UUID customerId, String name, int trigramCount) {
+            this.customerId = customerId;
+            this.name = name;
+            this.trigramCount = trigramCount;
+        }
+    }
+
+    private static final class Match {
+
+        final Entry entry;
+        final double similarity;
+
+        Match(Entry entry, double similarity) {
+            this.entry = entry;
+            this.similarity = similarity;
+        }
+    }
+
+    /**
+     * Counts per ordinal in open addressing with linear probing, keyed by ordinal + 1 so that zero marks a free slot.
+     */
+    private static final class OrdinalCounts {
+
+        private int[] keys;
+        private int[] counts;
+        private int size;
+
+        OrdinalCounts(int expected) {
+            final int capacity = Integer.highestOneBit(Math.max(expected, 4) * 2 - 1) << 1;
+            keys = new int[capacity];
+            counts = new int[capacity];
+        }
+
+        void increment(int ordinal) {
+            final int key = ordinal + 1;
+            final int mask = keys.length - 1;
+            int slot = mix(key) & mask;
+            while (keys[slot] != 0) {
+                if (keys[slot] == key) {
+                    counts[slot]++;
+                    return;
+                }
+                slot = (slot + 1) & mask;
+            }
+
+            keys[slot] = key;
+            counts[slot] = 1;
+            if (++size * 2 > keys.length) {
+                grow();
+            }
+        }
+
+        void forEach(IntBinaryConsumer consumer) {
+            for (int slot = 0; slot < keys.length; slot++) {
+                if (keys[slot] != 0) {
+                    consumer.accept(keys[slot] - 1, counts[slot]);
+                }
+            }
+        }
+
+        private void grow() {
+            final int[] oldKeys = keys;
+            final int[] oldCounts = counts;
+            keys = new int[oldKeys.length * 2];
+            counts = new int[oldKeys.length * 2];
+            final int mask = keys.length - 1;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != 0) {
+                    int slot = mix(oldKeys[i]) & mask;
+                    while (keys[slot] != 0) {
+                        slot = (slot + 1) & mask;
+                    }
+                    keys[slot] = oldKeys[i];
+                    counts[slot] = oldCounts[i];
+                }
+            }
+        }
+
+        // ordinals are dense, spread them so neighbours do not probe into each other's runs
+        private static int mix(int key) {
+            final int h = key * 0x9E3779B9;
+            return h ^ (h >>> 16);
+        }
+    }
+
+    @FunctionalInterface
+    private interface IntBinaryConsumer {
+
+        void accept(int ordinal, int count);
+    }
+
+    /**
+     * Immutable view of a posting list. Appends write past {@code length} into the shared array, so a reader never
+     * sees the bytes it reads change.
+     */
+    private static final class Postings {
+
+        static final Postings EMPTY = new Postings(new byte[0], 0, 0, 0);
+
+        final byte[] bytes;
+        final int length;
+        final int count;
+        final int last;
+
+        Postings(byte[] bytes, int length, int count, int last) {
+            this.bytes = bytes;
+            this.length = length;
+            this.count = count;
+            this.last = last;
+        }
+
+        /**
+         * @return these postings plus {@code ordinal}, sharing the array while it has room.
+         */
+        Postings append(int ordinal) {
+            byte[] target = bytes;
+            if (length + 5 > target.length) {
+                target = Arrays.copyOf(target, Math.max(16, target.length * 2));
+            }
+
+            final int delta = ordinal - last;
+            int zigzag = (delta << 1) ^ (delta >> 31);
+            int position = length;
+            while ((zigzag & ~0x7F) != 0) {
+                target[position++] = (byte) ((zigzag & 0x7F) | 0x80);
+                zigzag >>>= 7;
+            }
+            target[position++] = (byte) zigzag;
+            return new Postings(target, position, count + 1, ordinal);
+        }
+
+        void forEach(IntConsumer consumer) {
+            int ordinal = 0;
+            int position = 0;
+            while (position < length) {
+                int zigzag = 0;
+                int shift = 0;
+                byte b;
+                do {
+                    b = bytes[position++];
+                    zigzag |= (b & 0x7F) << shift;
+                    shift += 7;
+                } while (b < 0);
+
+                ordinal += (zigzag >>> 1) ^ -(zigzag & 1);
+                consumer.accept(ordinal);
+            }
+        }
+    }
+
+    private static final class PostingList {
+
+        volatile Postings postings = Postings.EMPTY;
+        private int dead;
+
+        synchronized void append(int ordinal) {
+            postings = postings.append(ordinal);
+        }
+
+        /**
+         * Counts one more dead ordinal, rewriting the list without the dead ones once they are half of it. The
+         * rewritten list is published in one step, so searches never see it partially filled.
+         */
+        synchronized void markDead(Generation generation) {
+            if (++dead * 2 < postings.count) {
+                return;
+            }
+
+            final Postings[] live = {Postings.EMPTY};
+            postings.forEach(ordinal -> {
+                if (generation.isLive(ordinal)) {
+                    live[0] = live[0].append(ordinal);
+                }
+            });
+            postings = live[0];
+            dead = 0;
+        }
+    }
+}
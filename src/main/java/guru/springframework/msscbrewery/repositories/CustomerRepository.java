@@ -0,0 +1,157 @@
+package guru.springframework.msscbrewery.repositories;
+
+import guru.springframework.msscbrewery.domain.Customer;
+import guru.springframework.msscbrewery.persistence.MutationLog;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.UnaryOperator;
+
+/**
+ * In-memory customer store keyed by id, with the same copy-on-write and logging contract as
+ * {@link BeerRepository}. Names are indexed for fuzzy search.
+ */
+@Repository
+public class CustomerRepository {
+
+    private final ConcurrentMap<UUID, Customer> customers = new ConcurrentHashMap<>();
+    private final CustomerNameIndex nameIndex = new CustomerNameIndex();
+    private final MutationLog mutationLog;
+
+    public CustomerRepository(MutationLog mutationLog) {
+        this.mutationLog = mutationLog;
+    }
+
+    public Optional<Customer> findById(UUID customerId) {
+        return Optional.ofNullable(customers.get(customerId));
+    }
+
+    /**
+     * Typo tolerant name search, see {@link CustomerNameIndex}.
+     *
+     * @return up to {@code limit} customers with a name similar to {@code query}, most similar first.
+     */
+    public List<Customer> findByNameSimilarTo(String query, int limit) {
+        final List<UUID> ids = nameIndex.search(query, limit);
+        final List<Customer> matches = new ArrayList<>(ids.size());
+        for (UUID customerId : ids) {
+            final Customer customer = customers.get(customerId);
+            if (customer != null) {
+                matches.add(customer);
+            }
+        }
+        return matches;
+    }
+
+    public Customer save(Customer customer) {
+        final Customer saved = customer.toBuilder()
+                .id(UUID.randomUUID())
+                .version(1L)
+                .build();
+
+        final long[] position = new long[1];
+        mutationLog.logged(() -> customers.compute(saved.getId(), (id, current) -> apply(current, saved, position)));
+        mutationLog.awaitDurable(position[0]);
+        return saved;
+    }
+
+    /**
+     * Saves customers one by one but waits for the log once, after the last of them.
+     */
+    public List<Customer> saveAll(List<Customer> newCustomers) {
+        final List<Customer> saved = new ArrayList<>(newCustomers.size());
+        final long[] position = new long[1];
+        for (Customer customer : newCustomers) {
+            final Customer next = customer.toBuilder()
+                    .id(UUID.randomUUID())
+                    .version(1L)
+                    .build();
+
+            mutationLog.logged(() -> customers.compute(next.getId(), (id, current) -> apply(current, next, position)));
+            saved.add(next);
+        }
+        mutationLog.awaitDurable(position[0]);
+        return saved;
+    }
+
+    public Optional<Customer> update(UUID customerId, UnaryOperator<Customer> updater) {
+        final long[] position = new long[1];
+        final Customer updated = mutationLog.logged(() -> customers.computeIfPresent(customerId, (id, current) -> apply(current,
+                updater.apply(current)
+                        .toBuilder()
+                        .id(id)
+                        .version(current.getVersion() + 1)
+                        .build(),
+                position)));
+
+        mutationLog.awaitDurable(position[0]);
+        return Optional.ofNullable(updated);
+    }
+
+    public Optional<Customer> deleteById(UUID customerId) {
+        final long[] position = new long[1];
+        final Customer[] removed = new Customer[1];
+        mutationLog.logged(() -> customers.computeIfPresent(customerId, (id, current) -> {
+            removed[0] = current;
+            return apply(current, null, position);
+        }));
+
+        mutationLog.awaitDurable(position[0]);
+        return Optional.ofNullable(removed[0]);
+    }
+
+    /**
+     * Puts a customer exactly as given. Used by recovery, not journaled.
+     */
+    public void restore(Customer customer) {
+        customers.compute(customer.getId(), (id, current) -> apply(current, customer, null));
+    }
+
+    /**
+     * Removes a customer during recovery, not journaled.
+     */
+    public void restoreDeleted(UUID customerId) {
+        customers.computeIfPresent(customerId, (id, current) -> apply(current, null, null));
+    }
+
+    /**
+     * Weakly consistent view of all customers, for snapshots.
+     */
+    public Collection<Customer> findAll() {
+        return Collections.unmodifiableCollection(customers.values());
+    }
+
+    public int count() {
+        return customers.size();
+    }
+
+    /**
+     * Moves one customer from {@code current} to {@code next} (either may be null) in the log and in the name
+     * index. Runs inside the map operation of the customer.
+     *
+     * @param position receives the log position of the record, null when the change must not be journaled.
+     */
+    private Customer apply(Customer current, Customer next, long[] position) {
+        if (position != null) {
+            position[0] = next == null ? mutationLog.customerDeleted(current.getId()) : mutationLog.customerSaved(next);
+        }
+
+        if (current == null || next == null || !Objects.equals(current.getName(), next.getName())) {
+            if (current != null) {
+                nameIndex.remove(current.getName(), current.getId());
+            }
+            if (next != null) {
+                nameIndex.add(next.getName(), next.getId());
+            }
+        }
+        return next;
+    }
+}
@@ -0,0 +1,18 @@
+package guru.springframework.msscbrewery.repositories;
+
+import lombok.Getter;
+
+import java.util.UUID;
+
+@Getter
+public class DuplicateUpcException extends RuntimeException {
+
+    private final long upc;
+    private final UUID ownerId;
+
+    public DuplicateUpcException(long upc, UUID ownerId) {
+        super("UPC " + upc + " already belongs to beer " + ownerId);
+        this.upc = upc;
+        this.ownerId = ownerId;
+    }
+}
@@ -0,0 +1,139 @@
+package guru.springframework.msscbrewery.repositories;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Stock level of one beer, adjusted by many threads at once without a shared lock.
+ *
+ * Starts as a single {@code AtomicLong}, so a quiet beer costs one object. The first time two writers collide it
+ * grows padded stripes, one per core, and from then on every thread adds to and reserves from the stripe its id
+ * hashes to: writers on different stripes never touch the same cache line.
+ *
+ * A reservation is taken from the caller's stripe alone whenever that stripe holds enough. Otherwise the caller
+ * takes the sweep lock of this counter, collects every stripe and, when the total covers the reservation, spreads
+ * what is left evenly back over the stripes, so the reservations that follow find stock on their own stripe
+ * again. Near zero stock most reservations end up sweeping. Units are only ever moved by atomic updates, so no
+ * adjustment is lost and the level never goes below zero; a reservation racing an add may miss that add.
+ */
+final class StockCounter {
+
+    // longs per stripe: 128 bytes keeps neighbouring stripes off each other's cache line pair
+    private static final int PADDING = 16;
+    private static final int MAX_STRIPES = 64;
+    // a power of two at least the number of cores
+    private static final int STRIPES = Math.min(MAX_STRIPES,
+            Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors() - 1)) << 1);
+
+    private final AtomicLong base = new AtomicLong();
+    // a lock rather than a monitor, so virtual threads queued for a sweep do not pin their carrier
+    private final ReentrantLock sweepLock = new ReentrantLock();
+    private volatile AtomicLongArray stripes;
+
+    void add(long units) {
+        final AtomicLongArray cells = stripes;
+        if (cells == null) {
+            final long current = base.get();
+            if (base.compareAndSet(current, current + units)) {
+                return;
+            }
+            inflate().getAndAdd(stripe(), units);
+            return;
+        }
+        cells.getAndAdd(stripe(), units);
+    }
+
+    /**
+     * Takes {@code units} if that many are on hand, all or nothing.
+     *
+     * @return false, with nothing taken, when fewer are on hand.
+     */
+    boolean tryReserve(long units) {
+        final AtomicLongArray cells = stripes;
+        if (cells == null) {
+            final long current = base.get();
+            if (current < units) {
+                return stripes != null && reserveSweeping(units);
+            }
+            if (base.compareAndSet(current, current - units)) {
+                return true;
+            }
+            inflate();
+            return reserveSweeping(units);
+        }
+
+        final int index = stripe();
+        for (long current = cells.get(index); current >= units; current = cells.get(index)) {
+            if (cells.compareAndSet(index, current, current - units)) {
+                return true;
+            }
+        }
+        return reserveSweeping(units);
+    }
+
+    /**
+     * Units on hand. Like {@link java.util.concurrent.atomic.LongAdder#sum()} this is not a snapshot: adjustments
+     * made while the stripes are read may or may not be counted, and a running sweep briefly hides what it holds.
+     */
+    long sum() {
+        long sum = base.get();
+        final AtomicLongArray cells = stripes;
+        if (cells != null) {
+            for (int i = 0; i < STRIPES; i++) {
+                sum += cells.get(i * PADDING);
+            }
+        }
+        return sum;
+    }
+
+    private boolean reserveSweeping(long units) {
+        sweepLock.lock();
+        try {
+            final AtomicLongArray cells = stripes;
+            long onHand = base.getAndSet(0);
+            for (int i = 0; i < STRIPES; i++) {
+                onHand += cells.getAndSet(i * PADDING, 0);
+            }
+
+            final boolean reserved = onHand >= units;
+            spread(cells, reserved ? onHand - units : onHand);
+            return reserved;
+        } finally {
+            sweepLock.unlock();
+        }
+    }
+
+    /**
+     * Hands {@code units} back out evenly, the remainder to the caller's own stripe. Called holding the sweep lock.
+     */
+    private void spread(AtomicLongArray cells, long units) {
+        final long share = units / STRIPES;
+        if (share > 0) {
+            for (int i = 0; i < STRIPES; i++) {
+                cells.getAndAdd(i * PADDING, share);
+            }
+        }
+        cells.getAndAdd(stripe(), units - share * STRIPES);
+    }
+
+    private AtomicLongArray inflate() {
+        sweepLock.lock();
+        try {
+            if (stripes == null) {
+                stripes = new AtomicLongArray(STRIPES * PADDING);
+            }
+            return stripes;
+        } finally {
+            sweepLock.unlock();
+        }
+    }
+
+    /**
+     * Index of the calling thread's stripe. Thread ids are handed out in sequence, so they are mixed first.
+     */
+    private static int stripe() {
+        final long mixed = Thread.currentThread().getId() * 0x9E3779B97F4A7C15L;
+        return ((int) (mixed >>> 32) & (STRIPES - 1)) * PADDING;
+    }
+}
@@ -0,0 +1,185 @@
+package guru.springframework.msscbrewery.repositories;
+
+import java.util.UUID;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Open-addressing {@code long -> UUID} hash map holding the owner of each UPC.
+ *
+ * Keys live in a primitive {@code long[]} so lookups never box. Linear probing with backward-shift deletion keeps
+ * the table free of tombstones. Readers take an optimistic stamp and only fall back to the read lock when a write
+ * raced with them; writers are serialized.
+ */
+class UpcIndex {
+
+    private static final long EMPTY = 0L;
+    private static final int INITIAL_CAPACITY = 1 << 10;
+
+    private final StampedLock lock = new StampedLock();
+
+    private long[] keys = new long[INITIAL_CAPACITY];
+    private UUID[] values = new UUID[INITIAL_CAPACITY];
+    private int size;
+
+    /**
+     * @return the id owning {@code upc}, or null when the UPC is free.
+     */
+    UUID get(long upc) {
+        if (upc == EMPTY) {
+            return null;
+        }
+
+        final long stamp = lock.tryOptimisticRead();
+        final UUID owner = find(keys, values, upc);
+        if (lock.validate(stamp)) {
+            return owner;
+        }
+
+        final long readStamp = lock.readLock();
+        try {
+            return find(keys, values, upc);
+        } finally {
+            lock.unlockRead(readStamp);
+        }
+    }
+
+    /**
+     * Claims {@code upc} for {@code beerId}.
+     *
+     * @return the current owner when the UPC is already taken, otherwise null.
+     */
+    UUID putIfAbsent(long upc, UUID beerId) {
+        checkKey(upc);
+
+        final long stamp = lock.writeLock();
+        try {
+            int slot = slot(upc, keys.length);
+            while (keys[slot] != EMPTY) {
+                if (keys[slot] == upc) {
+                    return values[slot];
+                }
+                slot = (slot + 1) & (keys.length - 1);
+            }
+
+            keys[slot] = upc;
+            values[slot] = beerId;
+            if (++size * 2 > keys.length) {
+                resize();
+            }
+            return null;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Releases {@code upc} if, and only if, it is still owned by {@code beerId}.
+     */
+    boolean remove(long upc, UUID beerId) {
+        if (upc == EMPTY) {
+            return false;
+        }
+
+        final long stamp = lock.writeLock();
+        try {
+            final int mask = keys.length - 1;
+            int slot = slot(upc, keys.length);
+            while (keys[slot] != upc) {
+                if (keys[slot] == EMPTY) {
+                    return false;
+                }
+                slot = (slot + 1) & mask;
+            }
+            if (!values[slot].equals(beerId)) {
+                return false;
+            }
+
+            // backward-shift the rest of the probe chain into the hole
+            int hole = slot;
+            int next = (hole + 1) & mask;
+            while (keys[next] != EMPTY) {
+                final int home = slot(keys[next], keys.length);
+                if (((next - home) & mask) >= ((next - hole) & mask)) {
+                    keys[hole] = keys[next];
+                    values[hole] = values[next];
+                    hole = next;
+                }
+                next = (next + 1) & mask;
+            }
+            keys[hole] = EMPTY;
+            values[hole] = null;
+            size--;
+            return true;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    int size() {
+        final long stamp = lock.readLock();
+        try {
+            return size;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    private static UUID find(long[] keys, UUID[] values, long upc) {
+        if (keys.length != values.length) {
+            // torn read across a resize, the caller's validation fails anyway
+            return null;
+        }
+        final int mask = keys.length - 1;
+        int slot = slot(upc, keys.length);
+        // bounded so a torn optimistic read can never spin forever
+        for (int probes = 0; probes < keys.length; probes++) {
+            final long key = keys[slot];
+            if (key == upc) {
+                return values[slot];
+            }
+            if (key == EMPTY) {
+                return null;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return null;
+    }
+
+    private void resize() {
+        final long[] oldKeys = keys;
+        final UUID[] oldValues = values;
+        final long[] newKeys = new long[oldKeys.length * 2];
+        final UUID[] newValues = new UUID[newKeys.length];
+        final int mask = newKeys.length - 1;
+
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int slot = slot(oldKeys[i], newKeys.length);
+                while (newKeys[slot] != EMPTY) {
+                    slot = (slot + 1) & mask;
+                }
+                newKeys[slot] = oldKeys[i];
+                newValues[slot] = oldValues[i];
+            }
+        }
+        keys = newKeys;
+        values = newValues;
+    }
+
+    private static int slot(long upc, int capacity) {
+        // murmur3 finalizer, sequential UPCs would otherwise cluster
+        long h = upc;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return (int) h & (capacity - 1);
+    }
+
+    private static void checkKey(long upc) {
+        if (upc <= 0) {
+            throw new IllegalArgumentException("UPC must be positive: " + upc);
+        }
+    }
+}
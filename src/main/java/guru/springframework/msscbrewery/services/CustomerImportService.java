@@ -0,0 +1,19 @@
+package guru.springframework.msscbrewery.services;
+
+import guru.springframework.msscbrewery.web.model.CustomerImportDto;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.UUID;
+
+public interface CustomerImportService {
+
+    /**
+     * Copies {@code body} to a spool file and imports it in the background.
+     *
+     * @return the queued job.
+     */
+    CustomerImportDto startImport(InputStream body, CustomerImportDto.Format format) throws IOException;
+
+    CustomerImportDto getImport(UUID jobId);
+}
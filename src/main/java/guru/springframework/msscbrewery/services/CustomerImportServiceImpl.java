@@ -0,0 +1,325 @@
+package guru.springframework.msscbrewery.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import guru.springframework.msscbrewery.web.controller.NotFoundException;
+import guru.springframework.msscbrewery.web.controller.PayloadTooLargeException;
+import guru.springframework.msscbrewery.web.controller.ServiceUnavailableException;
+import guru.springframework.msscbrewery.web.model.CustomerDto;
+import guru.springframework.msscbrewery.web.model.CustomerImportDto;
+import guru.springframework.msscbrewery.web.model.CustomerImportErrorDto;
+import guru.springframework.msscbrewery.web.validation.DtoValidators;
+import guru.springframework.msscbrewery.web.validation.FieldViolation;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Imports run on the application task executor, at most {@code brewery.import.max-jobs} at a time; further uploads
+ * are turned away with 503 before anything is spooled. An upload growing past {@code brewery.import.max-upload-bytes}
+ * is cut off with 413 while it is spooled, and its partial file deleted. A job reads its spool file one record at a time and saves
+ * valid rows in batches through {@link CustomerService#saveNewCustomers(List)}, so it holds one batch, the first
+ * {@link #MAX_REPORTED_ERRORS} errors and one row of text, whatever the size of the file. Finished jobs stay
+ * queryable until {@code brewery.import.retained-jobs} newer ones have finished.
+ */
+@Slf4j
+@Service
+public class CustomerImportServiceImpl implements CustomerImportService {
+
+    static final int MAX_REPORTED_ERRORS = 100;
+    private static final int RETRY_AFTER_SECONDS = 30;
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+
+    private final CustomerService customerService;
+    private final ObjectReader customerReader;
+    private final TaskExecutor taskExecutor;
+    private final Path spoolDirectory;
+    private final int batchSize;
+    private final int maxRowLength;
+    private final long maxUploadBytes;
+    private final int retainedJobs;
+    private final Semaphore jobSlots;
+    private final ConcurrentMap<UUID, ImportJob> jobs = new ConcurrentHashMap<>();
+    private final Queue<UUID> finishedJobs = new ConcurrentLinkedQueue<>();
+
+    public CustomerImportServiceImpl(CustomerService customerService, ObjectMapper objectMapper,
+                                     @Qualifier("applicationTaskExecutor") TaskExecutor taskExecutor,
+                                     @Value("${brewery.import.directory:${java.io.tmpdir}}") String spoolDirectory,
+                                     @Value("${brewery.import.batch-size:1000}") int batchSize,
+                                     @Value("${brewery.import.max-row-length:65536}") int maxRowLength,
+                                     @Value("${brewery.import.max-upload-bytes:1073741824}") long maxUploadBytes,
+                                     @Value("${brewery.import.max-jobs:2}") int maxJobs,
+                                     @Value("${brewery.import.retained-jobs:100}") int retainedJobs) {
+        this.customerService = customerService;
+        this.customerReader = objectMapper.readerFor(CustomerDto.class);
+        this.taskExecutor = taskExecutor;
+        this.spoolDirectory = Paths.get(spoolDirectory);
+        this.batchSize = batchSize;
+        this.maxRowLength = maxRowLength;
+        this.maxUploadBytes = maxUploadBytes;
+        this.retainedJobs = retainedJobs;
+        this.jobSlots = new Semaphore(maxJobs);
+    }
+
+    @Override
+    public CustomerImportDto startImport(InputStream body, CustomerImportDto.Format format) throws IOException {
+        if (!jobSlots.tryAcquire()) {
+            throw new ServiceUnavailableException("Too many customer imports running, retry later", RETRY_AFTER_SECONDS);
+        }
+
+        final UUID jobId = UUID.randomUUID();
+        Path spool = null;
+        try {
+            spool = Files.createTempFile(spoolDirectory, "customer-import-", "." + format.name().toLowerCase(Locale.ROOT));
+            spool(body, spool);
+
+            final ImportJob job = new ImportJob(jobId, format, spool);
+            jobs.put(jobId, job);
+            taskExecutor.execute(job::run);
+            return job.toDto();
+        } catch (IOException | RuntimeException e) {
+            jobs.remove(jobId);
+            if (spool != null) {
+                Files.deleteIfExists(spool);
+            }
+            jobSlots.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Copies the upload to its spool file, giving up as soon as it is larger than allowed.
+     */
+    private void spool(InputStream body, Path spool) throws IOException {
+        final byte[] buffer = new byte[READ_BUFFER_SIZE];
+        long spooled = 0;
+        try (OutputStream out = Files.newOutputStream(spool)) {
+            for (int read = body.read(buffer); read != -1; read = body.read(buffer)) {
+                spooled += read;
+                if (spooled > maxUploadBytes) {
+                    throw new PayloadTooLargeException("Customer imports are limited to " + maxUploadBytes + " bytes");
+                }
+                out.write(buffer, 0, read);
+            }
+        }
+    }
+
+    @Override
+    public CustomerImportDto getImport(UUID jobId) {
+        final ImportJob job = jobs.get(jobId);
+        if (job == null) {
+            throw new NotFoundException();
+        }
+        return job.toDto();
+    }
+
+    private void finished(ImportJob job) {
+        jobSlots.release();
+        finishedJobs.add(job.id);
+        while (finishedJobs.size() > retainedJobs) {
+            final UUID oldest = finishedJobs.poll();
+            if (oldest != null) {
+                jobs.remove(oldest);
+            }
+        }
+    }
+
+    /**
+     * Counters are written by the job's thread only and read by status requests.
+     */
+    private final class ImportJob {
+
+        private final UUID id;
+        private final CustomerImportDto.Format format;
+        private final Path spool;
+        private final OffsetDateTime createdDate = OffsetDateTime.now(ZoneOffset.UTC);
+        private final List<CustomerImportErrorDto> errors = new CopyOnWriteArrayList<>();
+        private final List<CustomerDto> batch = new ArrayList<>(batchSize);
+
+        private volatile CustomerImportDto.Status status = CustomerImportDto.Status.QUEUED;
+        private volatile long rowsRead;
+        private volatile long rowsImported;
+        private volatile long rowsFailed;
+        private volatile long startNanos;
+        private volatile long endNanos;
+        private volatile OffsetDateTime completedDate;
+        private volatile String failure;
+
+        ImportJob(UUID id, CustomerImportDto.Format format, Path spool) {
+            this.id = id;
+            this.format = format;
+            this.spool = spool;
+        }
+
+        void run() {
+            startNanos = System.nanoTime();
+            status = CustomerImportDto.Status.RUNNING;
+            try (ImportRecordReader records = new ImportRecordReader(new BufferedReader(
+                    new InputStreamReader(Files.newInputStream(spool), StandardCharsets.UTF_8), READ_BUFFER_SIZE), maxRowLength)) {
+
+                records.skipByteOrderMark();
+                if (format == CustomerImportDto.Format.CSV) {
+                    readCsv(records);
+                } else {
+                    readNdjson(records);
+                }
+                saveBatch();
+                status = CustomerImportDto.Status.COMPLETED;
+            } catch (IOException | RuntimeException e) {
+                log.error("Customer import {} failed after {} rows", id, rowsRead, e);
+                failure = e.getMessage();
+                status = CustomerImportDto.Status.FAILED;
+            } finally {
+                endNanos = System.nanoTime();
+                completedDate = OffsetDateTime.now(ZoneOffset.UTC);
+                try {
+                    Files.deleteIfExists(spool);
+                } catch (IOException e) {
+                    log.warn("Could not delete import spool file {}", spool, e);
+                }
+                finished(this);
+            }
+        }
+
+        private void readNdjson(ImportRecordReader records) throws IOException {
+            while (true) {
+                final String line;
+                try {
+                    line = records.readLine();
+                } catch (ImportRecordReader.RecordTooLongException e) {
+                    reject(++rowsRead, List.of(e.getMessage()));
+                    continue;
+                }
+                if (line == null) {
+                    return;
+                }
+                if (line.isBlank()) {
+                    continue;
+                }
+
+                final long row = ++rowsRead;
+                try {
+                    add(row, customerReader.readValue(line));
+                } catch (JsonProcessingException e) {
+                    reject(row, List.of(String.valueOf(e.getOriginalMessage())));
+                }
+            }
+        }
+
+        private void readCsv(ImportRecordReader records) throws IOException {
+            final List<String> header = records.readCsvRecord();
+            final int nameColumn = header == null ? -1 : indexOfIgnoreCase(header, "name");
+            if (nameColumn < 0) {
+                throw new IllegalArgumentException("CSV header must have a name column");
+            }
+
+            while (true) {
+                final List<String> fields;
+                try {
+                    fields = records.readCsvRecord();
+                } catch (ImportRecordReader.RecordTooLongException e) {
+                    reject(++rowsRead, List.of(e.getMessage()));
+                    continue;
+                }
+                if (fields == null) {
+                    return;
+                }
+                if (fields.size() == 1 && fields.get(0).isBlank()) {
+                    continue;
+                }
+
+                final long row = ++rowsRead;
+                if (fields.size() <= nameColumn) {
+                    reject(row, List.of("name: missing column"));
+                } else {
+                    add(row, CustomerDto.builder().name(fields.get(nameColumn)).build());
+                }
+            }
+        }
+
+        private void add(long row, CustomerDto customerDto) {
+            final List<FieldViolation> violations = DtoValidators.violationsOf(customerDto);
+            if (!violations.isEmpty()) {
+                final List<String> messages = new ArrayList<>(violations.size());
+                violations.forEach(violation -> messages.add(violation.toString()));
+                reject(row, messages);
+                return;
+            }
+
+            batch.add(customerDto);
+            if (batch.size() == batchSize) {
+                saveBatch();
+            }
+        }
+
+        private void reject(long row, List<String> messages) {
+            rowsFailed++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(CustomerImportErrorDto.builder().row(row).errors(messages).build());
+            }
+        }
+
+        private void saveBatch() {
+            if (!batch.isEmpty()) {
+                customerService.saveNewCustomers(batch);
+                rowsImported += batch.size();
+                batch.clear();
+            }
+        }
+
+        CustomerImportDto toDto() {
+            final CustomerImportDto.Status currentStatus = status;
+            final OffsetDateTime completed = completedDate;
+            final long end = completed != null ? endNanos : System.nanoTime();
+            final double seconds = currentStatus == CustomerImportDto.Status.QUEUED ? 0 : (end - startNanos) / 1e9;
+
+            return CustomerImportDto.builder()
+                    .id(id)
+                    .format(format)
+                    .status(currentStatus)
+                    .rowsRead(rowsRead)
+                    .rowsImported(rowsImported)
+                    .rowsFailed(rowsFailed)
+                    .rowsPerSecond(seconds > 0 ? rowsRead / seconds : 0)
+                    .createdDate(createdDate)
+                    .completedDate(completed)
+                    .failure(failure)
+                    .errors(List.copyOf(errors))
+                    .build();
+        }
+    }
+
+    private static int indexOfIgnoreCase(List<String> header, String column) {
+        for (int i = 0; i < header.size(); i++) {
+            if (header.get(i).trim().equalsIgnoreCase(column)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -2,14 +2,36 @@ package guru.springframework.msscbrewery.services;
 
 import guru.springframework.msscbrewery.web.model.CustomerDto;
 
+import java.util.List;
 import java.util.UUID;
 
 public interface CustomerService {
 
     CustomerDto getCustomerById(UUID id);
 
+    /**
+     * Cheap version lookup for conditional requests, no mapping involved.
+     *
+     * @return the current version, or null when the customer does not exist.
+     */
+    Long getCustomerVersion(UUID id);
+
+    /**
+     * Typo tolerant search by name.
+     *
+     * @return up to {@code limit} customers, most similar name first.
+     */
+    List<CustomerDto> searchCustomers(String query, int limit);
+
     CustomerDto saveNewCustomer(CustomerDto customerDto);
 
+    /**
+     * Saves a batch of already validated customers, waiting for durability once for the whole batch.
+     *
+     * @return the saved customers, in the order given.
+     */
+    List<CustomerDto> saveNewCustomers(List<CustomerDto> customerDtos);
+
     void updateCustomer(UUID customerId, CustomerDto customerDto);
 
     void deleteCustomer(UUID customerId);
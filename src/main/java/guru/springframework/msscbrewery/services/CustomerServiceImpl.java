@@ -1,35 +1,62 @@
 package guru.springframework.msscbrewery.services;
 
+import guru.springframework.msscbrewery.domain.Customer;
+import guru.springframework.msscbrewery.repositories.CustomerRepository;
+import guru.springframework.msscbrewery.web.controller.NotFoundException;
+import guru.springframework.msscbrewery.web.mapper.CustomerMapper;
 import guru.springframework.msscbrewery.web.model.CustomerDto;
+import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
+import java.util.List;
 import java.util.UUID;
 
+@RequiredArgsConstructor
 @Service
 public class CustomerServiceImpl implements CustomerService {
+
+    private final CustomerRepository customerRepository;
+    private final CustomerMapper customerMapper;
+
     @Override
     public CustomerDto getCustomerById(UUID id) {
-        return CustomerDto.builder()
-                .id(UUID.randomUUID())
-                .name("Alfredo Casero")
-                .build();
+        return customerRepository.findById(id)
+                .map(customerMapper::customerToCustomerDto)
+                .orElseThrow(NotFoundException::new);
+    }
+
+    @Override
+    public Long getCustomerVersion(UUID id) {
+        return customerRepository.findById(id).map(Customer::getVersion).orElse(null);
+    }
+
+    @Override
+    public List<CustomerDto> searchCustomers(String query, int limit) {
+        return customerMapper.customersToCustomerDtos(customerRepository.findByNameSimilarTo(query, limit));
     }
 
     @Override
     public CustomerDto saveNewCustomer(CustomerDto customerDto) {
-        return CustomerDto.builder()
-                .id(UUID.randomUUID())
-                .name("Alfredo Casero")
-                .build();
+        return customerMapper.customerToCustomerDto(customerRepository.save(customerMapper.customerDtoToCustomer(customerDto)));
+    }
+
+    @Override
+    public List<CustomerDto> saveNewCustomers(List<CustomerDto> customerDtos) {
+        return customerMapper.customersToCustomerDtos(customerRepository.saveAll(customerMapper.customerDtosToCustomers(customerDtos)));
     }
 
     @Override
     public void updateCustomer(UUID customerId, CustomerDto customerDto) {
+        final Customer changes = customerMapper.customerDtoToCustomer(customerDto);
 
+        customerRepository.update(customerId, current -> current.toBuilder()
+                        .name(changes.getName())
+                        .build())
+                .orElseThrow(NotFoundException::new);
     }
 
     @Override
     public void deleteCustomer(UUID customerId) {
-
+        customerRepository.deleteById(customerId).orElseThrow(NotFoundException::new);
     }
 }
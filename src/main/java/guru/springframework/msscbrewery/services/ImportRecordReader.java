@@ -0,0 +1,140 @@
+package guru.springframework.msscbrewery.services;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads an import file one record at a time: lines for NDJSON, RFC 4180 records for CSV, where quoted fields may
+ * hold commas, doubled quotes and line breaks. A record over {@code maxRecordLength} characters, separators and quotes
+ * included, is read to its end but not kept, so one broken row never makes the reader hold more than that of the
+ * file, whether as one long field or as many empty ones.
+ */
+class ImportRecordReader implements Closeable {
+
+    private final BufferedReader reader;
+    private final int maxRecordLength;
+    private final StringBuilder field = new StringBuilder();
+    private int recordLength;
+
+    ImportRecordReader(BufferedReader reader, int maxRecordLength) {
+        this.reader = reader;
+        this.maxRecordLength = maxRecordLength;
+    }
+
+    /**
+     * Skips a UTF-8 byte order mark at the start of the input, as spreadsheet exports often write one.
+     */
+    void skipByteOrderMark() throws IOException {
+        reader.mark(1);
+        if (reader.read() != '\uFEFF') {
+            reader.reset();
+        }
+    }
+
+    /**
+     * @return the next line without its line break, or null at the end of the input.
+     */
+    String readLine() throws IOException {
+        startRecord();
+        int c = reader.read();
+        if (c == -1) {
+            return null;
+        }
+
+        while (c != -1 && c != '\n') {
+            append(c);
+            c = reader.read();
+        }
+        checkLength();
+
+        final int length = field.length();
+        return length > 0 && field.charAt(length - 1) == '\r' ? field.substring(0, length - 1) : field.toString();
+    }
+
+    /**
+     * @return the fields of the next CSV record, or null at the end of the input.
+     */
+    List<String> readCsvRecord() throws IOException {
+        startRecord();
+        int c = reader.read();
+        if (c == -1) {
+            return null;
+        }
+
+        final List<String> fields = new ArrayList<>();
+        boolean quoted = false;
+        while (c != -1) {
+            if (quoted) {
+                if (c == '"') {
+                    reader.mark(1);
+                    if (reader.read() == '"') {
+                        append('"');
+                    } else {
+                        reader.reset();
+                        recordLength++;
+                        quoted = false;
+                    }
+                } else {
+                    append(c);
+                }
+            } else if (c == '"') {
+                recordLength++;
+                quoted = true;
+            } else if (c == ',') {
+                if (++recordLength <= maxRecordLength) {
+                    fields.add(field.toString());
+                }
+                field.setLength(0);
+            } else if (c == '\n') {
+                break;
+            } else if (c == '\r') {
+                reader.mark(1);
+                if (reader.read() != '\n') {
+                    reader.reset();
+                }
+                break;
+            } else {
+                append(c);
+            }
+            c = reader.read();
+        }
+        fields.add(field.toString());
+        checkLength();
+        return fields;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private void startRecord() {
+        field.setLength(0);
+        recordLength = 0;
+    }
+
+    private void append(int c) {
+        if (++recordLength <= maxRecordLength) {
+            field.append((char) c);
+        }
+    }
+
+    private void checkLength() throws RecordTooLongException {
+        if (recordLength > maxRecordLength) {
+            throw new RecordTooLongException("Row is longer than " + maxRecordLength + " characters");
+        }
+    }
+
+    /**
+     * The record was skipped; the reader is positioned at the next one.
+     */
+    static class RecordTooLongException extends IOException {
+
+        RecordTooLongException(String message) {
+            super(message);
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package guru.springframework.msscbrewery.services.v2;
+
+import guru.springframework.msscbrewery.web.controller.BadRequestException;
+
+import java.nio.ByteBuffer;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Opaque page cursors: the id of the last beer of a page as 16 url-safe base64 bytes.
+ */
+final class BeerCursors {
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private BeerCursors() {
+    }
+
+    static String encode(UUID lastId) {
+        return ENCODER.encodeToString(ByteBuffer.allocate(16)
+                .putLong(lastId.getMostSignificantBits())
+                .putLong(lastId.getLeastSignificantBits())
+                .array());
+    }
+
+    static UUID decode(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+
+        final byte[] bytes;
+        try {
+            bytes = DECODER.decode(cursor);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Invalid cursor");
+        }
+        if (bytes.length != 16) {
+            throw new BadRequestException("Invalid cursor");
+        }
+
+        final ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        return new UUID(buffer.getLong(), buffer.getLong());
+    }
+}
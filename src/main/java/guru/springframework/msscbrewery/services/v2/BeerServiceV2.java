@@ -1,15 +1,64 @@
 package guru.springframework.msscbrewery.services.v2;
 
+import guru.springframework.msscbrewery.web.model.v2.BeerBatchResultDto;
 import guru.springframework.msscbrewery.web.model.v2.BeerDtoV2;
+import guru.springframework.msscbrewery.web.model.v2.BeerPageDtoV2;
+import guru.springframework.msscbrewery.web.model.v2.BeerStyleEnum;
 
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.stream.Stream;
 
+/**
+ * Beers are returned with their {@code quantityOnHand} read at the time of the call.
+ */
 public interface BeerServiceV2 {
     BeerDtoV2 getBeerById(UUID beerId);
 
+    /**
+     * Cheap version lookup for conditional requests, no mapping involved.
+     *
+     * @return the current version, or null when the beer does not exist.
+     */
+    Long getBeerVersion(UUID beerId);
+
+    /**
+     * @return units in stock, 0 for a beer never stocked or that does not exist.
+     */
+    long getQuantityOnHand(UUID beerId);
+
+    BeerDtoV2 getBeerByUpc(long upc);
+
+    BeerPageDtoV2 listBeers(String cursor, int limit);
+
+    List<BeerDtoV2> searchBeers(String prefix, int limit);
+
+    Map<BeerStyleEnum, Long> countBeersByStyle();
+
+    /**
+     * Lazily maps every beer in the store, one at a time as the stream is consumed. Beers saved or deleted while
+     * the stream is open may or may not be included.
+     */
+    Stream<BeerDtoV2> streamBeers();
+
     BeerDtoV2 saveNewBeer(BeerDtoV2 beerDto);
 
+    /**
+     * Saves each beer independently; a failing item does not roll back the others.
+     *
+     * @return one result per input beer, in input order.
+     */
+    List<BeerBatchResultDto> saveNewBeers(List<BeerDtoV2> beerDtos);
+
     BeerDtoV2 updateBeer(UUID beerId, BeerDtoV2 beerDto);
 
     void deleteBeer(UUID beerId);
+
+    /**
+     * Adds stock when {@code delta} is positive and takes it when negative, without touching the beer's version.
+     *
+     * @return false, with nothing changed, when fewer than {@code -delta} units are on hand.
+     */
+    boolean adjustInventory(UUID beerId, long delta);
 }
@@ -1,43 +1,191 @@
 package guru.springframework.msscbrewery.services.v2;
 
+import guru.springframework.msscbrewery.changes.BeerChangeFeed;
+import guru.springframework.msscbrewery.config.CacheConfig;
+import guru.springframework.msscbrewery.domain.Beer;
+import guru.springframework.msscbrewery.repositories.BeerInventory;
+import guru.springframework.msscbrewery.repositories.BeerRepository;
+import guru.springframework.msscbrewery.repositories.DuplicateUpcException;
+import guru.springframework.msscbrewery.web.controller.NotFoundException;
+import guru.springframework.msscbrewery.web.mapper.BeerMapper;
+import guru.springframework.msscbrewery.web.model.v2.BeerBatchResultDto;
+import guru.springframework.msscbrewery.web.model.v2.BeerChangeDto;
+import guru.springframework.msscbrewery.web.model.v2.BeerChangeType;
 import guru.springframework.msscbrewery.web.model.v2.BeerDtoV2;
+import guru.springframework.msscbrewery.web.model.v2.BeerPageDtoV2;
 import guru.springframework.msscbrewery.web.model.v2.BeerStyleEnum;
+import lombok.RequiredArgsConstructor;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.stream.Stream;
 
+@RequiredArgsConstructor
 @Service
 public class BeerServiceV2Impl implements BeerServiceV2 {
+
+    private final BeerRepository beerRepository;
+    private final BeerMapper beerMapper;
+    private final BeerChangeFeed changeFeed;
+    private final BeerInventory inventory;
+    private final CacheManager cacheManager;
+
+    /**
+     * The beer comes from the cache, which is evicted on every write, and its stock level is added on top: stock
+     * changes far too often to evict for.
+     */
     @Override
     public BeerDtoV2 getBeerById(UUID beerId) {
-        return BeerDtoV2.builder().id(UUID.randomUUID())
-                .beerName("Galaxy Cat")
-                .beerStyle(BeerStyleEnum.ALE)
+        final BeerDtoV2 cached;
+        try {
+            cached = cacheManager.getCache(CacheConfig.BEER_CACHE).get(beerId, () -> beerRepository.findById(beerId)
+                    .map(beerMapper::beerToBeerDto)
+                    .orElseThrow(NotFoundException::new));
+        } catch (Cache.ValueRetrievalException e) {
+            throw e.getCause() instanceof NotFoundException ? (NotFoundException) e.getCause() : e;
+        }
+
+        // cached instances are shared between requests, so the stock level goes on a copy
+        return cached.toBuilder().quantityOnHand(inventory.getQuantityOnHand(beerId)).build();
+    }
+
+    @Override
+    public Long getBeerVersion(UUID beerId) {
+        return beerRepository.findById(beerId).map(Beer::getVersion).orElse(null);
+    }
+
+    @Override
+    public long getQuantityOnHand(UUID beerId) {
+        return inventory.getQuantityOnHand(beerId);
+    }
+
+    @Override
+    public BeerDtoV2 getBeerByUpc(long upc) {
+        return beerRepository.findByUpc(upc)
+                .map(beerMapper::beerToBeerDto)
+                .map(this::stocked)
+                .orElseThrow(NotFoundException::new);
+    }
+
+    @Override
+    public BeerPageDtoV2 listBeers(String cursor, int limit) {
+        // one extra row tells us whether a next page exists
+        final List<Beer> beers = beerRepository.findPage(BeerCursors.decode(cursor), limit + 1);
+        final boolean hasNext = beers.size() > limit;
+
+        return BeerPageDtoV2.builder()
+                .content(stocked(beerMapper.beersToBeerDtos(hasNext ? beers.subList(0, limit) : beers)))
+                .nextCursor(hasNext ? BeerCursors.encode(beers.get(limit - 1).getId()) : null)
                 .build();
     }
 
+    @Override
+    public List<BeerDtoV2> searchBeers(String prefix, int limit) {
+        return stocked(beerMapper.beersToBeerDtos(beerRepository.findByNamePrefix(prefix, limit)));
+    }
+
+    @Override
+    public Map<BeerStyleEnum, Long> countBeersByStyle() {
+        final Map<BeerStyleEnum, Long> counts = new EnumMap<>(BeerStyleEnum.class);
+        beerRepository.countByStyle().forEach((style, count) -> counts.put(BeerStyleEnum.valueOf(style.name()), count));
+        return counts;
+    }
+
+    @Override
+    public Stream<BeerDtoV2> streamBeers() {
+        return beerMapper.beersToBeerDtos(beerRepository.findAll().stream()).map(this::stocked);
+    }
+
     @Override
     public BeerDtoV2 saveNewBeer(BeerDtoV2 beerDto) {
-        return BeerDtoV2.builder()
-                .id(UUID.randomUUID())
-                .beerName(beerDto.getBeerName())
-                .beerStyle(beerDto.getBeerStyle())
-                .upc(beerDto.getUpc())
-                .build();
+        return published(BeerChangeType.CREATED,
+                beerMapper.beerToBeerDto(beerRepository.save(beerMapper.beerDtoToBeer(beerDto))));
     }
 
+    @Override
+    public List<BeerBatchResultDto> saveNewBeers(List<BeerDtoV2> beerDtos) {
+        final List<BeerBatchResultDto> results = new ArrayList<>(beerDtos.size());
+        for (int i = 0; i < beerDtos.size(); i++) {
+            final BeerBatchResultDto result = BeerBatchResultDto.builder().index(i).build();
+            try {
+                final Beer saved = beerRepository.save(beerMapper.beerDtoToBeer(beerDtos.get(i)));
+                result.setId(saved.getId());
+                published(BeerChangeType.CREATED, beerMapper.beerToBeerDto(saved));
+            } catch (DuplicateUpcException e) {
+                result.setErrors(List.of(e.getMessage()));
+            }
+            results.add(result);
+        }
+        return results;
+    }
+
+    @CacheEvict(cacheNames = CacheConfig.BEER_CACHE, key = "#beerId")
     @Override
     public BeerDtoV2 updateBeer(UUID beerId, BeerDtoV2 beerDto) {
-        return BeerDtoV2.builder()
-                .id(beerId)
-                .beerName(beerDto.getBeerName())
-                .beerStyle(beerDto.getBeerStyle())
-                .upc(beerDto.getUpc())
-                .build();
+        final Beer changes = beerMapper.beerDtoToBeer(beerDto);
+
+        final BeerDtoV2 updated = beerRepository.update(beerId, current -> current.toBuilder()
+                        .beerName(changes.getBeerName())
+                        .beerStyle(changes.getBeerStyle())
+                        .upc(changes.getUpc())
+                        .build())
+                .map(beerMapper::beerToBeerDto)
+                .orElseThrow(NotFoundException::new);
+        return published(BeerChangeType.UPDATED, updated);
     }
 
+    @CacheEvict(cacheNames = CacheConfig.BEER_CACHE, key = "#beerId")
     @Override
     public void deleteBeer(UUID beerId) {
+        final Beer deleted = beerRepository.deleteById(beerId).orElseThrow(NotFoundException::new);
+        inventory.remove(beerId);
+        // one past the last write, so the tombstone outranks an update to the same version published after it
+        changeFeed.publish(BeerChangeDto.builder()
+                .type(BeerChangeType.DELETED)
+                .beerId(beerId)
+                .version(deleted.getVersion() + 1)
+                .build());
+    }
+
+    @Override
+    public boolean adjustInventory(UUID beerId, long delta) {
+        if (!beerRepository.findById(beerId).isPresent()) {
+            throw new NotFoundException();
+        }
+
+        final boolean adjusted = inventory.adjust(beerId, delta);
+        // a delete racing this adjustment may have removed the counter before it was recreated here
+        if (!beerRepository.findById(beerId).isPresent()) {
+            inventory.remove(beerId);
+            throw new NotFoundException();
+        }
+        return adjusted;
+    }
+
+    private BeerDtoV2 stocked(BeerDtoV2 beerDto) {
+        beerDto.setQuantityOnHand(inventory.getQuantityOnHand(beerDto.getId()));
+        return beerDto;
+    }
+
+    private List<BeerDtoV2> stocked(List<BeerDtoV2> beerDtos) {
+        beerDtos.forEach(this::stocked);
+        return beerDtos;
+    }
 
+    private BeerDtoV2 published(BeerChangeType type, BeerDtoV2 beerDto) {
+        changeFeed.publish(BeerChangeDto.builder()
+                .type(type)
+                .beerId(beerDto.getId())
+                .version(beerDto.getVersion())
+                .beer(beerDto)
+                .build());
+        return beerDto;
     }
 }
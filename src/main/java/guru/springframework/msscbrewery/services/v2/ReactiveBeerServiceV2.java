@@ -0,0 +1,44 @@
+package guru.springframework.msscbrewery.services.v2;
+
+import guru.springframework.msscbrewery.web.model.v2.BeerDtoV2;
+import guru.springframework.msscbrewery.web.model.v2.BeerPageDtoV2;
+import guru.springframework.msscbrewery.web.model.v2.BeerStyleEnum;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Non-blocking counterpart of {@link BeerServiceV2}. Missing beers signal
+ * {@link guru.springframework.msscbrewery.web.controller.NotFoundException} as an error.
+ */
+public interface ReactiveBeerServiceV2 {
+    Mono<BeerDtoV2> getBeerById(UUID beerId);
+
+    /**
+     * @return the current version, or empty when the beer does not exist.
+     */
+    Mono<Long> getBeerVersion(UUID beerId);
+
+    Mono<Long> getQuantityOnHand(UUID beerId);
+
+    Mono<BeerDtoV2> getBeerByUpc(long upc);
+
+    Mono<BeerPageDtoV2> listBeers(String cursor, int limit);
+
+    Flux<BeerDtoV2> searchBeers(String prefix, int limit);
+
+    Mono<Map<BeerStyleEnum, Long>> countBeersByStyle();
+
+    Mono<BeerDtoV2> saveNewBeer(BeerDtoV2 beerDto);
+
+    Mono<BeerDtoV2> updateBeer(UUID beerId, BeerDtoV2 beerDto);
+
+    Mono<Void> deleteBeer(UUID beerId);
+
+    /**
+     * @return false, with nothing changed, when fewer than {@code -delta} units are on hand.
+     */
+    Mono<Boolean> adjustInventory(UUID beerId, long delta);
+}
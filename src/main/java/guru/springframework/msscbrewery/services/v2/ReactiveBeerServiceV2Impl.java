@@ -0,0 +1,80 @@
+package guru.springframework.msscbrewery.services.v2;
+
+import guru.springframework.msscbrewery.web.model.v2.BeerDtoV2;
+import guru.springframework.msscbrewery.web.model.v2.BeerPageDtoV2;
+import guru.springframework.msscbrewery.web.model.v2.BeerStyleEnum;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Adapts {@link BeerServiceV2}, keeping its caching. Reads only touch the in-memory repository and run on the
+ * subscribing thread; writes can wait for the mutation log to reach disk, so they move to the bounded elastic
+ * scheduler instead of blocking an event loop. Stock adjustments are not logged and stay on the subscribing thread.
+ */
+@Service
+@RequiredArgsConstructor
+public class ReactiveBeerServiceV2Impl implements ReactiveBeerServiceV2 {
+
+    private final BeerServiceV2 beerService;
+
+    @Override
+    public Mono<BeerDtoV2> getBeerById(UUID beerId) {
+        return Mono.fromCallable(() -> beerService.getBeerById(beerId));
+    }
+
+    @Override
+    public Mono<Long> getBeerVersion(UUID beerId) {
+        return Mono.fromCallable(() -> beerService.getBeerVersion(beerId));
+    }
+
+    @Override
+    public Mono<Long> getQuantityOnHand(UUID beerId) {
+        return Mono.fromCallable(() -> beerService.getQuantityOnHand(beerId));
+    }
+
+    @Override
+    public Mono<BeerDtoV2> getBeerByUpc(long upc) {
+        return Mono.fromCallable(() -> beerService.getBeerByUpc(upc));
+    }
+
+    @Override
+    public Mono<BeerPageDtoV2> listBeers(String cursor, int limit) {
+        return Mono.fromCallable(() -> beerService.listBeers(cursor, limit));
+    }
+
+    @Override
+    public Flux<BeerDtoV2> searchBeers(String prefix, int limit) {
+        return Mono.fromCallable(() -> beerService.searchBeers(prefix, limit)).flatMapIterable(beers -> beers);
+    }
+
+    @Override
+    public Mono<Map<BeerStyleEnum, Long>> countBeersByStyle() {
+        return Mono.fromCallable(beerService::countBeersByStyle);
+    }
+
+    @Override
+    public Mono<BeerDtoV2> saveNewBeer(BeerDtoV2 beerDto) {
+        return Mono.fromCallable(() -> beerService.saveNewBeer(beerDto)).subscribeOn(Schedulers.boundedElastic());
+    }
+
+    @Override
+    public Mono<BeerDtoV2> updateBeer(UUID beerId, BeerDtoV2 beerDto) {
+        return Mono.fromCallable(() -> beerService.updateBeer(beerId, beerDto)).subscribeOn(Schedulers.boundedElastic());
+    }
+
+    @Override
+    public Mono<Void> deleteBeer(UUID beerId) {
+        return Mono.<Void>fromRunnable(() -> beerService.deleteBeer(beerId)).subscribeOn(Schedulers.boundedElastic());
+    }
+
+    @Override
+    public Mono<Boolean> adjustInventory(UUID beerId, long delta) {
+        return Mono.fromCallable(() -> beerService.adjustInventory(beerId, delta));
+    }
+}
@@ -0,0 +1,64 @@
+package guru.springframework.msscbrewery.tracing;
+
+/**
+ * Per-thread scratch state of the trace being captured, reused across requests so sampling does not allocate.
+ */
+final class ActiveTrace {
+
+    private static final int PHASES = Phase.values().length;
+
+    boolean active;
+    String method;
+    String path;
+    long startEpochMillis;
+    long startNanos;
+    final long[] phaseNanos = new long[PHASES];
+    private final long[] phaseStart = new long[PHASES];
+    private final int[] phaseDepth = new int[PHASES];
+
+    void begin(String method, String path) {
+        this.active = true;
+        this.method = method;
+        this.path = path;
+        this.startEpochMillis = System.currentTimeMillis();
+        this.startNanos = System.nanoTime();
+        for (int i = 0; i < PHASES; i++) {
+            phaseNanos[i] = 0;
+            phaseDepth[i] = 0;
+        }
+    }
+
+    void enter(Phase phase) {
+        final int i = phase.ordinal();
+        if (phaseDepth[i]++ == 0) {
+            phaseStart[i] = System.nanoTime();
+        }
+    }
+
+    void exit(Phase phase) {
+        final int i = phase.ordinal();
+        if (phaseDepth[i] > 0 && --phaseDepth[i] == 0) {
+            phaseNanos[i] += System.nanoTime() - phaseStart[i];
+        }
+    }
+
+    /**
+     * Closes phases still open, e.g. serialization, which ends when the response is written.
+     *
+     * @return total request time in nanos.
+     */
+    long end() {
+        final long now = System.nanoTime();
+        for (int i = 0; i < PHASES; i++) {
+            if (phaseDepth[i] > 0) {
+                phaseNanos[i] += now - phaseStart[i];
+                phaseDepth[i] = 0;
+            }
+        }
+
+        final int service = Phase.SERVICE.ordinal();
+        phaseNanos[service] = Math.max(0, phaseNanos[service] - phaseNanos[Phase.MAPPING.ordinal()]);
+        active = false;
+        return now - startNanos;
+    }
+}
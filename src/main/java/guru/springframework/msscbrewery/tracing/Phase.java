@@ -0,0 +1,8 @@
+package guru.springframework.msscbrewery.tracing;
+
+/**
+ * Parts of a request a trace splits its time into. Service time excludes the mapping done inside the service.
+ */
+public enum Phase {
+    DESERIALIZE, VALIDATE, SERVICE, MAPPING, SERIALIZE
+}
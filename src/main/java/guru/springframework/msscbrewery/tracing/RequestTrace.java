@@ -0,0 +1,20 @@
+package guru.springframework.msscbrewery.tracing;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.util.Map;
+
+/**
+ * A captured request as reported by the {@code traces} actuator endpoint.
+ */
+@Value
+@Builder
+public class RequestTrace {
+    String method;
+    String path;
+    int status;
+    long startedAt;
+    double totalMillis;
+    Map<Phase, Double> phaseMillis;
+}
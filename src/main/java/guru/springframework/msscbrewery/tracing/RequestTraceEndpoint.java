@@ -0,0 +1,36 @@
+package guru.springframework.msscbrewery.tracing;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.lang.Nullable;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * {@code /actuator/traces}: the slowest of the recently sampled requests, and the sample rate, which can be changed
+ * at runtime with a POST of {@code {"sampleRate": 0.01}}.
+ */
+@Endpoint(id = "traces")
+@RequiredArgsConstructor
+public class RequestTraceEndpoint {
+
+    private static final int DEFAULT_LIMIT = 20;
+
+    private final RequestTracer requestTracer;
+
+    @ReadOperation
+    public Map<String, Object> slowest(@Nullable Integer limit) {
+        final Map<String, Object> report = new LinkedHashMap<>();
+        report.put("sampleRate", requestTracer.getSampleRate());
+        report.put("traces", requestTracer.slowest(limit == null ? DEFAULT_LIMIT : limit));
+        return report;
+    }
+
+    @WriteOperation
+    public void sampleRate(double sampleRate) {
+        requestTracer.setSampleRate(sampleRate);
+    }
+}
@@ -0,0 +1,84 @@
+package guru.springframework.msscbrewery.tracing;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
+
+/**
+ * Sampled in-process request tracing. The static {@link #enter(Phase)} and {@link #exit(Phase)} marks are called
+ * from the request pipeline; with sampling off they cost one volatile read, and on unsampled requests one
+ * thread-local lookup.
+ */
+public class RequestTracer {
+
+    private static final ThreadLocal<ActiveTrace> CURRENT = ThreadLocal.withInitial(ActiveTrace::new);
+    private static volatile boolean sampling;
+
+    private final TraceRingBuffer ring;
+    private volatile double sampleRate;
+
+    public RequestTracer(int capacity, double sampleRate) {
+        this.ring = new TraceRingBuffer(capacity);
+        setSampleRate(sampleRate);
+    }
+
+    public static void enter(Phase phase) {
+        if (sampling) {
+            final ActiveTrace trace = CURRENT.get();
+            if (trace.active) {
+                trace.enter(phase);
+            }
+        }
+    }
+
+    public static void exit(Phase phase) {
+        if (sampling) {
+            final ActiveTrace trace = CURRENT.get();
+            if (trace.active) {
+                trace.exit(phase);
+            }
+        }
+    }
+
+    public double getSampleRate() {
+        return sampleRate;
+    }
+
+    public void setSampleRate(double sampleRate) {
+        if (sampleRate < 0 || sampleRate > 1) {
+            throw new IllegalArgumentException("Sample rate must be between 0 and 1, was " + sampleRate);
+        }
+        this.sampleRate = sampleRate;
+        sampling = sampleRate > 0;
+    }
+
+    /**
+     * Starts capturing the current request on this thread if it is sampled.
+     *
+     * @return whether the request is traced; if so it must be completed with {@link #finish(int)}.
+     */
+    boolean start(String method, String path) {
+        final double rate = sampleRate;
+        if (rate <= 0 || (rate < 1 && ThreadLocalRandom.current().nextDouble() >= rate)) {
+            return false;
+        }
+
+        CURRENT.get().begin(method, path);
+        return true;
+    }
+
+    void finish(int status) {
+        final ActiveTrace trace = CURRENT.get();
+        if (trace.active) {
+            ring.record(trace, trace.end(), status);
+        }
+    }
+
+    public List<RequestTrace> slowest(int limit) {
+        return ring.snapshot().stream()
+                .sorted(Comparator.comparingDouble(RequestTrace::getTotalMillis).reversed())
+                .limit(limit)
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,123 @@
+package guru.springframework.msscbrewery.tracing;
+
+import java.lang.invoke.VarHandle;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+
+/**
+ * Fixed-size ring of the most recent traces. Writers claim a slot with one atomic increment and copy primitives
+ * into it, so recording never locks or allocates. Each slot is a seqlock: its version is odd while a writer is in
+ * it, readers retry on a version change, and a writer that finds its slot busy (the ring lapped a slow writer)
+ * drops its trace instead of waiting.
+ */
+final class TraceRingBuffer {
+
+    private static final int PHASES = Phase.values().length;
+
+    private final Slot[] slots;
+    private final int mask;
+    private final AtomicLong next = new AtomicLong();
+
+    TraceRingBuffer(int capacity) {
+        if (capacity < 1 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity must be a power of two, was " + capacity);
+        }
+
+        slots = new Slot[capacity];
+        for (int i = 0; i < capacity; i++) {
+            slots[i] = new Slot();
+        }
+        mask = capacity - 1;
+    }
+
+    boolean record(ActiveTrace trace, long totalNanos, int status) {
+        return slots[(int) (next.getAndIncrement() & mask)].write(trace, totalNanos, status);
+    }
+
+    /**
+     * Consistent copies of the traces currently held, in no particular order.
+     */
+    List<RequestTrace> snapshot() {
+        final List<RequestTrace> traces = new ArrayList<>(slots.length);
+        for (Slot slot : slots) {
+            final RequestTrace trace = slot.read();
+            if (trace != null) {
+                traces.add(trace);
+            }
+        }
+        return traces;
+    }
+
+    private static final class Slot {
+
+        private static final AtomicLongFieldUpdater<Slot> VERSION = AtomicLongFieldUpdater.newUpdater(Slot.class, "version");
+        private static final int READ_ATTEMPTS = 4;
+
+        private volatile long version;
+        private String method;
+        private String path;
+        private int status;
+        private long startEpochMillis;
+        private long totalNanos;
+        private final long[] phaseNanos = new long[PHASES];
+
+        boolean write(ActiveTrace trace, long totalNanos, int status) {
+            final long current = version;
+            if ((current & 1) != 0 || !VERSION.compareAndSet(this, current, current + 1)) {
+                return false;
+            }
+
+            this.method = trace.method;
+            this.path = trace.path;
+            this.status = status;
+            this.startEpochMillis = trace.startEpochMillis;
+            this.totalNanos = totalNanos;
+            System.arraycopy(trace.phaseNanos, 0, phaseNanos, 0, PHASES);
+
+            version = current + 2;
+            return true;
+        }
+
+        RequestTrace read() {
+            for (int attempt = 0; attempt < READ_ATTEMPTS; attempt++) {
+                final long before = version;
+                if (before == 0) {
+                    return null;
+                }
+                if ((before & 1) != 0) {
+                    Thread.onSpinWait();
+                    continue;
+                }
+
+                final String method = this.method;
+                final String path = this.path;
+                final int status = this.status;
+                final long startEpochMillis = this.startEpochMillis;
+                final long totalNanos = this.totalNanos;
+                final long[] phases = phaseNanos.clone();
+
+                // keep the field reads above from moving past the version check
+                VarHandle.acquireFence();
+                if (version == before) {
+                    final Map<Phase, Double> phaseMillis = new EnumMap<>(Phase.class);
+                    for (Phase phase : Phase.values()) {
+                        phaseMillis.put(phase, phases[phase.ordinal()] / 1e6);
+                    }
+                    return RequestTrace.builder()
+                            .method(method)
+                            .path(path)
+                            .status(status)
+                            .startedAt(startEpochMillis)
+                            .totalMillis(totalNanos / 1e6)
+                            .phaseMillis(phaseMillis)
+                            .build();
+                }
+            }
+            return null;
+        }
+    }
+}
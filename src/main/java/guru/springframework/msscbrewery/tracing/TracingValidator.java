@@ -0,0 +1,39 @@
+package guru.springframework.msscbrewery.tracing;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.validation.Errors;
+import org.springframework.validation.SmartValidator;
+
+/**
+ * Marks bean validation of {@code @Valid} request bodies for traced requests.
+ */
+@RequiredArgsConstructor
+public class TracingValidator implements SmartValidator {
+
+    private final SmartValidator delegate;
+
+    @Override
+    public boolean supports(Class<?> clazz) {
+        return delegate.supports(clazz);
+    }
+
+    @Override
+    public void validate(Object target, Errors errors) {
+        RequestTracer.enter(Phase.VALIDATE);
+        try {
+            delegate.validate(target, errors);
+        } finally {
+            RequestTracer.exit(Phase.VALIDATE);
+        }
+    }
+
+    @Override
+    public void validate(Object target, Errors errors, Object... validationHints) {
+        RequestTracer.enter(Phase.VALIDATE);
+        try {
+            delegate.validate(target, errors, validationHints);
+        } finally {
+            RequestTracer.exit(Phase.VALIDATE);
+        }
+    }
+}
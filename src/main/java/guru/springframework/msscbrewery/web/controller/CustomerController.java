@@ -4,48 +4,93 @@ import guru.springframework.msscbrewery.services.CustomerService;
 import guru.springframework.msscbrewery.web.model.CustomerDto;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
-import javax.validation.Valid;
+import javax.servlet.http.HttpServletResponse;
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.Size;
 import java.text.MessageFormat;
+import java.time.Duration;
+import java.util.List;
 import java.util.UUID;
 
 @Slf4j
+@Validated
 @RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @RequestMapping("/api/v1/customer")
 public class CustomerController {
 
     private static final String API_V1_CUSTOMER = "/api/v1/customer";
+    private static final int MAX_QUERY_LENGTH = 100;
+    private static final int MAX_SEARCH_RESULTS = 100;
     private final CustomerService customerService;
     private final String host;
     private final String port;
+    private final IdempotentCreates idempotentCreates;
 
-    public CustomerController(CustomerService customerService, @Value("${beer.app.host}") String host, @Value("${beer.app.port}") String port) {
+    public CustomerController(CustomerService customerService, @Value("${beer.app.host}") String host, @Value("${beer.app.port}") String port,
+                              @Value("${brewery.idempotency.max-keys:10000}") long maxIdempotencyKeys,
+                              @Value("${brewery.idempotency.ttl-seconds:86400}") long idempotencyTtlSeconds) {
         this.customerService = customerService;
         this.host = host;
         this.port = port;
+        this.idempotentCreates = new IdempotentCreates(maxIdempotencyKeys, Duration.ofSeconds(idempotencyTtlSeconds));
     }
 
+    /**
+     * Fuzzy search by name, tolerating typos; most similar names first.
+     */
+    @GetMapping("/search")
+    public ResponseEntity<List<CustomerDto>> searchCustomers(@NotBlank @Size(max = MAX_QUERY_LENGTH) @RequestParam("q") String query,
+                                                             @Min(1) @Max(MAX_SEARCH_RESULTS) @RequestParam(value = "limit", defaultValue = "10") int limit) {
+
+        return new ResponseEntity<>(customerService.searchCustomers(query, limit), HttpStatus.OK);
+    }
+
+    /**
+     * Answers 304 when If-None-Match still matches the customer's version and format, before the customer is mapped
+     * or serialized. Otherwise the ETag checkNotModified wrote is replaced with the version of the customer actually
+     * sent, which a write landing in between may have changed.
+     */
     @GetMapping("/{customerId}")
-    public ResponseEntity<CustomerDto> getById(@PathVariable UUID customerId) {
-        return new ResponseEntity<>(customerService.getCustomerById(customerId), HttpStatus.OK);
+    public ResponseEntity<CustomerDto> getById(@PathVariable UUID customerId, WebRequest request, HttpServletResponse response) {
+        if (request.checkNotModified(ETags.negotiated(ETags.of(customerService.getCustomerVersion(customerId)), request))) {
+            return null;
+        }
+
+        final CustomerDto customerDto = customerService.getCustomerById(customerId);
+        response.setHeader(HttpHeaders.ETAG, ETags.negotiated(ETags.of(customerDto.getVersion()), request));
+        return new ResponseEntity<>(customerDto, HttpStatus.OK);
     }
 
+    /**
+     * A retry carrying the {@code Idempotency-Key} of an earlier create answers with that customer's Location.
+     */
     @PostMapping
-    public ResponseEntity handlePost(@Valid @RequestBody CustomerDto customerDto) {
-        CustomerDto savedDto = customerService.saveNewCustomer(customerDto);
+    public ResponseEntity handlePost(@RequestHeader(value = IdempotentCreates.IDEMPOTENCY_KEY, required = false) String idempotencyKey,
+                                     @Validated @RequestBody CustomerDto customerDto) {
+        final IdempotentCreates.Created created = idempotentCreates.create(idempotencyKey, () -> {
+            final UUID id = customerService.saveNewCustomer(customerDto).getId();
+            return new IdempotentCreates.Created(id, MessageFormat.format("{0}:{1}{2}/{3}", this.host, this.port, API_V1_CUSTOMER, id));
+        });
 
         HttpHeaders headers = new HttpHeaders();
-        headers.add("Location", MessageFormat.format("{0}:{1}{2}/{3}", this.host, this.port, API_V1_CUSTOMER, savedDto.getId()));
+        headers.add("Location", created.getLocation());
         return new ResponseEntity(headers, HttpStatus.CREATED);
     }
 
     @PutMapping("/{customerId}")
     @ResponseStatus(HttpStatus.NO_CONTENT)
-    public void handleUpdate(@PathVariable UUID customerId, @Valid @RequestBody CustomerDto customerDto) {
+    public void handleUpdate(@PathVariable UUID customerId, @Validated @RequestBody CustomerDto customerDto) {
         customerService.updateCustomer(customerId, customerDto);
     }
 
@@ -0,0 +1,59 @@
+package guru.springframework.msscbrewery.web.controller;
+
+import guru.springframework.msscbrewery.services.CustomerImportService;
+import guru.springframework.msscbrewery.web.model.CustomerImportDto;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.UUID;
+
+/**
+ * Bulk customer imports from CSV, with a {@code name} column in the header, or from newline delimited JSON, both
+ * UTF-8. The upload is accepted once it is spooled; progress is polled at the returned Location.
+ */
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@RequestMapping(CustomerImportController.API_V1_CUSTOMER_IMPORTS)
+public class CustomerImportController {
+
+    public static final String API_V1_CUSTOMER_IMPORTS = "/api/v1/customer/imports";
+    private final CustomerImportService customerImportService;
+    private final String locationPrefix;
+
+    public CustomerImportController(CustomerImportService customerImportService,
+                                    @Value("${beer.app.host}") String host, @Value("${beer.app.port}") String port) {
+        this.customerImportService = customerImportService;
+        this.locationPrefix = host + ":" + port + API_V1_CUSTOMER_IMPORTS + "/";
+    }
+
+    @PostMapping(consumes = {MediaTypes.TEXT_CSV_VALUE, MediaTypes.APPLICATION_NDJSON_VALUE})
+    public ResponseEntity<CustomerImportDto> startImport(@RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+                                                         InputStream body) throws IOException {
+        final CustomerImportDto.Format format = MediaTypes.TEXT_CSV.isCompatibleWith(contentType)
+                ? CustomerImportDto.Format.CSV
+                : CustomerImportDto.Format.NDJSON;
+        final CustomerImportDto job = customerImportService.startImport(body, format);
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.add("Location", locationPrefix + job.getId());
+        return new ResponseEntity<>(job, headers, HttpStatus.ACCEPTED);
+    }
+
+    @GetMapping("/{jobId}")
+    public ResponseEntity<CustomerImportDto> getImport(@PathVariable UUID jobId) {
+
+        return new ResponseEntity<>(customerImportService.getImport(jobId), HttpStatus.OK);
+    }
+}
@@ -0,0 +1,38 @@
+package guru.springframework.msscbrewery.web.controller;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.context.request.WebRequest;
+
+/**
+ * Strong entity tags derived from entity versions. Every write bumps the version, so equal tags mean equal
+ * representations. A v2 beer also shows its stock level, which changes without a version bump, so its tag carries
+ * both. The CBOR representation of an entity gets its own tag, so a cache holding both never matches one against
+ * the other.
+ */
+public final class ETags {
+
+    private ETags() {
+    }
+
+    public static String of(Long version) {
+        return version == null ? null : "\"" + version + "\"";
+    }
+
+    public static String of(Long version, Long quantityOnHand) {
+        if (quantityOnHand == null) {
+            return of(version);
+        }
+        return version == null ? null : "\"" + version + "-" + quantityOnHand + "\"";
+    }
+
+    /**
+     * @return {@code etag} for the JSON representation, {@code etag} with a {@code +cbor} suffix for the CBOR one,
+     * whichever the request negotiates.
+     */
+    public static String negotiated(String etag, WebRequest request) {
+        if (etag == null || !CborMessageConverter.isNegotiated(request.getHeader(HttpHeaders.ACCEPT))) {
+            return etag;
+        }
+        return etag.substring(0, etag.length() - 1) + "+cbor\"";
+    }
+}
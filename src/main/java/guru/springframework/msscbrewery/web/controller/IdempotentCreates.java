@@ -0,0 +1,103 @@
+package guru.springframework.msscbrewery.web.controller;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.Value;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * Remembers what each {@code Idempotency-Key} created, so a retried POST answers with the original resource
+ * instead of creating it again. A request arriving while the first one with its key is still running waits for
+ * it. Keys of failed creates are forgotten, so the retry runs again. Keys of completed creates expire after the TTL
+ * and the least used ones are evicted beyond the size bound; keys still running are held apart from that bound,
+ * so a burst of other keys cannot evict one and let its duplicate create again.
+ */
+public class IdempotentCreates {
+
+    public static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private final Cache<String, Created> completed;
+    // bounded by the requests in flight
+    private final ConcurrentMap<String, CompletableFuture<Created>> running = new ConcurrentHashMap<>();
+
+    public IdempotentCreates(long maxKeys, Duration ttl) {
+        this.completed = Caffeine.newBuilder()
+                .maximumSize(maxKeys)
+                .expireAfterWrite(ttl)
+                .build();
+    }
+
+    /**
+     * Runs {@code create} unless a create with the same key already ran or is running, in which case its result
+     * is returned. Without a key, always runs {@code create}.
+     */
+    public Created create(String idempotencyKey, Supplier<Created> create) {
+        if (idempotencyKey == null) {
+            return create.get();
+        }
+        if (idempotencyKey.isEmpty() || idempotencyKey.length() > MAX_KEY_LENGTH) {
+            throw new BadRequestException(IDEMPOTENCY_KEY + " must have 1 to " + MAX_KEY_LENGTH + " characters");
+        }
+
+        while (true) {
+            final Created done = completed.getIfPresent(idempotencyKey);
+            if (done != null) {
+                return done;
+            }
+
+            final CompletableFuture<Created> mine = new CompletableFuture<>();
+            final CompletableFuture<Created> first = running.putIfAbsent(idempotencyKey, mine);
+            if (first == null) {
+                // the first create may have finished between the lookup and the claim
+                final Created finished = completed.getIfPresent(idempotencyKey);
+                if (finished != null) {
+                    running.remove(idempotencyKey, mine);
+                    mine.complete(finished);
+                    return finished;
+                }
+                return run(idempotencyKey, mine, create);
+            }
+
+            try {
+                return first.join();
+            } catch (CompletionException e) {
+                // the first create failed and dropped its key, race for it again
+            }
+        }
+    }
+
+    /**
+     * Publishes the result to the completed keys before releasing the running one, so a duplicate always finds
+     * one of the two.
+     */
+    private Created run(String idempotencyKey, CompletableFuture<Created> mine, Supplier<Created> create) {
+        boolean created = false;
+        try {
+            final Created result = create.get();
+            completed.put(idempotencyKey, result);
+            mine.complete(result);
+            created = true;
+            return result;
+        } finally {
+            running.remove(idempotencyKey, mine);
+            if (!created) {
+                mine.completeExceptionally(new IllegalStateException("Create for " + idempotencyKey + " failed"));
+            }
+        }
+    }
+
+    @Value
+    public static class Created {
+        UUID id;
+        String location;
+    }
+}
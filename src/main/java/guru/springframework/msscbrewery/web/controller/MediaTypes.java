@@ -0,0 +1,14 @@
+package guru.springframework.msscbrewery.web.controller;
+
+import org.springframework.http.MediaType;
+
+public final class MediaTypes {
+
+    public static final String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
+    public static final MediaType APPLICATION_NDJSON = MediaType.valueOf(APPLICATION_NDJSON_VALUE);
+    public static final String TEXT_CSV_VALUE = "text/csv";
+    public static final MediaType TEXT_CSV = MediaType.valueOf(TEXT_CSV_VALUE);
+
+    private MediaTypes() {
+    }
+}
@@ -1,29 +1,51 @@
 package guru.springframework.msscbrewery.web.controller;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import guru.springframework.msscbrewery.repositories.DuplicateUpcException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindException;
+import org.springframework.validation.FieldError;
+import org.springframework.validation.ObjectError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 
+import javax.validation.ConstraintViolationException;
 import java.util.ArrayList;
 import java.util.List;
 
 @Slf4j
 @ControllerAdvice
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class MvcExceptionHandler {
 
+    // the global registry, because web slice tests load this advice without a MeterRegistry bean
+    private static final Counter INVALID_BODY = validationFailures("body");
+    private static final Counter INVALID_BINDING = validationFailures("binding");
+    private static final Counter INVALID_PARAMETER = validationFailures("parameter");
+    private static final Counter BAD_REQUEST = validationFailures("request");
+    private static final Counter MALFORMED_JSON = validationFailures("json");
+
+    /**
+     * Answers {@code field: message} per error, the shape parameter and batch errors have. A client sending bad
+     * bodies costs one counter increment, not an error log line per violation.
+     */
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<List> validationErrorHandler(MethodArgumentNotValidException e) {
-        List<String> errors = new ArrayList<>();
-        e.getBindingResult().getAllErrors()
-                .forEach(constraintViolation -> {
-                    final String message = constraintViolation.toString();
-                    log.error(message);
-                    errors.add(message);
-                });
+        INVALID_BODY.increment();
+        final List<ObjectError> objectErrors = e.getBindingResult().getAllErrors();
+        final List<String> errors = new ArrayList<>(objectErrors.size());
+        for (ObjectError error : objectErrors) {
+            final String source = error instanceof FieldError ? ((FieldError) error).getField() : error.getObjectName();
+            errors.add(source + ": " + error.getDefaultMessage());
+        }
+        log.debug("Invalid {}: {}", e.getBindingResult().getObjectName(), errors);
 
         return new ResponseEntity<>(errors, HttpStatus.BAD_REQUEST);
 
@@ -31,6 +53,58 @@ public class MvcExceptionHandler {
 
     @ExceptionHandler(BindException.class)
     public ResponseEntity<List> handleBindException(BindException ex) {
+        INVALID_BINDING.increment();
         return new ResponseEntity(ex.getAllErrors(), HttpStatus.BAD_REQUEST);
     }
+
+    @ExceptionHandler(ConstraintViolationException.class)
+    public ResponseEntity<List> handleConstraintViolation(ConstraintViolationException ex) {
+        INVALID_PARAMETER.increment();
+        List<String> errors = new ArrayList<>(ex.getConstraintViolations().size());
+        ex.getConstraintViolations()
+                .forEach(violation -> errors.add(violation.getPropertyPath() + ": " + violation.getMessage()));
+
+        return new ResponseEntity<>(errors, HttpStatus.BAD_REQUEST);
+    }
+
+    @ExceptionHandler(BadRequestException.class)
+    public ResponseEntity<List> handleBadRequest(BadRequestException ex) {
+        BAD_REQUEST.increment();
+        return new ResponseEntity<>(List.of(ex.getMessage()), HttpStatus.BAD_REQUEST);
+    }
+
+    @ExceptionHandler(JsonProcessingException.class)
+    public ResponseEntity<List> handleJsonProcessing(JsonProcessingException ex) {
+        MALFORMED_JSON.increment();
+        return new ResponseEntity<>(List.of(String.valueOf(ex.getOriginalMessage())), HttpStatus.BAD_REQUEST);
+    }
+
+    @ExceptionHandler(NotFoundException.class)
+    public ResponseEntity<Void> handleNotFound(NotFoundException ex) {
+        return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+    }
+
+    @ExceptionHandler(DuplicateUpcException.class)
+    public ResponseEntity<List> handleDuplicateUpc(DuplicateUpcException ex) {
+        return new ResponseEntity<>(List.of(ex.getMessage()), HttpStatus.CONFLICT);
+    }
+
+    @ExceptionHandler(PayloadTooLargeException.class)
+    public ResponseEntity<List> handlePayloadTooLarge(PayloadTooLargeException ex) {
+        return new ResponseEntity<>(List.of(ex.getMessage()), HttpStatus.PAYLOAD_TOO_LARGE);
+    }
+
+    @ExceptionHandler(ServiceUnavailableException.class)
+    public ResponseEntity<List> handleServiceUnavailable(ServiceUnavailableException ex) {
+        final HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()));
+        return new ResponseEntity<>(List.of(ex.getMessage()), headers, HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
+    private static Counter validationFailures(String type) {
+        return Counter.builder("brewery.validation.failures")
+                .tag("type", type)
+                .description("Requests rejected with 400 by MvcExceptionHandler")
+                .register(Metrics.globalRegistry);
+    }
 }
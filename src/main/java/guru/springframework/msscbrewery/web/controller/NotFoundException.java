@@ -0,0 +1,12 @@
+package guru.springframework.msscbrewery.web.controller;
+
+public class NotFoundException extends RuntimeException {
+
+    public NotFoundException() {
+        super();
+    }
+
+    public NotFoundException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,11 @@
+package guru.springframework.msscbrewery.web.controller;
+
+/**
+ * A request body past the size limit of its endpoint; answered with 413.
+ */
+public class PayloadTooLargeException extends RuntimeException {
+
+    public PayloadTooLargeException(String message) {
+        super(message);
+    }
+}
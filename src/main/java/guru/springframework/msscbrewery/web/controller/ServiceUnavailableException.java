@@ -0,0 +1,17 @@
+package guru.springframework.msscbrewery.web.controller;
+
+import lombok.Getter;
+
+/**
+ * The server is at capacity for this kind of request; answered with 503 and Retry-After.
+ */
+@Getter
+public class ServiceUnavailableException extends RuntimeException {
+
+    private final int retryAfterSeconds;
+
+    public ServiceUnavailableException(String message, int retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
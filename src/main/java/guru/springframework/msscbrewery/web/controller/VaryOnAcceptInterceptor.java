@@ -0,0 +1,23 @@
+package guru.springframework.msscbrewery.web.controller;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Marks reads as varying on {@code Accept}: the same URL answers in JSON or CBOR, see {@link CborMessageConverter},
+ * so a shared cache must key on the header. Added before the handler runs so 304s carry it too.
+ */
+public class VaryOnAcceptInterceptor implements HandlerInterceptor {
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (("GET".equals(request.getMethod()) || "HEAD".equals(request.getMethod()))
+                && !response.getHeaders(HttpHeaders.VARY).contains(HttpHeaders.ACCEPT)) {
+            response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        }
+        return true;
+    }
+}
@@ -1,63 +1,293 @@
 package guru.springframework.msscbrewery.web.controller.v2;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import guru.springframework.msscbrewery.changes.BeerChangeFeed;
+import guru.springframework.msscbrewery.changes.ChangeSink;
 import guru.springframework.msscbrewery.services.v2.BeerServiceV2;
+import guru.springframework.msscbrewery.web.controller.ETags;
+import guru.springframework.msscbrewery.web.controller.IdempotentCreates;
+import guru.springframework.msscbrewery.web.controller.MediaTypes;
+import guru.springframework.msscbrewery.web.model.v2.BeerBatchResultDto;
 import guru.springframework.msscbrewery.web.model.v2.BeerDtoV2;
+import guru.springframework.msscbrewery.web.model.v2.BeerPageDtoV2;
+import guru.springframework.msscbrewery.web.model.v2.BeerStyleEnum;
+import guru.springframework.msscbrewery.web.model.v2.InventoryAdjustmentDto;
+import guru.springframework.msscbrewery.web.validation.DtoValidators;
+import guru.springframework.msscbrewery.web.validation.FieldViolation;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import javax.validation.Valid;
+import javax.servlet.http.HttpServletResponse;
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
 import javax.validation.constraints.NotNull;
-import java.text.MessageFormat;
+import javax.validation.constraints.Pattern;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 @Slf4j
 @Validated
 @RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @RequestMapping("/api/v2/beer")
 public class BeerControllerV2 {
     private static final String API_V2_BEER = "/api/v2/beer";
+    public static final String API_V2_BEER_EXPORT = API_V2_BEER + "/export";
+    public static final String API_V2_BEER_CHANGES = API_V2_BEER + "/changes";
+    private static final int BATCH_CHUNK_SIZE = 500;
+    private static final int MAX_PAGE_SIZE = 1000;
+    private static final int MAX_SEARCH_RESULTS = 100;
     private final BeerServiceV2 beerService;
-    private final String host;
-    private final String port;
+    private final BeerChangeFeed changeFeed;
+    private final ObjectReader beerReader;
+    private final BeerExportWriter exportWriter;
+    private final String locationPrefix;
+    private final IdempotentCreates idempotentCreates;
 
-    public BeerControllerV2(BeerServiceV2 beerService, @Value("${beer.app.host}") String host,  @Value("${beer.app.port}") String port) {
+    public BeerControllerV2(BeerServiceV2 beerService, BeerChangeFeed changeFeed, ObjectMapper objectMapper,
+                            @Value("${beer.app.host}") String host,  @Value("${beer.app.port}") String port,
+                            @Value("${brewery.idempotency.max-keys:10000}") long maxIdempotencyKeys,
+                            @Value("${brewery.idempotency.ttl-seconds:86400}") long idempotencyTtlSeconds) {
         this.beerService = beerService;
-        this.host = host;
-        this.port = port;
+        this.changeFeed = changeFeed;
+        this.beerReader = objectMapper.readerFor(BeerDtoV2.class);
+        this.exportWriter = new BeerExportWriter(objectMapper);
+        this.locationPrefix = host + ":" + port + API_V2_BEER + "/";
+        this.idempotentCreates = new IdempotentCreates(maxIdempotencyKeys, Duration.ofSeconds(idempotencyTtlSeconds));
     }
 
+    @GetMapping
+    public ResponseEntity<BeerPageDtoV2> listBeers(@RequestParam(value = "cursor", required = false) String cursor,
+                                                   @Min(1) @Max(MAX_PAGE_SIZE) @RequestParam(value = "limit", defaultValue = "25") int limit) {
+
+        return new ResponseEntity<>(beerService.listBeers(cursor, limit), HttpStatus.OK);
+    }
+
+    @GetMapping("/search")
+    public ResponseEntity<List<BeerDtoV2>> searchBeers(@NotNull @RequestParam("prefix") String prefix,
+                                                       @Min(1) @Max(MAX_SEARCH_RESULTS) @RequestParam(value = "limit", defaultValue = "10") int limit) {
+
+        return new ResponseEntity<>(beerService.searchBeers(prefix, limit), HttpStatus.OK);
+    }
+
+    @GetMapping("/facets/style")
+    public ResponseEntity<Map<BeerStyleEnum, Long>> getStyleFacets() {
+
+        return new ResponseEntity<>(beerService.countBeersByStyle(), HttpStatus.OK);
+    }
+
+    /**
+     * Streams the whole catalog as newline delimited JSON or CSV. Each beer is mapped and written while the store
+     * is iterated, on the MVC async executor, so memory stays flat whatever the catalog size. Beers saved or
+     * deleted during the export may or may not be in it.
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportBeers(@Pattern(regexp = "ndjson|csv")
+                                                             @RequestParam(value = "format", defaultValue = "ndjson") String format) {
+        final boolean csv = "csv".equals(format);
+        final Stream<BeerDtoV2> beers = beerService.streamBeers();
+        final StreamingResponseBody body = out -> {
+            try (beers) {
+                if (csv) {
+                    exportWriter.writeCsv(beers, out);
+                } else {
+                    exportWriter.writeNdjson(beers, out);
+                }
+            }
+        };
+
+        return ResponseEntity.ok()
+                .contentType(csv ? new MediaType(MediaTypes.TEXT_CSV, StandardCharsets.UTF_8) : MediaTypes.APPLICATION_NDJSON)
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.builder("attachment").filename("beers." + format).build().toString())
+                .body(body);
+    }
+
+    /**
+     * Server-sent events for beers created, updated and deleted from now on, or since {@code Last-Event-ID} on a
+     * reconnect. The events are written by the change feed's threads; the request holds none.
+     */
+    @GetMapping(path = "/changes", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<ResponseBodyEmitter> streamChanges(@RequestHeader(value = BeerChangeFeed.LAST_EVENT_ID, required = false) String lastEventId) {
+        final ResponseBodyEmitter emitter = new ResponseBodyEmitter();
+        final BeerChangeFeed.Subscription subscription = changeFeed.subscribe(lastEventId, new EmitterSink(emitter));
+        emitter.onCompletion(subscription::cancel);
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.TEXT_EVENT_STREAM)
+                .cacheControl(CacheControl.noStore())
+                // keeps nginx from buffering the stream
+                .header("X-Accel-Buffering", "no")
+                .body(emitter);
+    }
+
+    /**
+     * Answers 304 when If-None-Match still matches the beer's version, stock level and format, before the beer is
+     * mapped or serialized. Otherwise the ETag checkNotModified wrote is replaced with the tag of the beer actually
+     * sent, which a write landing in between may have made newer or older.
+     */
     @GetMapping({"/{beerId}"})
-    public ResponseEntity<BeerDtoV2> getBeer(@NotNull @PathVariable("beerId") UUID beerId) {
+    public ResponseEntity<BeerDtoV2> getBeer(@NotNull @PathVariable("beerId") UUID beerId, WebRequest request,
+                                             HttpServletResponse response) {
+        if (request.checkNotModified(ETags.negotiated(
+                ETags.of(beerService.getBeerVersion(beerId), beerService.getQuantityOnHand(beerId)), request))) {
+            return null;
+        }
+
+        final BeerDtoV2 beerDto = beerService.getBeerById(beerId);
+        response.setHeader(HttpHeaders.ETAG,
+                ETags.negotiated(ETags.of(beerDto.getVersion(), beerDto.getQuantityOnHand()), request));
+        return new ResponseEntity<>(beerDto, HttpStatus.OK);
+    }
 
-        return new ResponseEntity<>(beerService.getBeerById(beerId), HttpStatus.OK);
+    @GetMapping("/upc/{upc}")
+    public ResponseEntity<BeerDtoV2> getBeerByUpc(@PathVariable("upc") long upc) {
+
+        return new ResponseEntity<>(beerService.getBeerByUpc(upc), HttpStatus.OK);
     }
 
+    /**
+     * A retry carrying the {@code Idempotency-Key} of an earlier create answers with that beer's Location.
+     */
     @PostMapping
-    public ResponseEntity handlePost(@Valid @NotNull @RequestBody BeerDtoV2 beerDto) {
-        BeerDtoV2 savedDto = beerService.saveNewBeer(beerDto);
+    public ResponseEntity handlePost(@RequestHeader(value = IdempotentCreates.IDEMPOTENCY_KEY, required = false) String idempotencyKey,
+                                     @Validated @NotNull @RequestBody BeerDtoV2 beerDto) {
+        final IdempotentCreates.Created created = idempotentCreates.create(idempotencyKey, () -> {
+            final UUID id = beerService.saveNewBeer(beerDto).getId();
+            return new IdempotentCreates.Created(id, locationPrefix + id);
+        });
 
         HttpHeaders headers = new HttpHeaders();
-        headers.add("Location", MessageFormat.format("{0}:{1}{2}/{3}", this.host, this.port, API_V2_BEER, savedDto.getId()));
+        headers.add("Location", created.getLocation());
 
         return new ResponseEntity(headers, HttpStatus.CREATED);
 
     }
 
+    /**
+     * Creates beers from a JSON array or from newline delimited JSON. The body is parsed, validated and saved
+     * in chunks while it streams in, so only one chunk of beers is ever held in memory. Parsing stops at the first
+     * malformed document, which gets the last result; the beers before it are still saved and their ids answered,
+     * so a client only needs to resend from that index.
+     */
+    @PostMapping(path = "/batch", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaTypes.APPLICATION_NDJSON_VALUE})
+    public ResponseEntity<List<BeerBatchResultDto>> handleBatchPost(InputStream body) throws IOException {
+        final List<BeerBatchResultDto> results = new ArrayList<>();
+        final List<BeerDtoV2> chunk = new ArrayList<>(BATCH_CHUNK_SIZE);
+        final List<BeerBatchResultDto> chunkResults = new ArrayList<>(BATCH_CHUNK_SIZE);
+
+        int index = 0;
+        try (MappingIterator<BeerDtoV2> beers = beerReader.readValues(body)) {
+            while (beers.hasNextValue()) {
+                final BeerDtoV2 beerDto = beers.nextValue();
+                final BeerBatchResultDto result = BeerBatchResultDto.builder().index(index++).build();
+                results.add(result);
+
+                final List<FieldViolation> violations = DtoValidators.violationsOf(beerDto);
+                if (violations.isEmpty()) {
+                    chunk.add(beerDto);
+                    chunkResults.add(result);
+                    if (chunk.size() == BATCH_CHUNK_SIZE) {
+                        saveChunk(chunk, chunkResults);
+                    }
+                } else {
+                    final List<String> errors = new ArrayList<>(violations.size());
+                    violations.forEach(violation -> errors.add(violation.toString()));
+                    result.setErrors(errors);
+                }
+            }
+        } catch (JsonProcessingException e) {
+            // the parser cannot find the start of the next document after a broken one
+            results.add(BeerBatchResultDto.builder()
+                    .index(index)
+                    .errors(List.of(String.valueOf(e.getOriginalMessage())))
+                    .build());
+        }
+        saveChunk(chunk, chunkResults);
+
+        return new ResponseEntity<>(results, HttpStatus.OK);
+    }
+
     @PutMapping("/{beerId}")
-    public ResponseEntity handleUpdate(@PathVariable UUID beerId, @Valid @RequestBody BeerDtoV2 beerDto) {
+    public ResponseEntity handleUpdate(@PathVariable UUID beerId, @Validated @RequestBody BeerDtoV2 beerDto) {
         beerService.updateBeer(beerId, beerDto);
         return new ResponseEntity(HttpStatus.NO_CONTENT);
     }
 
+    /**
+     * Adds stock with a positive delta and takes it with a negative one. Taking more than is on hand answers 409
+     * and changes nothing.
+     */
+    @PostMapping("/{beerId}/inventory/adjust")
+    public ResponseEntity handleInventoryAdjust(@PathVariable UUID beerId,
+                                                @Validated @RequestBody InventoryAdjustmentDto adjustment) {
+        if (!beerService.adjustInventory(beerId, adjustment.getDelta())) {
+            return new ResponseEntity<>(List.of("Not enough of beer " + beerId + " on hand"), HttpStatus.CONFLICT);
+        }
+        return new ResponseEntity(HttpStatus.NO_CONTENT);
+    }
+
     @DeleteMapping("/{beerId}")
     @ResponseStatus(HttpStatus.NO_CONTENT)
     public void deleteBeer(@PathVariable UUID beerId) {
         beerService.deleteBeer(beerId);
     }
 
+    private void saveChunk(List<BeerDtoV2> chunk, List<BeerBatchResultDto> chunkResults) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+
+        final List<BeerBatchResultDto> saved = beerService.saveNewBeers(chunk);
+        for (int i = 0; i < saved.size(); i++) {
+            chunkResults.get(i).setId(saved.get(i).getId());
+            chunkResults.get(i).setErrors(saved.get(i).getErrors());
+        }
+        chunk.clear();
+        chunkResults.clear();
+    }
+
+    /**
+     * Writes the feed's frames as they are, one converter call and flush per batch.
+     */
+    private static final class EmitterSink implements ChangeSink {
+
+        private final ResponseBodyEmitter emitter;
+
+        private EmitterSink(ResponseBodyEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        @Override
+        public void send(byte[] frames) throws IOException {
+            emitter.send(frames, MediaType.TEXT_EVENT_STREAM);
+        }
+
+        @Override
+        public void close() {
+            emitter.complete();
+        }
+    }
 }
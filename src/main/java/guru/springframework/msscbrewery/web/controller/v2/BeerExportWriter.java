@@ -0,0 +1,110 @@
+package guru.springframework.msscbrewery.web.controller.v2;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import guru.springframework.msscbrewery.web.model.v2.BeerDtoV2;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Writes beers to a response as they are pulled from a stream, through one fixed size buffer per export. Nothing
+ * is flushed per beer: the buffer goes out whenever it fills and once more at the end.
+ */
+class BeerExportWriter {
+
+    static final String CSV_HEADER = "id,version,beerName,beerStyle,upc,createdDate,lastUpdatedDate,quantityOnHand\r\n";
+
+    private static final int CSV_BUFFER_SIZE = 8192;
+
+    private final ObjectMapper objectMapper;
+    private final ObjectWriter beerWriter;
+
+    BeerExportWriter(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+        this.beerWriter = objectMapper.writerFor(BeerDtoV2.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    }
+
+    /**
+     * One JSON document per line. The generator's buffer is recycled by Jackson across exports.
+     */
+    void writeNdjson(Stream<BeerDtoV2> beers, OutputStream out) throws IOException {
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.setRootValueSeparator(null);
+            for (Iterator<BeerDtoV2> it = beers.iterator(); it.hasNext(); ) {
+                beerWriter.writeValue(generator, it.next());
+                generator.writeRaw('\n');
+            }
+        }
+    }
+
+    /**
+     * RFC 4180 CSV with a header row, so the file reads back the way customer imports are read.
+     */
+    void writeCsv(Stream<BeerDtoV2> beers, OutputStream out) throws IOException {
+        final Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), CSV_BUFFER_SIZE);
+        writer.write(CSV_HEADER);
+        for (Iterator<BeerDtoV2> it = beers.iterator(); it.hasNext(); ) {
+            final BeerDtoV2 beer = it.next();
+            writeField(writer, beer.getId());
+            writer.write(',');
+            writeField(writer, beer.getVersion());
+            writer.write(',');
+            writeField(writer, beer.getBeerName());
+            writer.write(',');
+            writeField(writer, beer.getBeerStyle());
+            writer.write(',');
+            writeField(writer, beer.getUpc());
+            writer.write(',');
+            writeField(writer, beer.getCreatedDate());
+            writer.write(',');
+            writeField(writer, beer.getLastUpdatedDate());
+            writer.write(',');
+            writeField(writer, beer.getQuantityOnHand());
+            writer.write("\r\n");
+        }
+        writer.flush();
+    }
+
+    private static void writeField(Writer writer, Object field) throws IOException {
+        if (field == null) {
+            return;
+        }
+
+        final String value = field.toString();
+        if (!needsQuotes(value)) {
+            writer.write(value);
+            return;
+        }
+
+        writer.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            if (c == '"') {
+                writer.write('"');
+            }
+            writer.write(c);
+        }
+        writer.write('"');
+    }
+
+    private static boolean needsQuotes(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            if (c == ',' || c == '"' || c == '\r' || c == '\n') {
+                return true;
+            }
+        }
+        return false;
+    }
+}
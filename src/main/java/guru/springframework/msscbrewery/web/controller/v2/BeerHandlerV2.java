@@ -0,0 +1,194 @@
+package guru.springframework.msscbrewery.web.controller.v2;
+
+import guru.springframework.msscbrewery.repositories.DuplicateUpcException;
+import guru.springframework.msscbrewery.services.v2.ReactiveBeerServiceV2;
+import guru.springframework.msscbrewery.web.controller.BadRequestException;
+import guru.springframework.msscbrewery.web.controller.ETags;
+import guru.springframework.msscbrewery.web.controller.NotFoundException;
+import guru.springframework.msscbrewery.web.model.v2.BeerDtoV2;
+import guru.springframework.msscbrewery.web.model.v2.InventoryAdjustmentDto;
+import guru.springframework.msscbrewery.web.validation.DtoValidators;
+import guru.springframework.msscbrewery.web.validation.FieldViolation;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.server.HandlerFunction;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import org.springframework.web.server.ServerWebInputException;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * WebFlux handlers for {@code /api/v2/beer}, the reactive counterpart of {@link BeerControllerV2} with the same
+ * status codes and error bodies. Bodies are checked with {@link DtoValidators}, as the servlet stack checks them.
+ * Only active when the application runs as a reactive web application.
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class BeerHandlerV2 {
+    private static final int DEFAULT_PAGE_SIZE = 25;
+    private static final int MAX_PAGE_SIZE = 1000;
+    private static final int DEFAULT_SEARCH_RESULTS = 10;
+    private static final int MAX_SEARCH_RESULTS = 100;
+    private final ReactiveBeerServiceV2 beerService;
+    private final String locationPrefix;
+
+    public BeerHandlerV2(ReactiveBeerServiceV2 beerService,
+                         @Value("${beer.app.host}") String host, @Value("${beer.app.port}") String port) {
+        this.beerService = beerService;
+        this.locationPrefix = host + ":" + port + BeerRoutesV2.API_V2_BEER + "/";
+    }
+
+    public Mono<ServerResponse> listBeers(ServerRequest request) {
+        final int limit = intParam(request, "limit", DEFAULT_PAGE_SIZE, MAX_PAGE_SIZE);
+
+        return beerService.listBeers(request.queryParam("cursor").orElse(null), limit)
+                .flatMap(page -> ServerResponse.ok().bodyValue(page));
+    }
+
+    public Mono<ServerResponse> searchBeers(ServerRequest request) {
+        final String prefix = request.queryParam("prefix").orElseThrow(() -> new BadRequestException("prefix: must not be null"));
+        final int limit = intParam(request, "limit", DEFAULT_SEARCH_RESULTS, MAX_SEARCH_RESULTS);
+
+        return beerService.searchBeers(prefix, limit)
+                .collectList()
+                .flatMap(beers -> ServerResponse.ok().bodyValue(beers));
+    }
+
+    public Mono<ServerResponse> getStyleFacets(ServerRequest request) {
+        return beerService.countBeersByStyle()
+                .flatMap(counts -> ServerResponse.ok().bodyValue(counts));
+    }
+
+    /**
+     * Answers 304 when If-None-Match still matches the beer's version and stock level, before the beer is mapped or
+     * serialized.
+     */
+    public Mono<ServerResponse> getBeer(ServerRequest request) {
+        final UUID beerId = beerId(request);
+
+        return beerService.getBeerVersion(beerId)
+                .zipWith(beerService.getQuantityOnHand(beerId),
+                        (version, quantityOnHand) -> ETags.of(version, quantityOnHand))
+                .flatMap(etag -> request.checkNotModified(etag))
+                .switchIfEmpty(Mono.defer(() -> beerService.getBeerById(beerId)
+                        .flatMap(beer -> ServerResponse.ok()
+                                .headers(headers -> headers.setETag(ETags.of(beer.getVersion(), beer.getQuantityOnHand())))
+                                .bodyValue(beer))));
+    }
+
+    public Mono<ServerResponse> getBeerByUpc(ServerRequest request) {
+        final long upc;
+        try {
+            upc = Long.parseLong(request.pathVariable("upc"));
+        } catch (NumberFormatException e) {
+            throw new BadRequestException("upc: must be a number");
+        }
+
+        return beerService.getBeerByUpc(upc)
+                .flatMap(beer -> ServerResponse.ok().bodyValue(beer));
+    }
+
+    public Mono<ServerResponse> saveNewBeer(ServerRequest request) {
+        return validBody(request, BeerDtoV2.class)
+                .flatMap(beerService::saveNewBeer)
+                .flatMap(saved -> ServerResponse.created(URI.create(locationPrefix + saved.getId())).build());
+    }
+
+    public Mono<ServerResponse> updateBeer(ServerRequest request) {
+        final UUID beerId = beerId(request);
+
+        return validBody(request, BeerDtoV2.class)
+                .flatMap(beerDto -> beerService.updateBeer(beerId, beerDto))
+                .then(ServerResponse.noContent().build());
+    }
+
+    public Mono<ServerResponse> deleteBeer(ServerRequest request) {
+        return beerService.deleteBeer(beerId(request))
+                .then(ServerResponse.noContent().build());
+    }
+
+    public Mono<ServerResponse> adjustInventory(ServerRequest request) {
+        final UUID beerId = beerId(request);
+
+        return validBody(request, InventoryAdjustmentDto.class)
+                .flatMap(adjustment -> beerService.adjustInventory(beerId, adjustment.getDelta()))
+                .flatMap(adjusted -> adjusted ? ServerResponse.noContent().build()
+                        : errors(HttpStatus.CONFLICT, List.of("Not enough of beer " + beerId + " on hand")));
+    }
+
+    /**
+     * Route filter doing what {@link guru.springframework.msscbrewery.web.controller.MvcExceptionHandler} does
+     * for the servlet stack.
+     */
+    public Mono<ServerResponse> handleErrors(ServerRequest request, HandlerFunction<ServerResponse> next) {
+        return Mono.defer(() -> next.handle(request))
+                .onErrorResume(NotFoundException.class, e -> ServerResponse.notFound().build())
+                .onErrorResume(BadRequestException.class, e -> errors(HttpStatus.BAD_REQUEST, List.of(e.getMessage())))
+                .onErrorResume(InvalidBodyException.class, e -> errors(HttpStatus.BAD_REQUEST, e.errors))
+                .onErrorResume(ServerWebInputException.class,
+                        e -> errors(HttpStatus.BAD_REQUEST, List.of(String.valueOf(e.getReason()))))
+                .onErrorResume(DuplicateUpcException.class, e -> errors(HttpStatus.CONFLICT, List.of(e.getMessage())));
+    }
+
+    private <T> Mono<T> validBody(ServerRequest request, Class<T> type) {
+        return request.bodyToMono(type)
+                .switchIfEmpty(Mono.defer(() -> Mono.error(new BadRequestException("Required request body is missing"))))
+                .doOnNext(body -> {
+                    final List<FieldViolation> violations = DtoValidators.violationsOf(body);
+                    if (!violations.isEmpty()) {
+                        throw new InvalidBodyException(violations);
+                    }
+                });
+    }
+
+    private static UUID beerId(ServerRequest request) {
+        try {
+            return UUID.fromString(request.pathVariable("beerId"));
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("beerId: must be a UUID");
+        }
+    }
+
+    private static int intParam(ServerRequest request, String name, int defaultValue, int max) {
+        final String value = request.queryParam(name).orElse(null);
+        if (value == null) {
+            return defaultValue;
+        }
+
+        final int parsed;
+        try {
+            parsed = Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new BadRequestException(name + ": must be a number");
+        }
+        if (parsed < 1 || parsed > max) {
+            throw new BadRequestException(name + ": must be between 1 and " + max);
+        }
+        return parsed;
+    }
+
+    private static Mono<ServerResponse> errors(HttpStatus status, List<String> errors) {
+        return ServerResponse.status(status).bodyValue(errors);
+    }
+
+    /**
+     * A request body failing its constraints, answered with {@code field: message} per violation.
+     */
+    private static final class InvalidBodyException extends RuntimeException {
+
+        final List<String> errors;
+
+        InvalidBodyException(List<FieldViolation> violations) {
+            super(null, null, false, false);
+            this.errors = new ArrayList<>(violations.size());
+            violations.forEach(violation -> errors.add(violation.toString()));
+        }
+    }
+}
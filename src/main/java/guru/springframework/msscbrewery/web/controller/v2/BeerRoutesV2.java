@@ -0,0 +1,33 @@
+package guru.springframework.msscbrewery.web.controller.v2;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerResponse;
+
+/**
+ * Functional WebFlux routes for the v2 beer API, selected with the {@code reactive} profile.
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class BeerRoutesV2 {
+    static final String API_V2_BEER = "/api/v2/beer";
+
+    @Bean
+    public RouterFunction<ServerResponse> beerRoutesV2(BeerHandlerV2 beerHandler) {
+        return RouterFunctions.route()
+                .GET(API_V2_BEER, beerHandler::listBeers)
+                .GET(API_V2_BEER + "/search", beerHandler::searchBeers)
+                .GET(API_V2_BEER + "/facets/style", beerHandler::getStyleFacets)
+                .GET(API_V2_BEER + "/upc/{upc}", beerHandler::getBeerByUpc)
+                .GET(API_V2_BEER + "/{beerId}", beerHandler::getBeer)
+                .POST(API_V2_BEER, beerHandler::saveNewBeer)
+                .PUT(API_V2_BEER + "/{beerId}", beerHandler::updateBeer)
+                .POST(API_V2_BEER + "/{beerId}/inventory/adjust", beerHandler::adjustInventory)
+                .DELETE(API_V2_BEER + "/{beerId}", beerHandler::deleteBeer)
+                .filter(beerHandler::handleErrors)
+                .build();
+    }
+}
@@ -3,12 +3,32 @@ package guru.springframework.msscbrewery.web.mapper;
 import guru.springframework.msscbrewery.domain.Beer;
 import guru.springframework.msscbrewery.web.model.v2.BeerDtoV2;
 import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+
+import java.util.List;
+import java.util.stream.Stream;
 
 @Mapper(uses = {DateMapper.class})
 public interface BeerMapper {
 
+    @Mapping(target = "quantityOnHand", ignore = true)
     BeerDtoV2 beerToBeerDto(Beer beer);
 
+    @Mapping(target = "version", ignore = true)
     Beer beerDtoToBeer(BeerDtoV2 beerDto);
 
+    /**
+     * Generated with an output list presized to {@code beers.size()}.
+     */
+    List<BeerDtoV2> beersToBeerDtos(List<Beer> beers);
+
+    List<Beer> beerDtosToBeers(List<BeerDtoV2> beerDtos);
+
+    /**
+     * Maps lazily, one element at a time, for exports that should not hold the whole result.
+     */
+    default Stream<BeerDtoV2> beersToBeerDtos(Stream<Beer> beers) {
+        return beers.map(this::beerToBeerDto);
+    }
+
 }
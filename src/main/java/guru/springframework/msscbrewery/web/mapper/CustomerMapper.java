@@ -3,12 +3,31 @@ package guru.springframework.msscbrewery.web.mapper;
 import guru.springframework.msscbrewery.domain.Customer;
 import guru.springframework.msscbrewery.web.model.CustomerDto;
 import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+
+import java.util.List;
+import java.util.stream.Stream;
 
 @Mapper
 public interface CustomerMapper {
 
+    @Mapping(target = "version", ignore = true)
     Customer customerDtoToCustomer(CustomerDto customerDto);
 
     CustomerDto customerToCustomerDto(Customer customer);
 
+    /**
+     * Generated with an output list presized to {@code customers.size()}.
+     */
+    List<CustomerDto> customersToCustomerDtos(List<Customer> customers);
+
+    List<Customer> customerDtosToCustomers(List<CustomerDto> customerDtos);
+
+    /**
+     * Maps lazily, one element at a time, for exports that should not hold the whole result.
+     */
+    default Stream<CustomerDto> customersToCustomerDtos(Stream<Customer> customers) {
+        return customers.map(this::customerToCustomerDto);
+    }
+
 }
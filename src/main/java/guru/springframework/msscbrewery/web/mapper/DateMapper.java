@@ -7,19 +7,16 @@ import java.time.LocalDateTime;
 import java.time.OffsetDateTime;
 import java.time.ZoneOffset;
 
+/**
+ * Converts through epoch seconds and nanos, so neither direction builds an intermediate {@code ZonedDateTime},
+ * {@code Instant} or default-zone {@code LocalDateTime}.
+ */
 @Component
 public class DateMapper {
     public OffsetDateTime asOffsetDateTime(Timestamp ts) {
         if(ts != null) {
-            final LocalDateTime localDateTime = ts.toLocalDateTime();
-            return OffsetDateTime.of(localDateTime.getYear(),
-                    localDateTime.getMonthValue(),
-                    localDateTime.getDayOfMonth(),
-                    localDateTime.getHour(),
-                    localDateTime.getMinute(),
-                    localDateTime.getSecond(),
-                    localDateTime.getNano(),
-                    ZoneOffset.UTC);
+            final long epochSecond = Math.floorDiv(ts.getTime(), 1000L);
+            return OffsetDateTime.of(LocalDateTime.ofEpochSecond(epochSecond, ts.getNanos(), ZoneOffset.UTC), ZoneOffset.UTC);
         } else {
             return null;
         }
@@ -27,9 +24,9 @@ public class DateMapper {
 
     public Timestamp asTimestamp(OffsetDateTime offsetDateTime) {
         if(offsetDateTime != null) {
-            return Timestamp.valueOf(offsetDateTime
-                    .atZoneSameInstant(ZoneOffset.UTC)
-                    .toLocalDateTime());
+            final Timestamp timestamp = new Timestamp(offsetDateTime.toEpochSecond() * 1000L);
+            timestamp.setNanos(offsetDateTime.getNano());
+            return timestamp;
         } else {
             return null;
         }
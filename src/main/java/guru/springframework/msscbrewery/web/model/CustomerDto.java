@@ -1,5 +1,6 @@
 package guru.springframework.msscbrewery.web.model;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -18,6 +19,9 @@ public class CustomerDto {
     @Null
     private UUID id;
 
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Long version;
+
     @NotNull
     @Size(min = 3, max = 100)
     private String name;
@@ -0,0 +1,20 @@
+package guru.springframework.msscbrewery.web.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * A rejected row of an import, numbered from 1 in data rows, not counting a CSV header.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CustomerImportErrorDto {
+    private long row;
+    private List<String> errors;
+}
@@ -0,0 +1,22 @@
+package guru.springframework.msscbrewery.web.model.v2;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Outcome of one item of a batch create. {@code id} is set when the beer was created, {@code errors} otherwise.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BeerBatchResultDto {
+    private int index;
+    private UUID id;
+    private List<String> errors;
+}
@@ -0,0 +1,24 @@
+package guru.springframework.msscbrewery.web.model.v2;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+/**
+ * One event of the beer change feed. {@code beer} is the beer after the change, null for deletes and moves, and
+ * {@code version} the version written, or one past the last version for deletes and moves. Two concurrent writes to one
+ * beer may be published in either order, so keep the highest version seen per beer.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BeerChangeDto {
+    private BeerChangeType type;
+    private UUID beerId;
+    private Long version;
+    private BeerDtoV2 beer;
+}
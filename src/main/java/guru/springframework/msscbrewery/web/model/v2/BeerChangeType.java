@@ -0,0 +1,9 @@
+package guru.springframework.msscbrewery.web.model.v2;
+
+/**
+ * {@code MOVED} is sent in cluster mode by a member handing a beer to its new owner, which sends it as
+ * {@code CREATED}: the beer still exists, but no longer in this member's share.
+ */
+public enum BeerChangeType {
+    CREATED, UPDATED, DELETED, MOVED
+}
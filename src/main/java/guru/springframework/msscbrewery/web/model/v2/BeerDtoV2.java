@@ -1,5 +1,6 @@
 package guru.springframework.msscbrewery.web.model.v2;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -14,11 +15,14 @@ import java.util.UUID;
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
-@Builder
+@Builder(toBuilder = true)
 public class BeerDtoV2 {
     @Null
     private UUID id;
 
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Long version;
+
     @NotNull
     private String beerName;
 
@@ -30,4 +34,10 @@ public class BeerDtoV2 {
 
     private OffsetDateTime createdDate;
     private OffsetDateTime lastUpdatedDate;
+
+    /**
+     * Stock level when the beer was read; changed through the inventory endpoint only.
+     */
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Long quantityOnHand;
 }
@@ -0,0 +1,21 @@
+package guru.springframework.msscbrewery.web.model.v2;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * One page of beers. Pass {@code nextCursor} back as {@code cursor} to get the following page; it is null on
+ * the last page.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BeerPageDtoV2 {
+    private List<BeerDtoV2> content;
+    private String nextCursor;
+}
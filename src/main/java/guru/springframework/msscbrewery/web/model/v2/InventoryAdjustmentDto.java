@@ -0,0 +1,26 @@
+package guru.springframework.msscbrewery.web.model.v2;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
+
+/**
+ * Change to a beer's stock: positive to add units, negative to take them.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class InventoryAdjustmentDto {
+    public static final long MAX_DELTA = 1_000_000;
+
+    @NotNull
+    @Min(-MAX_DELTA)
+    @Max(MAX_DELTA)
+    private Long delta;
+}
@@ -0,0 +1,28 @@
+package guru.springframework.msscbrewery.web.validation;
+
+import guru.springframework.msscbrewery.web.model.v2.BeerDtoV2;
+
+import java.util.List;
+
+import static guru.springframework.msscbrewery.web.validation.Constraints.isNull;
+import static guru.springframework.msscbrewery.web.validation.Constraints.none;
+import static guru.springframework.msscbrewery.web.validation.Constraints.notNull;
+import static guru.springframework.msscbrewery.web.validation.Constraints.positive;
+
+class BeerDtoV2Validator implements DtoValidator<BeerDtoV2> {
+
+    @Override
+    public Class<BeerDtoV2> getType() {
+        return BeerDtoV2.class;
+    }
+
+    @Override
+    public List<FieldViolation> validate(BeerDtoV2 dto) {
+        List<FieldViolation> violations = none();
+        violations = isNull("id", dto.getId(), violations);
+        violations = notNull("beerName", dto.getBeerName(), violations);
+        violations = notNull("beerStyle", dto.getBeerStyle(), violations);
+        violations = positive("upc", dto.getUpc(), violations);
+        return violations;
+    }
+}
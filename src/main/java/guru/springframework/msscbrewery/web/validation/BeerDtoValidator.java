@@ -0,0 +1,28 @@
+package guru.springframework.msscbrewery.web.validation;
+
+import guru.springframework.msscbrewery.web.model.BeerDto;
+
+import java.util.List;
+
+import static guru.springframework.msscbrewery.web.validation.Constraints.isNull;
+import static guru.springframework.msscbrewery.web.validation.Constraints.none;
+import static guru.springframework.msscbrewery.web.validation.Constraints.notNull;
+import static guru.springframework.msscbrewery.web.validation.Constraints.positive;
+
+class BeerDtoValidator implements DtoValidator<BeerDto> {
+
+    @Override
+    public Class<BeerDto> getType() {
+        return BeerDto.class;
+    }
+
+    @Override
+    public List<FieldViolation> validate(BeerDto dto) {
+        List<FieldViolation> violations = none();
+        violations = isNull("id", dto.getId(), violations);
+        violations = notNull("beerName", dto.getBeerName(), violations);
+        violations = notNull("beerStyle", dto.getBeerStyle(), violations);
+        violations = positive("upc", dto.getUpc(), violations);
+        return violations;
+    }
+}
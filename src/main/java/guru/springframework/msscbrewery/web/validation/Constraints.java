@@ -0,0 +1,58 @@
+package guru.springframework.msscbrewery.web.validation;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The built-in constraints the DTOs use, with Hibernate Validator's default messages. Each check returns the list
+ * it was given, or a new one holding the added violation, so a valid DTO allocates nothing.
+ */
+final class Constraints {
+
+    private static final Object[] NO_ATTRIBUTES = new Object[0];
+
+    private Constraints() {
+    }
+
+    static List<FieldViolation> none() {
+        return Collections.emptyList();
+    }
+
+    static List<FieldViolation> isNull(String field, Object value, List<FieldViolation> violations) {
+        return value == null ? violations : add(violations, field, "Null", NO_ATTRIBUTES, "must be null");
+    }
+
+    static List<FieldViolation> notNull(String field, Object value, List<FieldViolation> violations) {
+        return value != null ? violations : add(violations, field, "NotNull", NO_ATTRIBUTES, "must not be null");
+    }
+
+    static List<FieldViolation> positive(String field, Long value, List<FieldViolation> violations) {
+        return value == null || value > 0 ? violations
+                : add(violations, field, "Positive", NO_ATTRIBUTES, "must be greater than 0");
+    }
+
+    static List<FieldViolation> min(String field, Long value, long min, List<FieldViolation> violations) {
+        return value == null || value >= min ? violations
+                : add(violations, field, "Min", new Object[]{min}, "must be greater than or equal to " + min);
+    }
+
+    static List<FieldViolation> max(String field, Long value, long max, List<FieldViolation> violations) {
+        return value == null || value <= max ? violations
+                : add(violations, field, "Max", new Object[]{max}, "must be less than or equal to " + max);
+    }
+
+    static List<FieldViolation> size(String field, CharSequence value, int min, int max, List<FieldViolation> violations) {
+        if (value == null || value.length() >= min && value.length() <= max) {
+            return violations;
+        }
+        return add(violations, field, "Size", new Object[]{max, min}, "size must be between " + min + " and " + max);
+    }
+
+    private static List<FieldViolation> add(List<FieldViolation> violations, String field, String constraint,
+                                            Object[] attributes, String message) {
+        final List<FieldViolation> target = violations.isEmpty() ? new ArrayList<>(2) : violations;
+        target.add(new FieldViolation(field, constraint, attributes, message));
+        return target;
+    }
+}
@@ -0,0 +1,27 @@
+package guru.springframework.msscbrewery.web.validation;
+
+import guru.springframework.msscbrewery.web.model.CustomerDto;
+
+import java.util.List;
+
+import static guru.springframework.msscbrewery.web.validation.Constraints.isNull;
+import static guru.springframework.msscbrewery.web.validation.Constraints.none;
+import static guru.springframework.msscbrewery.web.validation.Constraints.notNull;
+import static guru.springframework.msscbrewery.web.validation.Constraints.size;
+
+class CustomerDtoValidator implements DtoValidator<CustomerDto> {
+
+    @Override
+    public Class<CustomerDto> getType() {
+        return CustomerDto.class;
+    }
+
+    @Override
+    public List<FieldViolation> validate(CustomerDto dto) {
+        List<FieldViolation> violations = none();
+        violations = isNull("id", dto.getId(), violations);
+        violations = notNull("name", dto.getName(), violations);
+        violations = size("name", dto.getName(), 3, 100, violations);
+        return violations;
+    }
+}
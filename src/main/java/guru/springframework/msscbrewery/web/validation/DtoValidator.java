@@ -0,0 +1,16 @@
+package guru.springframework.msscbrewery.web.validation;
+
+import java.util.List;
+
+/**
+ * Checks the Bean Validation constraints declared on one DTO type with plain getter calls.
+ */
+public interface DtoValidator<T> {
+
+    Class<T> getType();
+
+    /**
+     * @return the violations in field declaration order, an empty immutable list when the DTO is valid.
+     */
+    List<FieldViolation> validate(T dto);
+}
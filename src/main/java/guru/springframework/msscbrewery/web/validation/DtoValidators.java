@@ -0,0 +1,97 @@
+package guru.springframework.msscbrewery.web.validation;
+
+import org.springframework.context.support.DefaultMessageSourceResolvable;
+import org.springframework.validation.Errors;
+import org.springframework.validation.SmartValidator;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Validates the request DTOs with plain Java {@link DtoValidator}s instead of Hibernate Validator's reflective walk
+ * over their annotations. Field errors get the codes, arguments and default messages
+ * {@link org.springframework.validation.beanvalidation.SpringValidatorAdapter} would give them, so message
+ * resolution and error responses do not change. Other types and validation groups go to the fallback.
+ *
+ * {@code DtoValidatorsTest} checks the validators against Hibernate Validator and fails when a DTO gains a
+ * constraint its validator does not check.
+ */
+public class DtoValidators implements SmartValidator {
+
+    private static final Map<Class<?>, DtoValidator<?>> VALIDATORS =
+            index(new BeerDtoValidator(), new BeerDtoV2Validator(), new CustomerDtoValidator(),
+                    new InventoryAdjustmentDtoValidator());
+
+    private final SmartValidator fallback;
+
+    public DtoValidators(SmartValidator fallback) {
+        this.fallback = fallback;
+    }
+
+    /**
+     * @return the violations of {@code dto}, in field declaration order.
+     * @throws IllegalArgumentException when {@code dto} has no hand-written validator.
+     */
+    public static List<FieldViolation> violationsOf(Object dto) {
+        final DtoValidator<Object> validator = validatorFor(dto.getClass());
+        if (validator == null) {
+            throw new IllegalArgumentException("No validator for " + dto.getClass().getName());
+        }
+        return validator.validate(dto);
+    }
+
+    @Override
+    public boolean supports(Class<?> clazz) {
+        return VALIDATORS.containsKey(clazz) || fallback.supports(clazz);
+    }
+
+    @Override
+    public void validate(Object target, Errors errors) {
+        final DtoValidator<Object> validator = validatorFor(target.getClass());
+        if (validator == null) {
+            fallback.validate(target, errors);
+            return;
+        }
+
+        for (FieldViolation violation : validator.validate(target)) {
+            errors.rejectValue(violation.getField(), violation.getConstraint(),
+                    arguments(errors.getObjectName(), violation), violation.getMessage());
+        }
+    }
+
+    @Override
+    public void validate(Object target, Errors errors, Object... validationHints) {
+        if (validationHints.length == 0) {
+            validate(target, errors);
+        } else {
+            fallback.validate(target, errors, validationHints);
+        }
+    }
+
+    /**
+     * The field as a resolvable first, then the constraint attributes, like SpringValidatorAdapter.
+     */
+    private static Object[] arguments(String objectName, FieldViolation violation) {
+        final Object[] attributes = violation.getAttributes();
+        final Object[] arguments = new Object[attributes.length + 1];
+        final String field = violation.getField();
+        arguments[0] = new DefaultMessageSourceResolvable(
+                new String[]{objectName + Errors.NESTED_PATH_SEPARATOR + field, field}, field);
+        System.arraycopy(attributes, 0, arguments, 1, attributes.length);
+        return arguments;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static DtoValidator<Object> validatorFor(Class<?> type) {
+        return (DtoValidator<Object>) VALIDATORS.get(type);
+    }
+
+    private static Map<Class<?>, DtoValidator<?>> index(DtoValidator<?>... validators) {
+        final Map<Class<?>, DtoValidator<?>> index = new HashMap<>();
+        for (DtoValidator<?> validator : validators) {
+            index.put(validator.getType(), validator);
+        }
+        return index;
+    }
+}
@@ -0,0 +1,29 @@
+package guru.springframework.msscbrewery.web.validation;
+
+import lombok.Value;
+
+/**
+ * One failed constraint on a DTO field, named and worded the way Hibernate Validator reports it.
+ */
+@Value
+public class FieldViolation {
+
+    String field;
+
+    /**
+     * Simple name of the constraint annotation, the error code Spring derives message codes from.
+     */
+    String constraint;
+
+    /**
+     * Annotation attributes other than message, groups and payload, ordered by attribute name.
+     */
+    Object[] attributes;
+
+    String message;
+
+    @Override
+    public String toString() {
+        return field + ": " + message;
+    }
+}
@@ -0,0 +1,27 @@
+package guru.springframework.msscbrewery.web.validation;
+
+import guru.springframework.msscbrewery.web.model.v2.InventoryAdjustmentDto;
+
+import java.util.List;
+
+import static guru.springframework.msscbrewery.web.validation.Constraints.max;
+import static guru.springframework.msscbrewery.web.validation.Constraints.min;
+import static guru.springframework.msscbrewery.web.validation.Constraints.none;
+import static guru.springframework.msscbrewery.web.validation.Constraints.notNull;
+
+class InventoryAdjustmentDtoValidator implements DtoValidator<InventoryAdjustmentDto> {
+
+    @Override
+    public Class<InventoryAdjustmentDto> getType() {
+        return InventoryAdjustmentDto.class;
+    }
+
+    @Override
+    public List<FieldViolation> validate(InventoryAdjustmentDto dto) {
+        List<FieldViolation> violations = none();
+        violations = notNull("delta", dto.getDelta(), violations);
+        violations = min("delta", dto.getDelta(), -InventoryAdjustmentDto.MAX_DELTA, violations);
+        violations = max("delta", dto.getDelta(), InventoryAdjustmentDto.MAX_DELTA, violations);
+        return violations;
+    }
+}
@@ -0,0 +1,33 @@
+package guru.springframework.msscbrewery;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.util.UUID;
+
+/**
+ * The reactive profile serves only the WebFlux routes; the servlet controllers are not loaded.
+ */
+@ActiveProfiles("reactive")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+public class ReactiveApplicationTests {
+
+    @Autowired
+    WebTestClient webTestClient;
+
+    @Test
+    public void servletControllersAreNotMapped() {
+        for (String path : new String[]{"/api/v1/beer/" + UUID.randomUUID(), "/api/v1/customer/" + UUID.randomUUID(),
+                "/api/v1/customer/imports/" + UUID.randomUUID()}) {
+            webTestClient.get().uri(path).exchange().expectStatus().isNotFound();
+        }
+    }
+
+    @Test
+    public void reactiveRoutesAreMapped() {
+        webTestClient.get().uri("/api/v2/beer").exchange().expectStatus().isOk();
+    }
+}
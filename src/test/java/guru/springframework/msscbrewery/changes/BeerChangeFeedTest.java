@@ -0,0 +1,274 @@
+package guru.springframework.msscbrewery.changes;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import guru.springframework.msscbrewery.web.model.v2.BeerChangeDto;
+import guru.springframework.msscbrewery.web.model.v2.BeerChangeType;
+import guru.springframework.msscbrewery.web.model.v2.BeerDtoV2;
+import guru.springframework.msscbrewery.web.model.v2.BeerStyleEnum;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BeerChangeFeedTest {
+
+    private static final Pattern EVENT_ID = Pattern.compile("^id: (.+)$", Pattern.MULTILINE);
+
+    BeerChangeFeed changeFeed;
+
+    @AfterEach
+    void tearDown() {
+        changeFeed.close();
+    }
+
+    @Test
+    void sendsChangesToLiveSubscribers() throws Exception {
+        changeFeed = start(16, 16, Duration.ofMinutes(1));
+        final RecordingSink sink = new RecordingSink();
+        changeFeed.subscribe(null, sink);
+        await(() -> sink.received().startsWith("retry: 3000\n\n"));
+
+        final UUID beerId = UUID.randomUUID();
+        changeFeed.publish(change(BeerChangeType.CREATED, beerId, 1L));
+        await(() -> sink.received().contains("event: created"));
+        changeFeed.publish(BeerChangeDto.builder().type(BeerChangeType.DELETED).beerId(beerId).version(1L).build());
+
+        await(() -> sink.received().contains("event: deleted"));
+        final String received = sink.received();
+        assertTrue(received.contains("\nevent: created\ndata: {\"type\":\"CREATED\",\"beerId\":\"" + beerId + "\""), received);
+        assertTrue(received.endsWith("\"beer\":null}\n\n"), received);
+        assertEquals(2, eventIds(received).size());
+        assertEquals(1, changeFeed.getSubscribers());
+    }
+
+    @Test
+    void resumesAfterLastEventId() throws Exception {
+        changeFeed = start(16, 16, Duration.ofMinutes(1));
+        final RecordingSink first = new RecordingSink();
+        changeFeed.subscribe(null, first);
+        await(() -> !first.received().isEmpty());
+        for (int i = 0; i < 3; i++) {
+            changeFeed.publish(change(BeerChangeType.CREATED, UUID.randomUUID(), 1L));
+        }
+        await(() -> eventIds(first.received()).size() == 3);
+        final List<String> ids = eventIds(first.received());
+
+        final RecordingSink resumed = new RecordingSink();
+        changeFeed.subscribe(ids.get(0), resumed);
+
+        await(() -> eventIds(resumed.received()).size() == 2);
+        assertEquals(ids.subList(1, 3), eventIds(resumed.received()));
+        assertFalse(resumed.received().contains("event: reset"));
+    }
+
+    @Test
+    void resetsSubscribersResumingFromUnknownOrExpiredIds() throws Exception {
+        changeFeed = start(4, 16, Duration.ofMinutes(1));
+        final RecordingSink live = new RecordingSink();
+        changeFeed.subscribe(null, live);
+        await(() -> !live.received().isEmpty());
+        for (int i = 0; i < 6; i++) {
+            changeFeed.publish(change(BeerChangeType.CREATED, UUID.randomUUID(), 1L));
+        }
+        await(() -> eventIds(live.received()).size() == 6);
+
+        final RecordingSink expired = new RecordingSink();
+        changeFeed.subscribe(eventIds(live.received()).get(0), expired);
+        final RecordingSink restarted = new RecordingSink();
+        changeFeed.subscribe("kx2b1s0-3", restarted);
+
+        for (RecordingSink sink : List.of(expired, restarted)) {
+            await(() -> sink.received().contains("event: reset"));
+            // the reset carries the id of the last event, so the client can resume from there after reloading
+            assertEquals(List.of(eventIds(live.received()).get(5)), eventIds(sink.received()));
+        }
+    }
+
+    @Test
+    void coalescesQueuedChangesToTheSameBeer() throws Exception {
+        changeFeed = start(16, 16, Duration.ofMinutes(1));
+        final RecordingSink slow = new RecordingSink();
+        slow.block();
+        changeFeed.subscribe(null, slow);
+        assertTrue(slow.sending.await(5, TimeUnit.SECONDS));
+
+        final UUID beerId = UUID.randomUUID();
+        for (long version = 1; version <= 5; version++) {
+            changeFeed.publish(change(BeerChangeType.UPDATED, beerId, version));
+        }
+        await(() -> changeFeed.getCoalesced() == 4);
+        slow.unblock();
+
+        await(() -> slow.received().contains("event: updated"));
+        final String received = slow.received();
+        assertEquals(1, eventIds(received).size());
+        assertTrue(received.contains("\"version\":5"), received);
+    }
+
+    @Test
+    void keepsTheNewestVersionOfChangesPublishedOutOfOrder() throws Exception {
+        changeFeed = start(16, 16, Duration.ofMinutes(1));
+        final RecordingSink slow = new RecordingSink();
+        slow.block();
+        changeFeed.subscribe(null, slow);
+        assertTrue(slow.sending.await(5, TimeUnit.SECONDS));
+
+        final UUID beerId = UUID.randomUUID();
+        changeFeed.publish(change(BeerChangeType.UPDATED, beerId, 3L));
+        changeFeed.publish(BeerChangeDto.builder().type(BeerChangeType.DELETED).beerId(beerId).version(4L).build());
+        changeFeed.publish(change(BeerChangeType.UPDATED, beerId, 3L));
+        await(() -> changeFeed.getCoalesced() == 2);
+        slow.unblock();
+
+        await(() -> slow.received().contains("event: deleted"));
+        final String received = slow.received();
+        assertEquals(1, eventIds(received).size());
+        assertFalse(received.contains("event: updated"), received);
+    }
+
+    @Test
+    void replaysTheNewestVersionOfChangesPublishedOutOfOrder() throws Exception {
+        changeFeed = start(16, 16, Duration.ofMinutes(1));
+        final RecordingSink first = new RecordingSink();
+        changeFeed.subscribe(null, first);
+        await(() -> !first.received().isEmpty());
+        final UUID beerId = UUID.randomUUID();
+        changeFeed.publish(change(BeerChangeType.CREATED, UUID.randomUUID(), 1L));
+        changeFeed.publish(change(BeerChangeType.UPDATED, beerId, 5L));
+        changeFeed.publish(change(BeerChangeType.UPDATED, beerId, 4L));
+        // changes are dispatched in order, so once this one arrives the two updates have been dispatched too
+        final UUID lastBeerId = UUID.randomUUID();
+        changeFeed.publish(change(BeerChangeType.CREATED, lastBeerId, 1L));
+        await(() -> first.received().contains(lastBeerId.toString()));
+
+        final RecordingSink resumed = new RecordingSink();
+        changeFeed.subscribe(eventIds(first.received()).get(0), resumed);
+
+        await(() -> eventIds(resumed.received()).size() == 2);
+        assertTrue(resumed.received().contains("\"version\":5"), resumed.received());
+        assertFalse(resumed.received().contains("\"version\":4"), resumed.received());
+    }
+
+    @Test
+    void dropsSubscribersWhoseQueueOverflows() throws Exception {
+        // retaining a single event makes every publish wait for the last one, so each arrives in its own batch
+        changeFeed = start(1, 2, Duration.ofMinutes(1));
+        final RecordingSink slow = new RecordingSink();
+        slow.block();
+        changeFeed.subscribe(null, slow);
+        assertTrue(slow.sending.await(5, TimeUnit.SECONDS));
+
+        for (int i = 0; i < 3; i++) {
+            changeFeed.publish(change(BeerChangeType.CREATED, UUID.randomUUID(), 1L));
+        }
+        await(() -> changeFeed.getDropped() == 1);
+        slow.unblock();
+
+        await(() -> slow.closed);
+        assertTrue(eventIds(slow.received()).isEmpty());
+        await(() -> changeFeed.getSubscribers() == 0);
+    }
+
+    @Test
+    void sendsHeartbeatsWhileIdleAndForgetsCancelledSubscribers() throws Exception {
+        changeFeed = start(16, 16, Duration.ofMillis(20));
+        final RecordingSink sink = new RecordingSink();
+        final BeerChangeFeed.Subscription subscription = changeFeed.subscribe(null, sink);
+
+        await(() -> sink.received().contains(":\n\n"));
+        subscription.cancel();
+        changeFeed.publish(change(BeerChangeType.CREATED, UUID.randomUUID(), 1L));
+
+        await(() -> changeFeed.getSubscribers() == 0);
+        assertTrue(eventIds(sink.received()).isEmpty());
+        assertFalse(sink.closed);
+    }
+
+    private static BeerChangeFeed start(int retainedEvents, int queueCapacity, Duration heartbeat) {
+        final BeerChangeFeed changeFeed = new BeerChangeFeed(new ObjectMapper(), retainedEvents, queueCapacity,
+                heartbeat, Duration.ofSeconds(3), 2);
+        changeFeed.start();
+        return changeFeed;
+    }
+
+    private static BeerChangeDto change(BeerChangeType type, UUID beerId, long version) {
+        return BeerChangeDto.builder()
+                .type(type)
+                .beerId(beerId)
+                .version(version)
+                .beer(BeerDtoV2.builder()
+                        .id(beerId)
+                        .version(version)
+                        .beerName("Galaxy Cat")
+                        .beerStyle(BeerStyleEnum.PALE_ALE)
+                        .upc(123123123123L)
+                        .build())
+                .build();
+    }
+
+    private static List<String> eventIds(String received) {
+        final List<String> ids = new ArrayList<>();
+        final Matcher matcher = EVENT_ID.matcher(received);
+        while (matcher.find()) {
+            ids.add(matcher.group(1));
+        }
+        return ids;
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean() && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertTrue(condition.getAsBoolean(), "condition not met within 5 seconds");
+    }
+
+    private static class RecordingSink implements ChangeSink {
+
+        private final StringBuilder received = new StringBuilder();
+        private final CountDownLatch sending = new CountDownLatch(1);
+        private volatile CountDownLatch released = new CountDownLatch(0);
+        private volatile boolean closed;
+
+        void block() {
+            released = new CountDownLatch(1);
+        }
+
+        void unblock() {
+            released.countDown();
+        }
+
+        synchronized String received() {
+            return received.toString();
+        }
+
+        @Override
+        public void send(byte[] frames) {
+            sending.countDown();
+            try {
+                released.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            synchronized (this) {
+                received.append(new String(frames, StandardCharsets.UTF_8));
+            }
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+}
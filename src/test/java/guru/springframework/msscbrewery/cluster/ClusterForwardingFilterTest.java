@@ -0,0 +1,191 @@
+package guru.springframework.msscbrewery.cluster;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ClusterForwardingFilterTest {
+
+    private static final String SELF = "http://localhost:1";
+    private static final String SECRET = "s3cret";
+
+    HttpServer peer;
+    String peerUrl;
+    AtomicReference<String> forwardedBy;
+    AtomicReference<String> presentedSecret;
+    ClusterMembership membership;
+    PeerClient peerClient;
+    ClusterForwardingFilter filter;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        forwardedBy = new AtomicReference<>();
+        presentedSecret = new AtomicReference<>();
+        peer = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        peer.createContext("/", exchange -> {
+            forwardedBy.set(exchange.getRequestHeaders().getFirst(PeerClient.FORWARDED_BY));
+            presentedSecret.set(exchange.getRequestHeaders().getFirst(PeerClient.PEER_SECRET));
+            final byte[] body = ("{\"path\":\"" + exchange.getRequestURI() + "\"}").getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set(HttpHeaders.CONTENT_TYPE, "application/json");
+            exchange.getResponseHeaders().set(HttpHeaders.ETAG, "\"3\"");
+            exchange.getResponseHeaders().set(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+            exchange.getResponseHeaders().set(HttpHeaders.CACHE_CONTROL, "no-cache");
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        peer.start();
+        peerUrl = "http://localhost:" + peer.getAddress().getPort();
+
+        membership = new ClusterMembership(SELF, List.of(SELF, peerUrl), 64);
+        peerClient = new PeerClient(SELF, SECRET, Duration.ofMillis(500), Duration.ofSeconds(5), new ObjectMapper());
+        filter = new ClusterForwardingFilter(membership, peerClient, List.of("/api/v1/beer/", "/api/v2/beer/"),
+                List.of("/inventory/adjust"), 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        peer.stop(0);
+    }
+
+    @Test
+    void forwardsRequestsForBeersOwnedElsewhere() throws Exception {
+        final UUID beerId = idOwnedBy(peerUrl);
+        final MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v2/beer/" + beerId);
+        request.setQueryString("fields=beerName");
+        final MockHttpServletResponse response = new MockHttpServletResponse();
+        final MockFilterChain chain = new MockFilterChain();
+
+        filter.doFilter(request, response, chain);
+
+        assertNull(chain.getRequest());
+        assertEquals(200, response.getStatus());
+        assertEquals("\"3\"", response.getHeader(HttpHeaders.ETAG));
+        assertEquals(List.of(HttpHeaders.ACCEPT), response.getHeaders(HttpHeaders.VARY));
+        assertEquals("no-cache", response.getHeader(HttpHeaders.CACHE_CONTROL));
+        assertEquals("{\"path\":\"/api/v2/beer/" + beerId + "?fields=beerName\"}", response.getContentAsString());
+        assertEquals(SELF, forwardedBy.get());
+        assertEquals(SECRET, presentedSecret.get());
+    }
+
+    @Test
+    void forwardsBeerSubResourcesToTheOwner() throws Exception {
+        final UUID beerId = idOwnedBy(peerUrl);
+        final MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/v2/beer/" + beerId + "/inventory/adjust");
+        request.setContentType("application/json");
+        request.setContent("{\"delta\":-3}".getBytes(StandardCharsets.UTF_8));
+        final MockHttpServletResponse response = new MockHttpServletResponse();
+        final MockFilterChain chain = new MockFilterChain();
+
+        filter.doFilter(request, response, chain);
+
+        assertNull(chain.getRequest());
+        assertEquals("{\"path\":\"/api/v2/beer/" + beerId + "/inventory/adjust\"}", response.getContentAsString());
+        assertEquals(SELF, forwardedBy.get());
+    }
+
+    @Test
+    void servesLocalBeersAndCollectionsItself() throws Exception {
+        for (String path : List.of("/api/v1/beer/" + idOwnedBy(SELF), "/api/v2/beer", "/api/v2/beer/export",
+                "/api/v2/beer/" + idOwnedBy(peerUrl) + "/extra")) {
+            final MockFilterChain chain = new MockFilterChain();
+
+            filter.doFilter(new MockHttpServletRequest("GET", path), new MockHttpServletResponse(), chain);
+
+            assertNotNull(chain.getRequest(), path);
+        }
+        assertNull(forwardedBy.get());
+    }
+
+    @Test
+    void doesNotForwardForwardedRequests() throws Exception {
+        final MockHttpServletRequest request = new MockHttpServletRequest("PUT", "/api/v1/beer/" + idOwnedBy(peerUrl));
+        request.addHeader(PeerClient.FORWARDED_BY, peerUrl);
+        request.addHeader(PeerClient.PEER_SECRET, SECRET);
+        final MockFilterChain chain = new MockFilterChain();
+
+        filter.doFilter(request, new MockHttpServletResponse(), chain);
+
+        assertNotNull(chain.getRequest());
+        assertNull(forwardedBy.get());
+    }
+
+    @Test
+    void routesRequestsClaimingToBeForwardedWithoutTheSecret() throws Exception {
+        for (String secret : new String[]{null, "guess"}) {
+            forwardedBy.set(null);
+            final MockHttpServletRequest request = new MockHttpServletRequest("PUT", "/api/v1/beer/" + idOwnedBy(peerUrl));
+            request.addHeader(PeerClient.FORWARDED_BY, peerUrl);
+            if (secret != null) {
+                request.addHeader(PeerClient.PEER_SECRET, secret);
+            }
+            final MockFilterChain chain = new MockFilterChain();
+
+            filter.doFilter(request, new MockHttpServletResponse(), chain);
+
+            assertNull(chain.getRequest());
+            assertEquals(SELF, forwardedBy.get());
+        }
+    }
+
+    @Test
+    void peerOnlyFilterRefusesCallsWithoutTheSecret() throws Exception {
+        final PeerOnlyFilter peerOnly = new PeerOnlyFilter(peerClient);
+
+        final MockHttpServletResponse refused = new MockHttpServletResponse();
+        final MockFilterChain refusedChain = new MockFilterChain();
+        peerOnly.doFilter(new MockHttpServletRequest("PUT", PeerClient.BEERS_PATH), refused, refusedChain);
+        assertEquals(403, refused.getStatus());
+        assertNull(refusedChain.getRequest());
+
+        final MockHttpServletRequest request = new MockHttpServletRequest("PUT", PeerClient.BEERS_PATH);
+        request.addHeader(PeerClient.PEER_SECRET, SECRET);
+        final MockFilterChain chain = new MockFilterChain();
+        peerOnly.doFilter(request, new MockHttpServletResponse(), chain);
+        assertNotNull(chain.getRequest());
+    }
+
+    @Test
+    void peerClientNeedsASecret() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new PeerClient(SELF, " ", Duration.ofMillis(500), Duration.ofSeconds(5), new ObjectMapper()));
+    }
+
+    @Test
+    void answersServiceUnavailableWhenOwnerIsDown() throws Exception {
+        final UUID beerId = idOwnedBy(peerUrl);
+        peer.stop(0);
+        final MockHttpServletResponse response = new MockHttpServletResponse();
+        final MockFilterChain chain = new MockFilterChain();
+
+        filter.doFilter(new MockHttpServletRequest("DELETE", "/api/v2/beer/" + beerId), response, chain);
+
+        assertNull(chain.getRequest());
+        assertEquals(503, response.getStatus());
+        assertEquals("2", response.getHeader(HttpHeaders.RETRY_AFTER));
+        assertTrue(response.getContentAsString().contains(beerId.toString()));
+    }
+
+    private UUID idOwnedBy(String member) {
+        UUID id;
+        do {
+            id = UUID.randomUUID();
+        } while (!membership.ownerOf(id).equals(member));
+        return id;
+    }
+}
@@ -0,0 +1,89 @@
+package guru.springframework.msscbrewery.cluster;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HashRingTest {
+
+    private static final int IDS = 30_000;
+    private static final List<String> THREE = List.of("http://localhost:8081", "http://localhost:8082",
+            "http://localhost:8083");
+
+    @Test
+    void spreadsIdsEvenlyOverMembers() {
+        final HashRing ring = new HashRing(THREE, 128);
+
+        final Map<String, Integer> owned = new HashMap<>();
+        for (int i = 0; i < IDS; i++) {
+            owned.merge(ring.ownerOf(UUID.randomUUID()), 1, Integer::sum);
+        }
+
+        assertEquals(3, owned.size());
+        owned.values().forEach(count -> assertTrue(Math.abs(count - IDS / 3) < IDS / 3 / 5, owned::toString));
+    }
+
+    @Test
+    void addingMemberOnlyMovesIdsToIt() {
+        final HashRing before = new HashRing(THREE, 128);
+        final HashRing after = new HashRing(List.of("http://localhost:8081", "http://localhost:8082",
+                "http://localhost:8083", "http://localhost:8084"), 128);
+
+        int moved = 0;
+        for (int i = 0; i < IDS; i++) {
+            final UUID id = UUID.randomUUID();
+            final String owner = after.ownerOf(id);
+            if (!owner.equals(before.ownerOf(id))) {
+                assertEquals("http://localhost:8084", owner);
+                moved++;
+            }
+        }
+
+        // a quarter of the ids should now belong to the new member
+        assertTrue(Math.abs(moved - IDS / 4) < IDS / 4 / 5, "moved " + moved);
+    }
+
+    @Test
+    void ringDoesNotDependOnMemberOrder() {
+        final HashRing ring = new HashRing(THREE, 16);
+        final HashRing reversed = new HashRing(List.of("http://localhost:8083", "http://localhost:8082",
+                "http://localhost:8081"), 16);
+
+        assertEquals(ring.getMembers(), reversed.getMembers());
+        for (int i = 0; i < 1000; i++) {
+            final UUID id = UUID.randomUUID();
+            assertEquals(ring.ownerOf(id), reversed.ownerOf(id));
+        }
+    }
+
+    @Test
+    void singleMemberOwnsEverything() {
+        final HashRing ring = new HashRing(List.of("http://localhost:8080"), 1);
+
+        assertTrue(ring.contains("http://localhost:8080"));
+        assertEquals("http://localhost:8080", ring.ownerOf(UUID.randomUUID()));
+        assertThrows(IllegalArgumentException.class, () -> new HashRing(List.of(), 128));
+    }
+
+    @Test
+    void ownedIdGeneratorOnlyMintsLocalIds() {
+        final ClusterMembership membership = new ClusterMembership("http://localhost:8082/", THREE, 128);
+        final OwnedIdGenerator generator = new OwnedIdGenerator(membership);
+
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(membership.isLocal(generator.generateId()));
+        }
+    }
+
+    @Test
+    void membershipRequiresSelfAmongMembers() {
+        assertEquals("http://localhost:8083", new ClusterMembership(" http://localhost:8083/", THREE, 128).getSelf());
+        assertThrows(IllegalArgumentException.class,
+                () -> new ClusterMembership("http://localhost:8084", THREE, 128));
+    }
+}
@@ -0,0 +1,230 @@
+package guru.springframework.msscbrewery.cluster;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import guru.springframework.msscbrewery.changes.BeerChangeFeed;
+import guru.springframework.msscbrewery.domain.Beer;
+import guru.springframework.msscbrewery.domain.BeerStyle;
+import guru.springframework.msscbrewery.persistence.MutationLog;
+import guru.springframework.msscbrewery.repositories.BeerInventory;
+import guru.springframework.msscbrewery.repositories.BeerRepository;
+import guru.springframework.msscbrewery.web.mapper.BeerMapper;
+import guru.springframework.msscbrewery.web.model.v2.BeerChangeDto;
+import guru.springframework.msscbrewery.web.model.v2.BeerChangeType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mapstruct.factory.Mappers;
+import org.mockito.ArgumentCaptor;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.http.HttpHeaders;
+
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+class RebalancerTest {
+
+    private static final String SELF = "http://localhost:1";
+    private static final String SECRET = "s3cret";
+
+    final ObjectMapper objectMapper = new ObjectMapper();
+    final AtomicInteger refusals = new AtomicInteger();
+    final AtomicInteger transfers = new AtomicInteger();
+    HttpServer peer;
+    String peerUrl;
+    BeerRepository beers;
+    BeerInventory inventory;
+    BeerChangeFeed changeFeed;
+    BeerRepository peerBeers;
+    BeerInventory peerInventory;
+    BeerChangeFeed peerChangeFeed;
+    Rebalancer rebalancer;
+    Rebalancer peerRebalancer;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        peer = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        peer.createContext(PeerClient.BEERS_PATH, exchange -> {
+            transfers.incrementAndGet();
+            if (!SECRET.equals(exchange.getRequestHeaders().getFirst(PeerClient.PEER_SECRET))
+                    || refusals.getAndDecrement() > 0) {
+                exchange.sendResponseHeaders(503, -1);
+                exchange.close();
+                return;
+            }
+            final List<BeerTransfer> received = objectMapper.readValue(exchange.getRequestBody(),
+                    objectMapper.getTypeFactory().constructCollectionType(List.class, BeerTransfer.class));
+            final byte[] body = objectMapper.writeValueAsBytes(peerRebalancer.receive(received));
+            exchange.getResponseHeaders().set(HttpHeaders.CONTENT_TYPE, "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        peer.start();
+        peerUrl = "http://localhost:" + peer.getAddress().getPort();
+
+        beers = new BeerRepository(MutationLog.NONE);
+        inventory = new BeerInventory();
+        changeFeed = mock(BeerChangeFeed.class);
+        rebalancer = rebalancer(new ClusterMembership(SELF, List.of(SELF), 64), beers, inventory, changeFeed);
+        peerBeers = new BeerRepository(MutationLog.NONE);
+        peerInventory = new BeerInventory();
+        peerChangeFeed = mock(BeerChangeFeed.class);
+        peerRebalancer = rebalancer(new ClusterMembership(peerUrl, List.of(SELF, peerUrl), 64), peerBeers,
+                peerInventory, peerChangeFeed);
+    }
+
+    @AfterEach
+    void tearDown() {
+        peer.stop(0);
+        rebalancer.close();
+        peerRebalancer.close();
+    }
+
+    @Test
+    void movesBeersWithTheirStockToTheirNewOwner() {
+        final List<Beer> saved = saveBeers(200);
+
+        rebalancer.changeMembers(List.of(SELF, peerUrl));
+
+        assertMoved(saved);
+        assertEquals(1, transfers.get());
+        assertFalse(rebalancer.isRetryScheduled());
+    }
+
+    @Test
+    void publishesMovedBeersOnBothChangeFeeds() {
+        final List<Beer> saved = saveBeers(200);
+
+        rebalancer.changeMembers(List.of(SELF, peerUrl));
+
+        final ArgumentCaptor<BeerChangeDto> left = ArgumentCaptor.forClass(BeerChangeDto.class);
+        verify(changeFeed, atLeastOnce()).publish(left.capture());
+        final ArgumentCaptor<BeerChangeDto> arrived = ArgumentCaptor.forClass(BeerChangeDto.class);
+        verify(peerChangeFeed, atLeastOnce()).publish(arrived.capture());
+        assertEquals(saved.size() - beers.count(), left.getAllValues().size());
+        assertEquals(left.getAllValues().size(), arrived.getAllValues().size());
+
+        for (BeerChangeDto change : left.getAllValues()) {
+            final Beer beer = peerBeers.findById(change.getBeerId()).orElseThrow();
+            assertEquals(BeerChangeType.MOVED, change.getType());
+            assertEquals(beer.getVersion() + 1, (long) change.getVersion());
+            assertNull(change.getBeer());
+        }
+        for (BeerChangeDto change : arrived.getAllValues()) {
+            final Beer beer = peerBeers.findById(change.getBeerId()).orElseThrow();
+            assertEquals(BeerChangeType.CREATED, change.getType());
+            assertEquals(beer.getVersion(), change.getVersion());
+            assertEquals(beer.getBeerName(), change.getBeer().getBeerName());
+        }
+    }
+
+    @Test
+    void keepsTheStockOfBeersTheOwnerAlreadyHolds() {
+        final Beer beer = saveBeers(200).stream()
+                .filter(saved -> !new ClusterMembership(SELF, List.of(SELF, peerUrl), 64).isLocal(saved.getId()))
+                .findFirst().orElseThrow();
+        peerBeers.put(beer);
+        peerInventory.adjust(beer.getId(), 3);
+
+        rebalancer.changeMembers(List.of(SELF, peerUrl));
+
+        assertTrue(beers.findById(beer.getId()).isEmpty());
+        assertEquals(3, peerInventory.getQuantityOnHand(beer.getId()));
+    }
+
+    @Test
+    void receiveOnlyTakesCompleteBeersThisMemberOwns() {
+        final ClusterMembership ring = new ClusterMembership(SELF, List.of(SELF, peerUrl), 64);
+        final Beer owned = beer(ring, peerUrl, 1L);
+        final Beer ownedElsewhere = beer(ring, SELF, 2L);
+        final Beer unnamed = beer(ring, peerUrl, 3L).toBuilder().beerName(null).build();
+        final Beer unversioned = beer(ring, peerUrl, 4L).toBuilder().version(null).build();
+
+        final List<UUID> held = peerRebalancer.receive(List.of(new BeerTransfer(owned, 5),
+                new BeerTransfer(ownedElsewhere, 5), new BeerTransfer(unnamed, 5), new BeerTransfer(unversioned, 5),
+                new BeerTransfer(beer(ring, peerUrl, 5L), -1), new BeerTransfer(null, 5)));
+
+        assertEquals(List.of(owned.getId()), held);
+        assertEquals(1, peerBeers.count());
+        assertEquals(5, peerInventory.getQuantityOnHand(owned.getId()));
+    }
+
+    @Test
+    void retriesRefusedMovesWithoutAMembershipChange() throws Exception {
+        final List<Beer> saved = saveBeers(200);
+        refusals.set(3);
+
+        rebalancer.changeMembers(List.of(SELF, peerUrl));
+        assertTrue(rebalancer.isRetryScheduled());
+        assertEquals(200, beers.count());
+
+        final long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (transfers.get() < 4 || rebalancer.isRunning() || rebalancer.isRetryScheduled()) {
+            assertTrue(System.nanoTime() < deadline, "beers were not moved after " + transfers + " transfers");
+            Thread.sleep(10);
+        }
+
+        assertMoved(saved);
+        assertEquals(4, transfers.get());
+    }
+
+    private static Beer beer(ClusterMembership ring, String owner, long upc) {
+        UUID id;
+        do {
+            id = UUID.randomUUID();
+        } while (!ring.ownerOf(id).equals(owner));
+        return Beer.builder().id(id).version(1L).beerName("Beer " + upc).beerStyle(BeerStyle.ALE).upc(upc).build();
+    }
+
+    /**
+     * Saves beers with stock of their UPC.
+     */
+    private List<Beer> saveBeers(int count) {
+        final List<Beer> saved = new ArrayList<>();
+        for (int i = 1; i <= count; i++) {
+            final Beer beer = beers.save(Beer.builder().beerName("Beer " + i).beerStyle(BeerStyle.ALE).upc((long) i).build());
+            inventory.adjust(beer.getId(), i);
+            saved.add(beer);
+        }
+        return saved;
+    }
+
+    private void assertMoved(List<Beer> saved) {
+        final ClusterMembership after = new ClusterMembership(SELF, List.of(SELF, peerUrl), 64);
+        int kept = 0;
+        for (Beer beer : saved) {
+            final UUID id = beer.getId();
+            if (after.isLocal(id)) {
+                kept++;
+                assertTrue(beers.findById(id).isPresent());
+                assertEquals((long) beer.getUpc(), inventory.getQuantityOnHand(id));
+            } else {
+                assertTrue(beers.findById(id).isEmpty());
+                assertEquals(0, inventory.getQuantityOnHand(id));
+                assertEquals(beer, peerBeers.findById(id).orElseThrow());
+                assertEquals((long) beer.getUpc(), peerInventory.getQuantityOnHand(id));
+            }
+        }
+        assertTrue(kept > 0 && kept < saved.size(), () -> "both members should own beers");
+        assertEquals(kept, beers.count());
+    }
+
+    private Rebalancer rebalancer(ClusterMembership membership, BeerRepository beerRepository,
+                                  BeerInventory beerInventory, BeerChangeFeed beerChangeFeed) {
+        final PeerClient peerClient = new PeerClient(membership.getSelf(), SECRET, Duration.ofMillis(500),
+                Duration.ofSeconds(5), objectMapper);
+        return new Rebalancer(membership, beerRepository, beerInventory, Mappers.getMapper(BeerMapper.class),
+                beerChangeFeed, peerClient, new ConcurrentMapCacheManager(), Runnable::run, Duration.ofMillis(10),
+                Duration.ofMillis(40));
+    }
+}
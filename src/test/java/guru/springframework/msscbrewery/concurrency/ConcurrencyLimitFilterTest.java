@@ -0,0 +1,153 @@
+package guru.springframework.msscbrewery.concurrency;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConcurrencyLimitFilterTest {
+
+    AdaptiveLimiter readLimiter;
+    AdaptiveLimiter writeLimiter;
+    ConcurrencyLimitFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        readLimiter = new AdaptiveLimiter("read", 10, 1, 100, 1000);
+        writeLimiter = new AdaptiveLimiter("write", 2, 1, 100, 1000);
+        filter = new ConcurrencyLimitFilter(readLimiter, writeLimiter, 3, List.of("/api/v1/customer/imports"));
+    }
+
+    @Test
+    void shedsWritesOverTheLimitButKeepsServingReads() throws Exception {
+        writeLimiter.tryAcquire();
+        writeLimiter.tryAcquire();
+
+        final MockHttpServletResponse rejected = new MockHttpServletResponse();
+        final MockFilterChain writeChain = new MockFilterChain();
+        filter.doFilter(new MockHttpServletRequest("POST", "/api/v2/beer"), rejected, writeChain);
+
+        assertEquals(503, rejected.getStatus());
+        assertEquals("3", rejected.getHeader(HttpHeaders.RETRY_AFTER));
+        assertNull(writeChain.getRequest());
+        assertEquals(1, writeLimiter.getRejected());
+
+        final MockHttpServletResponse served = new MockHttpServletResponse();
+        final MockFilterChain readChain = new MockFilterChain();
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/v2/beer"), served, readChain);
+
+        assertEquals(200, served.getStatus());
+        assertNotNull(readChain.getRequest());
+        assertEquals(0, readLimiter.getInFlight());
+    }
+
+    @Test
+    void doesNotLimitUnlimitedPaths() throws Exception {
+        writeLimiter.tryAcquire();
+        writeLimiter.tryAcquire();
+
+        final MockHttpServletResponse response = new MockHttpServletResponse();
+        final MockFilterChain chain = new MockFilterChain();
+        filter.doFilter(new MockHttpServletRequest("POST", "/api/v1/customer/imports"), response, chain);
+
+        assertEquals(200, response.getStatus());
+        assertNotNull(chain.getRequest());
+        assertEquals(0, writeLimiter.getRejected());
+    }
+
+    @Test
+    void releasesPermitWhenChainFails() {
+        final MockFilterChain failingChain = new MockFilterChain() {
+            @Override
+            public void doFilter(ServletRequest request, ServletResponse response) {
+                throw new IllegalStateException("boom");
+            }
+        };
+
+        assertThrows(IllegalStateException.class, () -> filter.doFilter(
+                new MockHttpServletRequest("PUT", "/api/v1/customer/1"), new MockHttpServletResponse(), failingChain));
+        assertEquals(0, writeLimiter.getInFlight());
+        assertEquals(1, writeLimiter.getLimit());
+    }
+
+    @Test
+    void slowResponsesBackOffOncePerBurst() throws Exception {
+        final AdaptiveLimiter limiter = new AdaptiveLimiter("write", 20, 2, 100, 1);
+        final long first = limiter.tryAcquire();
+        final long second = limiter.tryAcquire();
+        TimeUnit.MILLISECONDS.sleep(5);
+
+        limiter.release(first, false);
+        limiter.release(second, false);
+
+        // both were slow, but the second started before the first backoff
+        assertEquals(18, limiter.getLimit());
+
+        final long third = limiter.tryAcquire();
+        TimeUnit.MILLISECONDS.sleep(5);
+        limiter.release(third, false);
+
+        assertEquals(16, limiter.getLimit());
+    }
+
+    @Test
+    void concurrentSlowReleasesOfOneBurstBackOffOnce() throws Exception {
+        final AdaptiveLimiter limiter = new AdaptiveLimiter("write", 20, 2, 100, 1);
+        final long[] starts = new long[16];
+        for (int i = 0; i < starts.length; i++) {
+            starts[i] = limiter.tryAcquire();
+        }
+        TimeUnit.MILLISECONDS.sleep(5);
+
+        final CountDownLatch go = new CountDownLatch(1);
+        final List<Thread> threads = new ArrayList<>();
+        for (long start : starts) {
+            final Thread thread = new Thread(() -> {
+                try {
+                    go.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                limiter.release(start, false);
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        go.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(18, limiter.getLimit());
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    void fastResponsesGrowTheLimitOnlyWhileItIsUsed() {
+        final AdaptiveLimiter limiter = new AdaptiveLimiter("read", 1, 1, 100, 1000);
+
+        // a single request in flight keeps using the limit until it passes 2
+        for (int i = 0; i < 4; i++) {
+            limiter.release(limiter.tryAcquire(), false);
+        }
+        assertEquals(2, limiter.getLimit());
+
+        final AdaptiveLimiter idle = new AdaptiveLimiter("read", 10, 1, 100, 1000);
+        for (int i = 0; i < 100; i++) {
+            idle.release(idle.tryAcquire(), false);
+        }
+        assertEquals(10, idle.getLimit());
+    }
+}
@@ -0,0 +1,48 @@
+package guru.springframework.msscbrewery.metrics;
+
+import guru.springframework.msscbrewery.services.CustomerService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+
+class TimingAspectTest {
+
+    SimpleMeterRegistry meterRegistry;
+    CustomerService target;
+    CustomerService customerService;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        target = mock(CustomerService.class);
+        final AspectJProxyFactory proxyFactory = new AspectJProxyFactory(target);
+        proxyFactory.addAspect(new TimingAspect(meterRegistry));
+        customerService = proxyFactory.getProxy();
+    }
+
+    @Test
+    void timesEveryServiceCall() {
+        customerService.getCustomerVersion(UUID.randomUUID());
+        customerService.getCustomerVersion(UUID.randomUUID());
+        customerService.deleteCustomer(UUID.randomUUID());
+
+        assertEquals(2, meterRegistry.get(TimingAspect.SERVICE_TIMER).tag("method", "getCustomerVersion").timer().count());
+        assertEquals(1, meterRegistry.get(TimingAspect.SERVICE_TIMER).tag("method", "deleteCustomer").timer().count());
+    }
+
+    @Test
+    void timesFailedCalls() {
+        given(target.getCustomerById(any())).willThrow(new IllegalStateException());
+
+        assertThrows(IllegalStateException.class, () -> customerService.getCustomerById(UUID.randomUUID()));
+        assertEquals(1, meterRegistry.get(TimingAspect.SERVICE_TIMER).tag("method", "getCustomerById").timer().count());
+    }
+}
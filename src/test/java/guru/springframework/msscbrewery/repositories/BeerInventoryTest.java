@@ -0,0 +1,134 @@
+package guru.springframework.msscbrewery.repositories;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BeerInventoryTest {
+
+    private static final int THREADS = 8;
+    private static final int OPERATIONS_PER_THREAD = 50_000;
+
+    BeerInventory inventory = new BeerInventory();
+    UUID beerId = UUID.randomUUID();
+
+    @Test
+    void reservesOnlyWhatIsOnHand() {
+        assertFalse(inventory.adjust(beerId, -1));
+        assertTrue(inventory.adjust(beerId, 5));
+
+        assertTrue(inventory.adjust(beerId, -3));
+        assertFalse(inventory.adjust(beerId, -3));
+        assertEquals(2, inventory.getQuantityOnHand(beerId));
+    }
+
+    @Test
+    void removeForgetsTheStock() {
+        inventory.adjust(beerId, 5);
+
+        inventory.remove(beerId);
+
+        assertEquals(0, inventory.getQuantityOnHand(beerId));
+        assertFalse(inventory.adjust(beerId, -1));
+    }
+
+    @Test
+    void restoreReplacesTheStock() {
+        inventory.adjust(beerId, 5);
+
+        inventory.restore(beerId, 2);
+        assertEquals(2, inventory.getQuantityOnHand(beerId));
+        assertFalse(inventory.adjust(beerId, -3));
+        assertTrue(inventory.adjust(beerId, -2));
+
+        inventory.restore(beerId, 4);
+        inventory.restore(beerId, 0);
+        assertEquals(0, inventory.getQuantityOnHand(beerId));
+    }
+
+    @Test
+    void reservesStockSpreadOverOtherThreadsStripes() throws Exception {
+        final ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        final List<Future<?>> restocks = new ArrayList<>();
+        for (int t = 0; t < 64; t++) {
+            restocks.add(executor.submit(() -> inventory.adjust(beerId, 1)));
+        }
+        for (Future<?> restock : restocks) {
+            restock.get(1, TimeUnit.MINUTES);
+        }
+        executor.shutdown();
+
+        assertTrue(inventory.adjust(beerId, -64));
+        assertEquals(0, inventory.getQuantityOnHand(beerId));
+    }
+
+    @Test
+    void concurrentReservationsNeverOversell() throws Exception {
+        final long stock = THREADS * OPERATIONS_PER_THREAD / 2;
+        inventory.adjust(beerId, stock);
+
+        final long reserved = run(random -> inventory.adjust(beerId, -1) ? 1 : 0);
+
+        assertEquals(stock, reserved);
+        assertEquals(0, inventory.getQuantityOnHand(beerId));
+    }
+
+    @Test
+    void concurrentAdjustmentsLoseNoUnits() throws Exception {
+        final long net = run(random -> {
+            final long delta = random.nextInt(5) + 1;
+            if (random.nextBoolean()) {
+                inventory.adjust(beerId, delta);
+                return delta;
+            }
+            return inventory.adjust(beerId, -delta) ? -delta : 0;
+        });
+
+        assertEquals(net, inventory.getQuantityOnHand(beerId));
+    }
+
+    /**
+     * Runs {@code operation} from every thread at once.
+     *
+     * @return the sum of what the operations returned.
+     */
+    private static long run(Operation operation) throws Exception {
+        final ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        final CountDownLatch start = new CountDownLatch(1);
+        final List<Future<Long>> results = new ArrayList<>();
+
+        for (int t = 0; t < THREADS; t++) {
+            results.add(executor.submit(() -> {
+                final ThreadLocalRandom random = ThreadLocalRandom.current();
+                start.await();
+                long sum = 0;
+                for (int i = 0; i < OPERATIONS_PER_THREAD; i++) {
+                    sum += operation.apply(random);
+                }
+                return sum;
+            }));
+        }
+
+        start.countDown();
+        long sum = 0;
+        for (Future<Long> result : results) {
+            sum += result.get(1, TimeUnit.MINUTES);
+        }
+        executor.shutdown();
+        return sum;
+    }
+
+    private interface Operation {
+        long apply(ThreadLocalRandom random);
+    }
+}
@@ -0,0 +1,220 @@
+package guru.springframework.msscbrewery.repositories;
+
+import guru.springframework.msscbrewery.domain.Beer;
+import guru.springframework.msscbrewery.domain.BeerStyle;
+import guru.springframework.msscbrewery.persistence.MutationLog;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BeerRepositoryTest {
+
+    private static final int THREADS = Math.max(4, Runtime.getRuntime().availableProcessors());
+    private static final int OPERATIONS_PER_THREAD = 20_000;
+    private static final int HOT_BEERS = 8;
+
+    BeerRepository beerRepository;
+
+    @BeforeEach
+    void setUp() {
+        beerRepository = new BeerRepository(MutationLog.NONE);
+    }
+
+    @Test
+    void saveAssignsIdVersionAndDates() {
+        final Beer saved = beerRepository.save(newBeer("Quilmes", 1L));
+
+        assertNotNull(saved.getId());
+        assertEquals(1L, saved.getVersion());
+        assertNotNull(saved.getCreatedDate());
+        assertEquals(saved, beerRepository.findById(saved.getId()).orElseThrow());
+    }
+
+    @Test
+    void updateMissingBeerIsEmpty() {
+        assertTrue(beerRepository.update(UUID.randomUUID(), beer -> beer).isEmpty());
+    }
+
+    @Test
+    void deleteRemovesBeer() {
+        final Beer saved = beerRepository.save(newBeer("Andes", 1L));
+
+        assertTrue(beerRepository.deleteById(saved.getId()).isPresent());
+        assertTrue(beerRepository.findById(saved.getId()).isEmpty());
+        assertEquals(0, beerRepository.count());
+    }
+
+    @Test
+    void putKeepsNewerStoredCopy() {
+        final Beer saved = beerRepository.save(newBeer("Quilmes", 1L));
+        final Beer updated = beerRepository.update(saved.getId(), beer -> beer.toBuilder().beerName("Quilmes Stout").build())
+                .orElseThrow();
+
+        assertFalse(beerRepository.put(saved));
+        assertEquals(updated, beerRepository.findById(saved.getId()).orElseThrow());
+
+        final Beer moved = saved.toBuilder().id(UUID.randomUUID()).version(7L).upc(2L).build();
+        assertTrue(beerRepository.put(moved));
+        assertEquals(moved, beerRepository.findById(moved.getId()).orElseThrow());
+        assertEquals(moved, beerRepository.findByUpc(2L).orElseThrow());
+    }
+
+    @Test
+    void deleteIfUnchangedSparesConcurrentWrites() {
+        final Beer saved = beerRepository.save(newBeer("Quilmes", 1L));
+        beerRepository.update(saved.getId(), beer -> beer.toBuilder().beerName("Quilmes Stout").build());
+
+        assertFalse(beerRepository.deleteIfUnchanged(saved));
+        assertTrue(beerRepository.findById(saved.getId()).isPresent());
+
+        assertTrue(beerRepository.deleteIfUnchanged(beerRepository.findById(saved.getId()).orElseThrow()));
+        assertTrue(beerRepository.findByUpc(1L).isEmpty());
+    }
+
+    @Test
+    void findByUpcFollowsUpdatesAndDeletes() {
+        final Beer saved = beerRepository.save(newBeer("Patagonia", 100L));
+
+        assertEquals(saved.getId(), beerRepository.findByUpc(100L).orElseThrow().getId());
+
+        beerRepository.update(saved.getId(), beer -> beer.toBuilder().upc(101L).build());
+        assertTrue(beerRepository.findByUpc(100L).isEmpty());
+        assertEquals(saved.getId(), beerRepository.findByUpc(101L).orElseThrow().getId());
+
+        beerRepository.deleteById(saved.getId());
+        assertTrue(beerRepository.findByUpc(101L).isEmpty());
+    }
+
+    @Test
+    void duplicateUpcIsRejected() {
+        final Beer first = beerRepository.save(newBeer("Quilmes", 200L));
+        final Beer second = beerRepository.save(newBeer("Andes", 201L));
+
+        assertThrows(DuplicateUpcException.class, () -> beerRepository.save(newBeer("Isenbeck", 200L)));
+        assertThrows(DuplicateUpcException.class,
+                () -> beerRepository.update(second.getId(), beer -> beer.toBuilder().upc(200L).build()));
+
+        assertEquals(201L, beerRepository.findById(second.getId()).orElseThrow().getUpc());
+        assertEquals(first.getId(), beerRepository.findByUpc(200L).orElseThrow().getId());
+        assertEquals(2, beerRepository.count());
+    }
+
+    @Test
+    void findPageWalksAllBeersInIdOrder() {
+        final List<UUID> expected = new ArrayList<>();
+        for (long upc = 1; upc <= 25; upc++) {
+            expected.add(beerRepository.save(newBeer("Beer " + upc, upc)).getId());
+        }
+        beerRepository.deleteById(expected.remove(10));
+        Collections.sort(expected);
+
+        final List<UUID> seen = new ArrayList<>();
+        UUID after = null;
+        List<Beer> page;
+        do {
+            page = beerRepository.findPage(after, 7);
+            page.forEach(beer -> seen.add(beer.getId()));
+            after = page.isEmpty() ? null : page.get(page.size() - 1).getId();
+        } while (page.size() == 7);
+
+        assertEquals(expected, seen);
+    }
+
+    @Test
+    void findByNamePrefixIgnoresCaseAndFollowsRenames() {
+        final Beer quilmes = beerRepository.save(newBeer("Quilmes", 1L));
+        beerRepository.save(newBeer("quilmes Stout", 2L));
+        beerRepository.save(newBeer("Andes", 3L));
+
+        assertEquals(2, beerRepository.findByNamePrefix("QUIL", 10).size());
+        assertEquals(1, beerRepository.findByNamePrefix("quil", 1).size());
+
+        beerRepository.update(quilmes.getId(), beer -> beer.toBuilder().beerName("Isenbeck").build());
+        assertEquals("quilmes Stout", beerRepository.findByNamePrefix("quil", 10).get(0).getBeerName());
+        assertEquals(quilmes.getId(), beerRepository.findByNamePrefix("isen", 10).get(0).getId());
+
+        beerRepository.deleteById(quilmes.getId());
+        assertTrue(beerRepository.findByNamePrefix("isen", 10).isEmpty());
+    }
+
+    @Test
+    void countByStyleTracksSavesStyleChangesAndDeletes() {
+        final Beer ale = beerRepository.save(newBeer("Quilmes", 1L));
+        beerRepository.save(newBeer("Andes", 2L));
+
+        assertEquals(2L, beerRepository.countByStyle().get(BeerStyle.ALE));
+
+        beerRepository.update(ale.getId(), beer -> beer.toBuilder().beerStyle(BeerStyle.STOUT).build());
+        assertEquals(1L, beerRepository.countByStyle().get(BeerStyle.ALE));
+        assertEquals(1L, beerRepository.countByStyle().get(BeerStyle.STOUT));
+
+        beerRepository.deleteById(ale.getId());
+        assertEquals(0L, beerRepository.countByStyle().get(BeerStyle.STOUT));
+        assertEquals(0L, beerRepository.countByStyle().get(BeerStyle.IPA));
+    }
+
+    @Test
+    void concurrentReadWriteMixLosesNoUpdates() throws Exception {
+        final List<UUID> ids = new ArrayList<>();
+        for (int i = 0; i < HOT_BEERS; i++) {
+            ids.add(beerRepository.save(newBeer("Hot " + i, null)).getId());
+        }
+
+        final ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        final CountDownLatch start = new CountDownLatch(1);
+        final List<Future<long[]>> results = new ArrayList<>();
+
+        for (int t = 0; t < THREADS; t++) {
+            results.add(executor.submit(() -> {
+                final long[] writesPerBeer = new long[HOT_BEERS];
+                final ThreadLocalRandom random = ThreadLocalRandom.current();
+                start.await();
+                for (int i = 0; i < OPERATIONS_PER_THREAD; i++) {
+                    final int slot = random.nextInt(HOT_BEERS);
+                    if (random.nextInt(10) == 0) {
+                        beerRepository.update(ids.get(slot), beer -> beer.toBuilder().beerName("Hot " + slot).build())
+                                .orElseThrow();
+                        writesPerBeer[slot]++;
+                    } else {
+                        assertNotNull(beerRepository.findById(ids.get(slot)).orElseThrow().getVersion());
+                    }
+                }
+                return writesPerBeer;
+            }));
+        }
+
+        start.countDown();
+        final long[] expectedWrites = new long[HOT_BEERS];
+        for (Future<long[]> result : results) {
+            final long[] writes = result.get(1, TimeUnit.MINUTES);
+            for (int i = 0; i < HOT_BEERS; i++) {
+                expectedWrites[i] += writes[i];
+            }
+        }
+        executor.shutdown();
+
+        for (int i = 0; i < HOT_BEERS; i++) {
+            assertEquals(expectedWrites[i] + 1, beerRepository.findById(ids.get(i)).orElseThrow().getVersion());
+        }
+    }
+
+    private static Beer newBeer(String name, Long upc) {
+        return Beer.builder()
+                .beerName(name)
+                .beerStyle(BeerStyle.ALE)
+                .upc(upc)
+                .build();
+    }
+}
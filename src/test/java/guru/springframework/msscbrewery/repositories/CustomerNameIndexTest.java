@@ -0,0 +1,150 @@
+package guru.springframework.msscbrewery.repositories;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CustomerNameIndexTest {
+
+    CustomerNameIndex nameIndex = new CustomerNameIndex();
+
+    @Test
+    void findsNamesDespiteTypos() {
+        final UUID pepe = UUID.randomUUID();
+        final UUID alfredo = UUID.randomUUID();
+        nameIndex.add("Pepe Biondi", pepe);
+        nameIndex.add("Alfredo Casero", alfredo);
+
+        assertEquals(List.of(pepe), nameIndex.search("pepe biondy", 10));
+        assertEquals(List.of(alfredo), nameIndex.search("Alfedro  Casero", 10));
+        assertTrue(nameIndex.search("Zygmunt", 10).isEmpty());
+        assertTrue(nameIndex.search("  ", 10).isEmpty());
+    }
+
+    @Test
+    void ranksCloserNamesFirstUpToLimit() {
+        final UUID exact = UUID.randomUUID();
+        final UUID extraWord = UUID.randomUUID();
+        final UUID misspelled = UUID.randomUUID();
+        nameIndex.add("Ann Smyth", misspelled);
+        nameIndex.add("Ann Marie Smith", extraWord);
+        nameIndex.add("Ann Smith", exact);
+
+        // 10 of 10 shared trigrams, 10 of 16, 7 of 13
+        assertEquals(List.of(exact, extraWord, misspelled), nameIndex.search("Ann Smith", 10));
+        assertEquals(List.of(exact, extraWord), nameIndex.search("Ann Smith", 2));
+    }
+
+    @Test
+    void renamedAndRemovedNamesStopMatching() {
+        final UUID customerId = UUID.randomUUID();
+        nameIndex.add("Pepe Biondi", customerId);
+
+        nameIndex.remove("Pepe Biondi", customerId);
+        nameIndex.add("Alfredo Casero", customerId);
+        assertTrue(nameIndex.search("Pepe Biondi", 10).isEmpty());
+        assertEquals(List.of(customerId), nameIndex.search("Alfredo Casero", 10));
+
+        nameIndex.remove("Alfredo Casero", customerId);
+        assertTrue(nameIndex.search("Alfredo Casero", 10).isEmpty());
+    }
+
+    @Test
+    void compactedListsKeepLiveNames() {
+        final List<UUID> ids = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            final UUID customerId = UUID.randomUUID();
+            nameIndex.add("Customer " + i, customerId);
+            ids.add(customerId);
+        }
+
+        // renaming all but the last customer rewrites the shared "customer" lists several times
+        for (int i = 0; i < 999; i++) {
+            nameIndex.remove("Customer " + i, ids.get(i));
+            nameIndex.add("Renamed " + i, ids.get(i));
+        }
+
+        assertEquals(List.of(ids.get(999)), nameIndex.search("Customer 999", 1));
+        assertEquals(List.of(ids.get(500)), nameIndex.search("Renamed 500", 1));
+        assertFalse(nameIndex.search("Customer 500", 1000).contains(ids.get(500)));
+    }
+
+    @Test
+    void renamesDoNotGrowTheOrdinals() {
+        final UUID customerId = UUID.randomUUID();
+        final UUID other = UUID.randomUUID();
+        nameIndex.add("Alfredo Casero", other);
+        nameIndex.add("Name 0", customerId);
+
+        for (int i = 1; i <= 5 * CustomerNameIndex.MIN_RENUMBERED_ORDINALS; i++) {
+            nameIndex.remove("Name " + (i - 1), customerId);
+            nameIndex.add("Name " + i, customerId);
+        }
+
+        assertTrue(nameIndex.ordinals() <= CustomerNameIndex.MIN_RENUMBERED_ORDINALS);
+        assertEquals(customerId, nameIndex.search("Name " + 5 * CustomerNameIndex.MIN_RENUMBERED_ORDINALS, 1).get(0));
+        assertEquals(List.of(other), nameIndex.search("Alfredo Casero", 1));
+    }
+
+    @Test
+    void concurrentRenamesSurviveRenumbering() throws Exception {
+        final int threads = 4;
+        final int customersPerThread = 100;
+        final int renames = CustomerNameIndex.MIN_RENUMBERED_ORDINALS / customersPerThread;
+        final ExecutorService executor = Executors.newFixedThreadPool(threads + 1);
+        final AtomicBoolean renaming = new AtomicBoolean(true);
+        final List<Future<List<UUID>>> writers = new ArrayList<>();
+
+        for (int t = 0; t < threads; t++) {
+            final int thread = t;
+            // each writer owns its customers, as the index requires
+            writers.add(executor.submit(() -> {
+                final List<UUID> ids = new ArrayList<>();
+                for (int c = 0; c < customersPerThread; c++) {
+                    final UUID customerId = UUID.randomUUID();
+                    ids.add(customerId);
+                    nameIndex.add(name(thread, c, 0), customerId);
+                }
+                for (int r = 1; r <= renames; r++) {
+                    for (int c = 0; c < customersPerThread; c++) {
+                        nameIndex.remove(name(thread, c, r - 1), ids.get(c));
+                        nameIndex.add(name(thread, c, r), ids.get(c));
+                    }
+                }
+                return ids;
+            }));
+        }
+        final Future<?> searcher = executor.submit(() -> {
+            while (renaming.get()) {
+                nameIndex.search(name(0, 0, 0), 10);
+            }
+        });
+
+        try {
+            for (int t = 0; t < threads; t++) {
+                final List<UUID> ids = writers.get(t).get(1, TimeUnit.MINUTES);
+                for (int c = 0; c < customersPerThread; c++) {
+                    assertEquals(ids.get(c), nameIndex.search(name(t, c, renames), 1).get(0));
+                }
+            }
+            renaming.set(false);
+            searcher.get(1, TimeUnit.MINUTES);
+        } finally {
+            executor.shutdownNow();
+        }
+        assertTrue(nameIndex.ordinals() <= 2 * CustomerNameIndex.MIN_RENUMBERED_ORDINALS);
+    }
+
+    private static String name(int thread, int customer, int rename) {
+        return "Thread" + thread + " Client" + customer + " Rename" + rename;
+    }
+}
@@ -0,0 +1,64 @@
+package guru.springframework.msscbrewery.repositories;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class UpcIndexTest {
+
+    UpcIndex upcIndex = new UpcIndex();
+
+    @Test
+    void putIfAbsentReturnsExistingOwner() {
+        final UUID first = UUID.randomUUID();
+
+        assertNull(upcIndex.putIfAbsent(42L, first));
+        assertEquals(first, upcIndex.putIfAbsent(42L, UUID.randomUUID()));
+        assertEquals(first, upcIndex.get(42L));
+    }
+
+    @Test
+    void removeOnlyReleasesOwnUpc() {
+        final UUID owner = UUID.randomUUID();
+        upcIndex.putIfAbsent(7L, owner);
+
+        assertFalse(upcIndex.remove(7L, UUID.randomUUID()));
+        assertTrue(upcIndex.remove(7L, owner));
+        assertNull(upcIndex.get(7L));
+    }
+
+    @Test
+    void rejectsNonPositiveUpc() {
+        assertThrows(IllegalArgumentException.class, () -> upcIndex.putIfAbsent(0L, UUID.randomUUID()));
+    }
+
+    @Test
+    void matchesHashMapAcrossResizesAndRemovals() {
+        final Map<Long, UUID> expected = new HashMap<>();
+        final Random random = new Random(2019);
+
+        for (int i = 0; i < 50_000; i++) {
+            final long upc = 1 + random.nextInt(20_000);
+            if (random.nextInt(3) == 0) {
+                final UUID owner = expected.get(upc);
+                if (owner != null) {
+                    assertTrue(upcIndex.remove(upc, owner));
+                    expected.remove(upc);
+                }
+            } else {
+                final UUID id = UUID.randomUUID();
+                assertEquals(expected.putIfAbsent(upc, id), upcIndex.putIfAbsent(upc, id));
+            }
+        }
+
+        assertEquals(expected.size(), upcIndex.size());
+        for (long upc = 1; upc <= 20_000; upc++) {
+            assertEquals(expected.get(upc), upcIndex.get(upc));
+        }
+    }
+}
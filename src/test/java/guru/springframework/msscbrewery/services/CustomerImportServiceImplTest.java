@@ -0,0 +1,172 @@
+package guru.springframework.msscbrewery.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import guru.springframework.msscbrewery.web.controller.NotFoundException;
+import guru.springframework.msscbrewery.web.controller.PayloadTooLargeException;
+import guru.springframework.msscbrewery.web.controller.ServiceUnavailableException;
+import guru.springframework.msscbrewery.web.model.CustomerDto;
+import guru.springframework.msscbrewery.web.model.CustomerImportDto;
+import guru.springframework.msscbrewery.web.model.CustomerImportErrorDto;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.core.task.TaskExecutor;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.BDDMockito.willAnswer;
+import static org.mockito.Mockito.mock;
+
+class CustomerImportServiceImplTest {
+
+    @TempDir
+    Path spoolDirectory;
+
+    CustomerService customerService = mock(CustomerService.class);
+    List<List<String>> savedBatches = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        // the job reuses its batch list, so keep copies
+        willAnswer(invocation -> {
+            final List<CustomerDto> batch = invocation.getArgument(0);
+            final List<String> names = new ArrayList<>();
+            batch.forEach(customerDto -> names.add(customerDto.getName()));
+            savedBatches.add(names);
+            return List.of();
+        }).given(customerService).saveNewCustomers(anyList());
+    }
+
+    @Test
+    void importsCsvInBatchesAndReportsInvalidRows() throws Exception {
+        final String csv = "\uFEFFid,Name\r\n"
+                + "1,Pepe Biondi\r\n"
+                + "2,\"Casero, Alfredo\"\n"
+                + "3,ab\n"
+                + "\n"
+                + "4,\"Multi\nLine \"\"Name\"\"\"\n"
+                + "5,Ann Smith";
+
+        final CustomerImportDto job = importService(new SyncTaskExecutor(), 50)
+                .startImport(body(csv), CustomerImportDto.Format.CSV);
+
+        assertEquals(CustomerImportDto.Status.COMPLETED, job.getStatus());
+        assertEquals(5, job.getRowsRead());
+        assertEquals(4, job.getRowsImported());
+        assertEquals(1, job.getRowsFailed());
+        assertEquals(List.of(new CustomerImportErrorDto(3, List.of("name: size must be between 3 and 100"))), job.getErrors());
+        assertEquals(List.of(List.of("Pepe Biondi", "Casero, Alfredo"), List.of("Multi\nLine \"Name\"", "Ann Smith")), savedBatches);
+        assertNotNull(job.getCompletedDate());
+        assertEquals(0, spoolFiles().length);
+    }
+
+    @Test
+    void importsNdjsonSkippingMalformedAndOverlongRows() throws Exception {
+        final String ndjson = "{\"name\":\"Pepe Biondi\"}\n"
+                + "{not json\n"
+                + "{\"name\":\"" + "x".repeat(60) + "\"}\n"
+                + "\n"
+                + "{\"name\":\"Ann Smith\"}\n";
+
+        final CustomerImportDto job = importService(new SyncTaskExecutor(), 50)
+                .startImport(body(ndjson), CustomerImportDto.Format.NDJSON);
+
+        assertEquals(CustomerImportDto.Status.COMPLETED, job.getStatus());
+        assertEquals(4, job.getRowsRead());
+        assertEquals(2, job.getRowsImported());
+        assertEquals(2, job.getRowsFailed());
+        assertEquals(2, job.getErrors().get(0).getRow());
+        assertEquals(List.of("Row is longer than 50 characters"), job.getErrors().get(1).getErrors());
+        assertEquals(List.of(List.of("Pepe Biondi", "Ann Smith")), savedBatches);
+    }
+
+    @Test
+    void rejectsCsvRowsOfOnlySeparatorsBeyondTheLimit() throws Exception {
+        final String csv = "id,name\n"
+                + ",".repeat(500) + "\n"
+                + "\"\"".repeat(100) + "\n"
+                + "1,Ann Smith\n";
+
+        final CustomerImportDto job = importService(new SyncTaskExecutor(), 50)
+                .startImport(body(csv), CustomerImportDto.Format.CSV);
+
+        assertEquals(CustomerImportDto.Status.COMPLETED, job.getStatus());
+        assertEquals(3, job.getRowsRead());
+        assertEquals(1, job.getRowsImported());
+        assertEquals(List.of("Row is longer than 50 characters"), job.getErrors().get(0).getErrors());
+        assertEquals(List.of("Row is longer than 50 characters"), job.getErrors().get(1).getErrors());
+        assertEquals(List.of(List.of("Ann Smith")), savedBatches);
+    }
+
+    @Test
+    void failsCsvWithoutNameColumn() throws Exception {
+        final CustomerImportDto job = importService(new SyncTaskExecutor(), 50)
+                .startImport(body("id\n1\n"), CustomerImportDto.Format.CSV);
+
+        assertEquals(CustomerImportDto.Status.FAILED, job.getStatus());
+        assertEquals("CSV header must have a name column", job.getFailure());
+        assertTrue(savedBatches.isEmpty());
+    }
+
+    @Test
+    void rejectsImportsBeyondMaxJobs() throws Exception {
+        final List<Runnable> queued = new ArrayList<>();
+        final CustomerImportServiceImpl importService = importService(queued::add, 50);
+
+        final CustomerImportDto first = importService.startImport(body("name\nPepe Biondi\n"), CustomerImportDto.Format.CSV);
+        importService.startImport(body("name\nAnn Smith\n"), CustomerImportDto.Format.CSV);
+
+        assertEquals(CustomerImportDto.Status.QUEUED, importService.getImport(first.getId()).getStatus());
+        assertThrows(ServiceUnavailableException.class,
+                () -> importService.startImport(body("name\nAlfredo Casero\n"), CustomerImportDto.Format.CSV));
+
+        queued.get(0).run();
+        assertEquals(CustomerImportDto.Status.COMPLETED, importService.getImport(first.getId()).getStatus());
+        assertNotNull(importService.startImport(body("name\nAlfredo Casero\n"), CustomerImportDto.Format.CSV));
+    }
+
+    @Test
+    void rejectsUploadsBeyondMaxBytesAndFreesTheSlot() throws Exception {
+        final List<Runnable> queued = new ArrayList<>();
+        final CustomerImportServiceImpl importService = importService(queued::add, 50, 16);
+
+        assertThrows(PayloadTooLargeException.class,
+                () -> importService.startImport(body("name\nPepe Biondi\nAnn Smith\n"), CustomerImportDto.Format.CSV));
+        assertEquals(0, spoolFiles().length);
+
+        importService.startImport(body("name\nAnn Smith\n"), CustomerImportDto.Format.CSV);
+        importService.startImport(body("name\nAnn Smith\n"), CustomerImportDto.Format.CSV);
+        assertEquals(2, queued.size());
+    }
+
+    @Test
+    void unknownJobIsNotFound() {
+        assertThrows(NotFoundException.class, () -> importService(new SyncTaskExecutor(), 50).getImport(UUID.randomUUID()));
+    }
+
+    private CustomerImportServiceImpl importService(TaskExecutor taskExecutor, int maxRowLength) {
+        return importService(taskExecutor, maxRowLength, 1024);
+    }
+
+    private CustomerImportServiceImpl importService(TaskExecutor taskExecutor, int maxRowLength, long maxUploadBytes) {
+        return new CustomerImportServiceImpl(customerService, new ObjectMapper(), taskExecutor,
+                spoolDirectory.toString(), 2, maxRowLength, maxUploadBytes, 2, 10);
+    }
+
+    private File[] spoolFiles() {
+        return spoolDirectory.toFile().listFiles();
+    }
+
+    private static ByteArrayInputStream body(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,100 @@
+package guru.springframework.msscbrewery.tracing;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RequestTracerTest {
+
+    RequestTracer requestTracer;
+
+    @AfterEach
+    void tearDown() {
+        // sampling is a static switch, leave it off for other tests
+        requestTracer.setSampleRate(0);
+    }
+
+    @Test
+    void nothingIsRecordedWithSamplingOff() {
+        requestTracer = new RequestTracer(16, 0);
+
+        assertFalse(requestTracer.start("GET", "/api/v2/beer"));
+        requestTracer.finish(200);
+
+        assertTrue(requestTracer.slowest(10).isEmpty());
+    }
+
+    @Test
+    void recordsPhasesOfSampledRequest() throws Exception {
+        requestTracer = new RequestTracer(16, 1);
+
+        assertTrue(requestTracer.start("POST", "/api/v2/beer"));
+        RequestTracer.enter(Phase.SERVICE);
+        RequestTracer.enter(Phase.MAPPING);
+        TimeUnit.MILLISECONDS.sleep(5);
+        RequestTracer.exit(Phase.MAPPING);
+        RequestTracer.exit(Phase.SERVICE);
+        RequestTracer.enter(Phase.SERIALIZE);
+        requestTracer.finish(201);
+
+        final List<RequestTrace> traces = requestTracer.slowest(10);
+        assertEquals(1, traces.size());
+        final RequestTrace trace = traces.get(0);
+        assertEquals("POST", trace.getMethod());
+        assertEquals("/api/v2/beer", trace.getPath());
+        assertEquals(201, trace.getStatus());
+        assertTrue(trace.getPhaseMillis().get(Phase.MAPPING) >= 5);
+        // mapping inside the service is not counted twice
+        assertTrue(trace.getPhaseMillis().get(Phase.SERVICE) < trace.getPhaseMillis().get(Phase.MAPPING));
+        assertTrue(trace.getTotalMillis() >= trace.getPhaseMillis().get(Phase.MAPPING));
+    }
+
+    @Test
+    void marksOutsideTracedRequestAreIgnored() {
+        requestTracer = new RequestTracer(16, 1);
+
+        RequestTracer.enter(Phase.SERVICE);
+        RequestTracer.exit(Phase.SERVICE);
+
+        assertTrue(requestTracer.slowest(10).isEmpty());
+    }
+
+    @Test
+    void keepsOnlyMostRecentTracesOrderedBySlowest() throws Exception {
+        requestTracer = new RequestTracer(8, 1);
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        final List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < 1_000; i++) {
+            futures.add(executor.submit(() -> {
+                requestTracer.start("GET", "/api/v1/customer");
+                requestTracer.finish(200);
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        final List<RequestTrace> traces = requestTracer.slowest(100);
+        assertTrue(traces.size() <= 8);
+        assertFalse(traces.isEmpty());
+        for (int i = 1; i < traces.size(); i++) {
+            assertTrue(traces.get(i - 1).getTotalMillis() >= traces.get(i).getTotalMillis());
+        }
+    }
+
+    @Test
+    void rejectsCapacityThatIsNotPowerOfTwo() {
+        requestTracer = new RequestTracer(16, 0);
+
+        assertThrows(IllegalArgumentException.class, () -> new RequestTracer(100, 0));
+    }
+}
@@ -1,25 +1,36 @@
 package guru.springframework.msscbrewery.web.controller;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import guru.springframework.msscbrewery.services.CustomerService;
 import guru.springframework.msscbrewery.web.model.CustomerDto;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.nio.ByteBuffer;
 import java.text.MessageFormat;
+import java.util.List;
 import java.util.UUID;
 
 import static guru.springframework.msscbrewery.web.controller.AbstractRestControllerTest.asJsonString;
+import static org.hamcrest.Matchers.endsWith;
 import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.BDDMockito.then;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -52,6 +63,93 @@ public class CustomerControllerTest {
 
     }
 
+    @Test
+    public void getByIdCbor() throws Exception {
+        final UUID id = UUID.randomUUID();
+        given(customerService.getCustomerVersion(id)).willReturn(1L);
+        given(customerService.getCustomerById(id))
+                .willReturn(CustomerDto.builder()
+                        .id(id)
+                        .version(1L)
+                        .name("Pepe Biondi")
+                        .build());
+
+        final byte[] body = mockMvc.perform(get(MessageFormat.format("{0}/{1}", API_V1_CUSTOMER, id))
+                .accept(MediaType.APPLICATION_CBOR))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                .andExpect(header().stringValues(HttpHeaders.ETAG, "\"1+cbor\""))
+                .andExpect(header().stringValues(HttpHeaders.VARY, HttpHeaders.ACCEPT))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        final JsonNode customer = CborMessageConverter.objectMapper().readTree(body);
+        assertArrayEquals(ByteBuffer.allocate(16).putLong(id.getMostSignificantBits()).putLong(id.getLeastSignificantBits()).array(),
+                customer.get("id").binaryValue());
+        assertEquals("Pepe Biondi", customer.get("name").textValue());
+    }
+
+    @Test
+    public void getByIdNotModified() throws Exception {
+        final UUID id = UUID.randomUUID();
+        given(customerService.getCustomerVersion(id)).willReturn(5L);
+
+        mockMvc.perform(get(MessageFormat.format("{0}/{1}", API_V1_CUSTOMER, id))
+                .header(HttpHeaders.IF_NONE_MATCH, "\"5\"")
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isNotModified())
+                .andExpect(header().stringValues(HttpHeaders.VARY, HttpHeaders.ACCEPT))
+                .andExpect(content().string(""));
+
+        verify(customerService, never()).getCustomerById(any(UUID.class));
+    }
+
+    @Test
+    public void getByIdReturnsETag() throws Exception {
+        final UUID id = UUID.randomUUID();
+        given(customerService.getCustomerVersion(id)).willReturn(6L);
+        given(customerService.getCustomerById(id))
+                .willReturn(CustomerDto.builder()
+                        .id(id)
+                        .version(6L)
+                        .name("Pepe Biondi")
+                        .build());
+
+        mockMvc.perform(get(MessageFormat.format("{0}/{1}", API_V1_CUSTOMER, id))
+                .header(HttpHeaders.IF_NONE_MATCH, "\"5\"")
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().stringValues(HttpHeaders.ETAG, "\"6\""))
+                .andExpect(jsonPath("$.version", equalTo(6)));
+    }
+
+    @Test
+    public void searchCustomersOk() throws Exception {
+        final CustomerDto customerDto = CustomerDto.builder()
+                .id(UUID.randomUUID())
+                .name("Pepe Biondi")
+                .build();
+
+        given(customerService.searchCustomers("pepe biondy", 5)).willReturn(List.of(customerDto));
+
+        mockMvc.perform(get(API_V1_CUSTOMER + "/search")
+                .param("q", "pepe biondy")
+                .param("limit", "5")
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id", equalTo(customerDto.getId().toString())))
+                .andExpect(jsonPath("$[0].name", equalTo("Pepe Biondi")));
+    }
+
+    @Test
+    public void searchCustomersBlankQuery() throws Exception {
+        mockMvc.perform(get(API_V1_CUSTOMER + "/search")
+                .param("q", " ")
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+
+        then(customerService).should(never()).searchCustomers(any(), anyInt());
+    }
+
     @Test
     public void handlePostOk() throws Exception {
         UUID id = UUID.randomUUID();
@@ -76,6 +174,28 @@ public class CustomerControllerTest {
         verify(customerService).saveNewCustomer(any(CustomerDto.class));
     }
 
+    @Test
+    public void handlePostRetryWithIdempotencyKeyReturnsOriginalCustomer() throws Exception {
+        UUID id = UUID.randomUUID();
+        final CustomerDto customerDto = CustomerDto.builder()
+                .name("Pepe Biondi")
+                .build();
+
+        given(customerService.saveNewCustomer(any(CustomerDto.class)))
+                .willReturn(CustomerDto.builder().id(id).name("Pepe Biondi").build());
+
+        for (int i = 0; i < 2; i++) {
+            mockMvc.perform(post(API_V1_CUSTOMER)
+                    .header(IdempotentCreates.IDEMPOTENCY_KEY, "create-pepe")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(asJsonString(customerDto)))
+                    .andExpect(status().isCreated())
+                    .andExpect(header().string(HttpHeaders.LOCATION, endsWith(API_V1_CUSTOMER + "/" + id)));
+        }
+
+        verify(customerService, times(1)).saveNewCustomer(any(CustomerDto.class));
+    }
+
     @Test
     public void handlePostInvalidName() throws Exception {
         UUID id = UUID.randomUUID();
@@ -0,0 +1,116 @@
+package guru.springframework.msscbrewery.web.controller;
+
+import guru.springframework.msscbrewery.services.CustomerImportService;
+import guru.springframework.msscbrewery.web.model.CustomerImportDto;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.io.InputStream;
+import java.util.List;
+import java.util.UUID;
+
+import static org.hamcrest.Matchers.endsWith;
+import static org.hamcrest.Matchers.equalTo;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(CustomerImportController.class)
+public class CustomerImportControllerTest {
+
+    private static final String API_V1_CUSTOMER_IMPORTS = "/api/v1/customer/imports";
+
+    @MockBean
+    CustomerImportService customerImportService;
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Test
+    public void startCsvImport() throws Exception {
+        final UUID jobId = UUID.randomUUID();
+        given(customerImportService.startImport(any(InputStream.class), eq(CustomerImportDto.Format.CSV)))
+                .willReturn(CustomerImportDto.builder()
+                        .id(jobId)
+                        .format(CustomerImportDto.Format.CSV)
+                        .status(CustomerImportDto.Status.QUEUED)
+                        .errors(List.of())
+                        .build());
+
+        mockMvc.perform(post(API_V1_CUSTOMER_IMPORTS)
+                .contentType(MediaType.valueOf("text/csv; charset=UTF-8"))
+                .content("name\nPepe Biondi\n"))
+                .andExpect(status().isAccepted())
+                .andExpect(header().string(HttpHeaders.LOCATION, endsWith(API_V1_CUSTOMER_IMPORTS + "/" + jobId)))
+                .andExpect(jsonPath("$.status", equalTo("QUEUED")));
+    }
+
+    @Test
+    public void startImportRejectsJson() throws Exception {
+        mockMvc.perform(post(API_V1_CUSTOMER_IMPORTS)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[]"))
+                .andExpect(status().isUnsupportedMediaType());
+    }
+
+    @Test
+    public void startImportAtCapacity() throws Exception {
+        given(customerImportService.startImport(any(InputStream.class), eq(CustomerImportDto.Format.NDJSON)))
+                .willThrow(new ServiceUnavailableException("Too many customer imports running, retry later", 30));
+
+        mockMvc.perform(post(API_V1_CUSTOMER_IMPORTS)
+                .contentType(MediaTypes.APPLICATION_NDJSON)
+                .content("{\"name\":\"Pepe Biondi\"}\n"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "30"));
+    }
+
+    @Test
+    public void startImportRejectsOversizedUpload() throws Exception {
+        given(customerImportService.startImport(any(InputStream.class), eq(CustomerImportDto.Format.NDJSON)))
+                .willThrow(new PayloadTooLargeException("Customer imports are limited to 16 bytes"));
+
+        mockMvc.perform(post(API_V1_CUSTOMER_IMPORTS)
+                .contentType(MediaTypes.APPLICATION_NDJSON)
+                .content("{\"name\":\"Pepe Biondi\"}\n"))
+                .andExpect(status().isPayloadTooLarge())
+                .andExpect(jsonPath("$[0]", equalTo("Customer imports are limited to 16 bytes")));
+    }
+
+    @Test
+    public void getImportProgress() throws Exception {
+        final UUID jobId = UUID.randomUUID();
+        given(customerImportService.getImport(jobId)).willReturn(CustomerImportDto.builder()
+                .id(jobId)
+                .format(CustomerImportDto.Format.NDJSON)
+                .status(CustomerImportDto.Status.RUNNING)
+                .rowsRead(2000)
+                .rowsImported(1999)
+                .rowsFailed(1)
+                .errors(List.of())
+                .build());
+
+        mockMvc.perform(get(API_V1_CUSTOMER_IMPORTS + "/" + jobId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status", equalTo("RUNNING")))
+                .andExpect(jsonPath("$.rowsImported", equalTo(1999)));
+    }
+
+    @Test
+    public void getUnknownImport() throws Exception {
+        given(customerImportService.getImport(any(UUID.class))).willThrow(new NotFoundException());
+
+        mockMvc.perform(get(API_V1_CUSTOMER_IMPORTS + "/" + UUID.randomUUID()))
+                .andExpect(status().isNotFound());
+    }
+}
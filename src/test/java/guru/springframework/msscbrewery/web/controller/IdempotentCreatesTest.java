@@ -0,0 +1,122 @@
+package guru.springframework.msscbrewery.web.controller;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IdempotentCreatesTest {
+
+    IdempotentCreates idempotentCreates = new IdempotentCreates(100, Duration.ofMinutes(1));
+
+    @Test
+    void inFlightDuplicateWaitsForFirstCreate() throws Exception {
+        final AtomicInteger creates = new AtomicInteger();
+        final CountDownLatch firstStarted = new CountDownLatch(1);
+        final CountDownLatch releaseFirst = new CountDownLatch(1);
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        try {
+            final Future<IdempotentCreates.Created> first = executor.submit(() -> idempotentCreates.create("key", () -> {
+                firstStarted.countDown();
+                await(releaseFirst);
+                return created(creates);
+            }));
+            assertTrue(firstStarted.await(5, TimeUnit.SECONDS));
+
+            final Future<IdempotentCreates.Created> duplicate = executor.submit(() ->
+                    idempotentCreates.create("key", () -> created(creates)));
+            TimeUnit.MILLISECONDS.sleep(50);
+            assertFalse(duplicate.isDone());
+
+            releaseFirst.countDown();
+            assertEquals(first.get(5, TimeUnit.SECONDS), duplicate.get(5, TimeUnit.SECONDS));
+            assertEquals(1, creates.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void inFlightKeySurvivesEvictionOfCompletedKeys() throws Exception {
+        final IdempotentCreates idempotentCreates = new IdempotentCreates(1, Duration.ofMinutes(1));
+        final AtomicInteger creates = new AtomicInteger();
+        final CountDownLatch firstStarted = new CountDownLatch(1);
+        final CountDownLatch releaseFirst = new CountDownLatch(1);
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        try {
+            final Future<IdempotentCreates.Created> first = executor.submit(() -> idempotentCreates.create("key", () -> {
+                firstStarted.countDown();
+                await(releaseFirst);
+                return created(creates);
+            }));
+            assertTrue(firstStarted.await(5, TimeUnit.SECONDS));
+            for (int i = 0; i < 100; i++) {
+                idempotentCreates.create("other-" + i, () -> created(new AtomicInteger()));
+            }
+
+            final Future<IdempotentCreates.Created> duplicate = executor.submit(() ->
+                    idempotentCreates.create("key", () -> created(creates)));
+            TimeUnit.MILLISECONDS.sleep(50);
+            assertFalse(duplicate.isDone());
+
+            releaseFirst.countDown();
+            assertEquals(first.get(5, TimeUnit.SECONDS), duplicate.get(5, TimeUnit.SECONDS));
+            assertEquals(1, creates.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void failedCreateIsRunAgainOnRetry() {
+        final AtomicInteger creates = new AtomicInteger();
+
+        assertThrows(BadRequestException.class, () -> idempotentCreates.create("key", () -> {
+            throw new BadRequestException("invalid");
+        }));
+        final IdempotentCreates.Created retried = idempotentCreates.create("key", () -> created(creates));
+
+        assertEquals(retried, idempotentCreates.create("key", () -> created(creates)));
+        assertEquals(1, creates.get());
+    }
+
+    @Test
+    void requestsWithoutKeyAlwaysCreate() {
+        final AtomicInteger creates = new AtomicInteger();
+
+        assertNotEquals(idempotentCreates.create(null, () -> created(creates)),
+                idempotentCreates.create(null, () -> created(creates)));
+        assertEquals(2, creates.get());
+    }
+
+    @Test
+    void rejectsOversizedKey() {
+        final String key = "k".repeat(256);
+
+        assertThrows(BadRequestException.class, () -> idempotentCreates.create(key, () -> created(new AtomicInteger())));
+    }
+
+    private static IdempotentCreates.Created created(AtomicInteger creates) {
+        creates.incrementAndGet();
+        final UUID id = UUID.randomUUID();
+        return new IdempotentCreates.Created(id, "http://localhost:8080/api/v2/beer/" + id);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
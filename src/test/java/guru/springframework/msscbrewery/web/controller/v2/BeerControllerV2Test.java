@@ -1,36 +1,75 @@
 package guru.springframework.msscbrewery.web.controller.v2;
 
+import guru.springframework.msscbrewery.changes.BeerChangeFeed;
+import guru.springframework.msscbrewery.changes.ChangeSink;
+import guru.springframework.msscbrewery.repositories.DuplicateUpcException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import guru.springframework.msscbrewery.services.v2.BeerServiceV2;
+import guru.springframework.msscbrewery.web.controller.CborMessageConverter;
+import guru.springframework.msscbrewery.web.controller.IdempotentCreates;
+import guru.springframework.msscbrewery.web.controller.MediaTypes;
+import guru.springframework.msscbrewery.web.controller.NotFoundException;
+import guru.springframework.msscbrewery.web.model.v2.BeerBatchResultDto;
 import guru.springframework.msscbrewery.web.model.v2.BeerDtoV2;
+import guru.springframework.msscbrewery.web.model.v2.BeerPageDtoV2;
 import guru.springframework.msscbrewery.web.model.v2.BeerStyleEnum;
+import guru.springframework.msscbrewery.web.model.v2.InventoryAdjustmentDto;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.restdocs.AutoConfigureRestDocs;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.restdocs.RestDocumentationExtension;
 import org.springframework.restdocs.constraints.ConstraintDescriptions;
 import org.springframework.restdocs.payload.FieldDescriptor;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.util.StringUtils;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 import static guru.springframework.msscbrewery.web.controller.AbstractRestControllerTest.asJsonString;
+import static org.hamcrest.Matchers.endsWith;
 import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.BDDMockito.then;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.springframework.restdocs.mockmvc.MockMvcRestDocumentation.document;
 import static org.springframework.restdocs.mockmvc.RestDocumentationRequestBuilders.*;
 import static org.springframework.restdocs.payload.PayloadDocumentation.*;
 import static org.springframework.restdocs.request.RequestDocumentation.parameterWithName;
 import static org.springframework.restdocs.request.RequestDocumentation.pathParameters;
+import static org.springframework.restdocs.request.RequestDocumentation.requestParameters;
 import static org.springframework.restdocs.snippet.Attributes.key;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @ExtendWith(RestDocumentationExtension.class)
@@ -46,37 +85,419 @@ public class BeerControllerV2Test {
     @MockBean
     BeerServiceV2 beerService;
 
+    @MockBean
+    BeerChangeFeed changeFeed;
+
     @Test
     public void getBeerOk() throws Exception {
         final UUID id = UUID.randomUUID();
+        given(beerService.getBeerVersion(id)).willReturn(2L);
+        given(beerService.getQuantityOnHand(id)).willReturn(24L);
         given(beerService.getBeerById(any(UUID.class)))
                 .willReturn(BeerDtoV2.builder()
                         .id(id)
+                        .version(2L)
                         .beerName("Quilmes")
                         .beerStyle(BeerStyleEnum.ALE)
                         .upc(1213L)
+                        .quantityOnHand(24L)
                         .build());
 
         mockMvc.perform(get(API_V2_BEER + "/{beerId}", id)
                 .accept(MediaType.APPLICATION_JSON)
                 .contentType(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk())
+                .andExpect(header().stringValues(HttpHeaders.ETAG, "\"2-24\""))
                 .andExpect(jsonPath("$.beerName", equalTo("Quilmes")))
                 .andDo(document("v2/beer-get",
                         pathParameters(
                                 parameterWithName("beerId").description("UUID of desired beer to get.")),
                         responseFields(
                                 fieldWithPath("id").description("Id of beer").ignored(),
+                                fieldWithPath("version").description("Version of beer, sent in the ETag header with the stock level"),
                                 fieldWithPath("createdDate").description("Date Created").ignored(),
                                 fieldWithPath("lastUpdatedDate").description("Date of last update").ignored(),
                                 fieldWithPath("beerName").description("Beer name"),
                                 fieldWithPath("beerStyle").description("Beer Style"),
-                                fieldWithPath("upc").description("UPC of Beer")
+                                fieldWithPath("upc").description("UPC of Beer"),
+                                fieldWithPath("quantityOnHand").description("Units in stock when the beer was read")
                         )));
 
         verify(beerService).getBeerById(any(UUID.class));
     }
 
+    @Test
+    public void getBeerCbor() throws Exception {
+        final UUID id = UUID.randomUUID();
+        final OffsetDateTime created = OffsetDateTime.of(2020, 7, 1, 12, 30, 0, 0, ZoneOffset.UTC);
+        final BeerDtoV2 beerDto = BeerDtoV2.builder()
+                .id(id)
+                .version(2L)
+                .beerName("Quilmes")
+                .beerStyle(BeerStyleEnum.PALE_ALE)
+                .upc(1213L)
+                .createdDate(created)
+                .lastUpdatedDate(created)
+                .build();
+        given(beerService.getBeerVersion(id)).willReturn(2L);
+        given(beerService.getBeerById(id)).willReturn(beerDto);
+
+        final byte[] body = mockMvc.perform(get(API_V2_BEER + "/{beerId}", id)
+                .accept(MediaType.APPLICATION_CBOR))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                .andExpect(header().stringValues(HttpHeaders.ETAG, "\"2+cbor\""))
+                .andExpect(header().stringValues(HttpHeaders.VARY, HttpHeaders.ACCEPT))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        final ObjectMapper cborMapper = CborMessageConverter.objectMapper();
+        final JsonNode beer = cborMapper.readTree(body);
+        assertArrayEquals(ByteBuffer.allocate(16).putLong(id.getMostSignificantBits()).putLong(id.getLeastSignificantBits()).array(),
+                beer.get("id").binaryValue());
+        assertEquals(created.toInstant().toEpochMilli(), beer.get("createdDate").longValue());
+        assertEquals(BeerStyleEnum.PALE_ALE.ordinal(), beer.get("beerStyle").intValue());
+
+        final BeerDtoV2 decoded = cborMapper.readValue(body, BeerDtoV2.class);
+        assertEquals(id, decoded.getId());
+        assertEquals(created, decoded.getCreatedDate());
+        assertEquals(BeerStyleEnum.PALE_ALE, decoded.getBeerStyle());
+    }
+
+    @Test
+    public void getBeerNotModified() throws Exception {
+        final UUID id = UUID.randomUUID();
+        given(beerService.getBeerVersion(id)).willReturn(3L);
+        given(beerService.getQuantityOnHand(id)).willReturn(5L);
+
+        mockMvc.perform(get(API_V2_BEER + "/{beerId}", id)
+                .header(HttpHeaders.IF_NONE_MATCH, "\"3-5\"")
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"3-5\""))
+                .andExpect(header().stringValues(HttpHeaders.VARY, HttpHeaders.ACCEPT))
+                .andExpect(content().string(""));
+
+        verify(beerService, never()).getBeerById(any(UUID.class));
+    }
+
+    @Test
+    public void getBeerCborNotModified() throws Exception {
+        final UUID id = UUID.randomUUID();
+        given(beerService.getBeerVersion(id)).willReturn(3L);
+        given(beerService.getQuantityOnHand(id)).willReturn(5L);
+
+        mockMvc.perform(get(API_V2_BEER + "/{beerId}", id)
+                .header(HttpHeaders.IF_NONE_MATCH, "\"3-5+cbor\"")
+                .accept(MediaType.APPLICATION_CBOR))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"3-5+cbor\""))
+                .andExpect(header().stringValues(HttpHeaders.VARY, HttpHeaders.ACCEPT));
+
+        verify(beerService, never()).getBeerById(any(UUID.class));
+    }
+
+    @Test
+    public void getBeerCborDoesNotMatchTheJsonTag() throws Exception {
+        final UUID id = UUID.randomUUID();
+        given(beerService.getBeerVersion(id)).willReturn(3L);
+        given(beerService.getQuantityOnHand(id)).willReturn(5L);
+        given(beerService.getBeerById(id)).willReturn(BeerDtoV2.builder()
+                .id(id)
+                .version(3L)
+                .beerName("Quilmes")
+                .beerStyle(BeerStyleEnum.LAGER)
+                .quantityOnHand(5L)
+                .build());
+
+        mockMvc.perform(get(API_V2_BEER + "/{beerId}", id)
+                .header(HttpHeaders.IF_NONE_MATCH, "\"3-5\"")
+                .accept(MediaType.APPLICATION_CBOR))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                .andExpect(header().stringValues(HttpHeaders.ETAG, "\"3-5+cbor\""));
+    }
+
+    @Test
+    public void getBeerModifiedSinceETag() throws Exception {
+        final UUID id = UUID.randomUUID();
+        given(beerService.getBeerVersion(id)).willReturn(4L);
+        given(beerService.getQuantityOnHand(id)).willReturn(6L);
+        given(beerService.getBeerById(id)).willReturn(BeerDtoV2.builder()
+                .id(id)
+                .version(4L)
+                .beerName("Quilmes")
+                .beerStyle(BeerStyleEnum.LAGER)
+                .quantityOnHand(6L)
+                .build());
+
+        mockMvc.perform(get(API_V2_BEER + "/{beerId}", id)
+                .header(HttpHeaders.IF_NONE_MATCH, "\"3-6\"")
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().stringValues(HttpHeaders.ETAG, "\"4-6\""));
+    }
+
+    @Test
+    public void getBeerModifiedByStockChange() throws Exception {
+        final UUID id = UUID.randomUUID();
+        given(beerService.getBeerVersion(id)).willReturn(4L);
+        given(beerService.getQuantityOnHand(id)).willReturn(5L);
+        given(beerService.getBeerById(id)).willReturn(BeerDtoV2.builder()
+                .id(id)
+                .version(4L)
+                .beerName("Quilmes")
+                .beerStyle(BeerStyleEnum.LAGER)
+                .quantityOnHand(5L)
+                .build());
+
+        mockMvc.perform(get(API_V2_BEER + "/{beerId}", id)
+                .header(HttpHeaders.IF_NONE_MATCH, "\"4-6\"")
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().stringValues(HttpHeaders.ETAG, "\"4-5\""))
+                .andExpect(jsonPath("$.quantityOnHand", equalTo(5)));
+    }
+
+    @Test
+    public void getBeerSendsTheTagOfTheBeerRead() throws Exception {
+        final UUID id = UUID.randomUUID();
+        // updated between the version read and the beer read
+        given(beerService.getBeerVersion(id)).willReturn(3L);
+        given(beerService.getQuantityOnHand(id)).willReturn(5L);
+        given(beerService.getBeerById(id)).willReturn(BeerDtoV2.builder()
+                .id(id)
+                .version(4L)
+                .beerName("Quilmes")
+                .beerStyle(BeerStyleEnum.LAGER)
+                .quantityOnHand(5L)
+                .build());
+
+        mockMvc.perform(get(API_V2_BEER + "/{beerId}", id)
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().stringValues(HttpHeaders.ETAG, "\"4-5\""))
+                .andExpect(jsonPath("$.version", equalTo(4)));
+    }
+
+    @Test
+    public void listBeersOk() throws Exception {
+        given(beerService.listBeers(null, 2))
+                .willReturn(BeerPageDtoV2.builder()
+                        .content(List.of(
+                                BeerDtoV2.builder().id(UUID.randomUUID()).beerName("Quilmes").beerStyle(BeerStyleEnum.LAGER).upc(1L).build(),
+                                BeerDtoV2.builder().id(UUID.randomUUID()).beerName("Andes").beerStyle(BeerStyleEnum.IPA).upc(2L).build()))
+                        .nextCursor("AAAAAAAAAAAAAAAAAAAAAA")
+                        .build());
+
+        mockMvc.perform(get(API_V2_BEER)
+                .param("limit", "2")
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()", equalTo(2)))
+                .andExpect(jsonPath("$.nextCursor", equalTo("AAAAAAAAAAAAAAAAAAAAAA")))
+                .andDo(document("v2/beer-list",
+                        requestParameters(
+                                parameterWithName("cursor").description("nextCursor of the previous page, omit for the first page.").optional(),
+                                parameterWithName("limit").description("Page size, 1 to 1000. Defaults to 25.").optional()),
+                        responseFields(
+                                subsectionWithPath("content").description("Beers of this page, ordered by id"),
+                                fieldWithPath("nextCursor").description("Cursor of the next page, null on the last page")
+                        )));
+    }
+
+    @Test
+    public void listBeersRejectsOversizedLimit() throws Exception {
+        mockMvc.perform(get(API_V2_BEER)
+                .param("limit", "5000")
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void validationFailuresAreCounted() throws Exception {
+        final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        Metrics.addRegistry(meterRegistry);
+        try {
+            mockMvc.perform(get(API_V2_BEER)
+                    .param("limit", "0")
+                    .accept(MediaType.APPLICATION_JSON))
+                    .andExpect(status().isBadRequest());
+
+            assertEquals(1, meterRegistry.get("brewery.validation.failures").tag("type", "parameter").counter().count());
+        } finally {
+            Metrics.removeRegistry(meterRegistry);
+        }
+    }
+
+    @Test
+    public void searchBeersOk() throws Exception {
+        given(beerService.searchBeers("qui", 5))
+                .willReturn(List.of(BeerDtoV2.builder()
+                        .id(UUID.randomUUID())
+                        .beerName("Quilmes")
+                        .beerStyle(BeerStyleEnum.LAGER)
+                        .upc(1L)
+                        .build()));
+
+        mockMvc.perform(get(API_V2_BEER + "/search")
+                .param("prefix", "qui")
+                .param("limit", "5")
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].beerName", equalTo("Quilmes")))
+                .andDo(document("v2/beer-search",
+                        requestParameters(
+                                parameterWithName("prefix").description("Case-insensitive beer name prefix."),
+                                parameterWithName("limit").description("Maximum number of matches, 1 to 100. Defaults to 10.").optional())));
+    }
+
+    @Test
+    public void getStyleFacetsOk() throws Exception {
+        final Map<BeerStyleEnum, Long> counts = new EnumMap<>(BeerStyleEnum.class);
+        counts.put(BeerStyleEnum.IPA, 3L);
+        counts.put(BeerStyleEnum.LAGER, 0L);
+        given(beerService.countBeersByStyle()).willReturn(counts);
+
+        mockMvc.perform(get(API_V2_BEER + "/facets/style")
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.IPA", equalTo(3)))
+                .andExpect(jsonPath("$.LAGER", equalTo(0)));
+    }
+
+    @Test
+    public void exportBeersNdjson() throws Exception {
+        final UUID first = UUID.randomUUID();
+        final UUID second = UUID.randomUUID();
+        given(beerService.streamBeers()).willReturn(Stream.of(
+                BeerDtoV2.builder().id(first).version(1L).beerName("Quilmes").beerStyle(BeerStyleEnum.LAGER).upc(1L).build(),
+                BeerDtoV2.builder().id(second).version(3L).beerName("Patagonia").beerStyle(BeerStyleEnum.ALE).upc(2L).build()));
+
+        final MvcResult started = mockMvc.perform(get(API_V2_BEER + "/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        final String body = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaTypes.APPLICATION_NDJSON))
+                .andExpect(header().string(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"beers.ndjson\""))
+                .andReturn().getResponse().getContentAsString();
+
+        final String[] lines = body.split("\n");
+        assertEquals(2, lines.length);
+        assertTrue(lines[0].startsWith("{\"id\":\"" + first + "\",\"version\":1,\"beerName\":\"Quilmes\""));
+        assertTrue(lines[1].startsWith("{\"id\":\"" + second + "\",\"version\":3,\"beerName\":\"Patagonia\""));
+        assertTrue(body.endsWith("}\n"));
+    }
+
+    @Test
+    public void exportBeersCsv() throws Exception {
+        final UUID id = UUID.randomUUID();
+        given(beerService.streamBeers()).willReturn(Stream.of(
+                BeerDtoV2.builder().id(id).version(2L).beerName("Stout, \"Extra\"").beerStyle(BeerStyleEnum.STOUT).upc(7L)
+                        .quantityOnHand(12L).build()));
+
+        final MvcResult started = mockMvc.perform(get(API_V2_BEER + "/export").param("format", "csv"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("text/csv;charset=UTF-8"))
+                .andExpect(content().string("id,version,beerName,beerStyle,upc,createdDate,lastUpdatedDate,quantityOnHand\r\n"
+                        + id + ",2,\"Stout, \"\"Extra\"\"\",STOUT,7,,,12\r\n"));
+    }
+
+    @Test
+    public void exportBeersRejectsUnknownFormat() throws Exception {
+        mockMvc.perform(get(API_V2_BEER + "/export").param("format", "xml"))
+                .andExpect(status().isBadRequest());
+
+        verify(beerService, never()).streamBeers();
+    }
+
+    @Test
+    public void streamChangesSinceLastEventId() throws Exception {
+        final String frame = "id: kf3x-7\nevent: deleted\ndata: {}\n\n";
+        given(changeFeed.subscribe(eq("kf3x-6"), any(ChangeSink.class))).willAnswer(invocation -> {
+            final ChangeSink sink = invocation.getArgument(1);
+            sink.send(frame.getBytes(StandardCharsets.UTF_8));
+            sink.close();
+            return (BeerChangeFeed.Subscription) () -> { };
+        });
+
+        final MvcResult started = mockMvc.perform(get(API_V2_BEER + "/changes")
+                .header(BeerChangeFeed.LAST_EVENT_ID, "kf3x-6"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-store"))
+                .andExpect(content().string(frame));
+    }
+
+    @Test
+    public void getBeerByUpcOk() throws Exception {
+        given(beerService.getBeerByUpc(1213L))
+                .willReturn(BeerDtoV2.builder()
+                        .id(UUID.randomUUID())
+                        .version(1L)
+                        .beerName("Quilmes")
+                        .beerStyle(BeerStyleEnum.ALE)
+                        .upc(1213L)
+                        .quantityOnHand(24L)
+                        .build());
+
+        mockMvc.perform(get(API_V2_BEER + "/upc/{upc}", 1213L)
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.beerName", equalTo("Quilmes")))
+                .andDo(document("v2/beer-get-upc",
+                        pathParameters(
+                                parameterWithName("upc").description("UPC of desired beer to get.")),
+                        responseFields(
+                                fieldWithPath("id").description("Id of beer"),
+                                fieldWithPath("version").description("Version of beer"),
+                                fieldWithPath("createdDate").description("Date Created").ignored(),
+                                fieldWithPath("lastUpdatedDate").description("Date of last update").ignored(),
+                                fieldWithPath("beerName").description("Beer name"),
+                                fieldWithPath("beerStyle").description("Beer Style"),
+                                fieldWithPath("upc").description("UPC of Beer"),
+                                fieldWithPath("quantityOnHand").description("Units in stock when the beer was read")
+                        )));
+
+        verify(beerService).getBeerByUpc(1213L);
+    }
+
+    @Test
+    public void getBeerByUpcNotFound() throws Exception {
+        given(beerService.getBeerByUpc(anyLong())).willThrow(new NotFoundException());
+
+        mockMvc.perform(get(API_V2_BEER + "/upc/{upc}", 99L)
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    public void handlePostFailsDuplicateUpc() throws Exception {
+        final BeerDtoV2 beerDto = BeerDtoV2.builder()
+                .beerName("Andes")
+                .beerStyle(BeerStyleEnum.IPA)
+                .upc(1L)
+                .build();
+
+        given(beerService.saveNewBeer(any(BeerDtoV2.class)))
+                .willThrow(new DuplicateUpcException(1L, UUID.randomUUID()));
+
+        mockMvc.perform(post(API_V2_BEER)
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_JSON)
+                .content(asJsonString(beerDto)))
+                .andExpect(status().isConflict());
+    }
+
     @Test
     public void handlePostOk() throws Exception {
         UUID id = UUID.randomUUID();
@@ -107,16 +528,68 @@ public class BeerControllerV2Test {
                 .andDo(document("v2/beer-new",
                         requestFields(
                                 fields.withPath("id").description("Id of beer").ignored(),
+                                fields.withPath("version").description("Version of beer, read only").ignored(),
                                 fields.withPath("createdDate").description("Date Created").ignored(),
                                 fields.withPath("lastUpdatedDate").description("Date of last update").ignored(),
                                 fields.withPath("beerName").description("Beer name"),
                                 fields.withPath("beerStyle").description("Beer Style"),
-                                fields.withPath("upc").description("UPC of Beer")
+                                fields.withPath("upc").description("UPC of Beer"),
+                                fields.withPath("quantityOnHand").description("Units in stock, read only").ignored()
                         )));
 
         verify(beerService).saveNewBeer(any(BeerDtoV2.class));
     }
 
+    @Test
+    public void handlePostCbor() throws Exception {
+        final UUID id = UUID.randomUUID();
+        final BeerDtoV2 beerDto = BeerDtoV2.builder()
+                .beerName("Andes")
+                .beerStyle(BeerStyleEnum.IPA)
+                .upc(1L)
+                .build();
+        given(beerService.saveNewBeer(any(BeerDtoV2.class)))
+                .willReturn(BeerDtoV2.builder().id(id).build());
+
+        mockMvc.perform(post(API_V2_BEER)
+                .contentType(MediaType.APPLICATION_CBOR)
+                .content(CborMessageConverter.objectMapper().writeValueAsBytes(beerDto)))
+                .andExpect(status().isCreated())
+                .andExpect(header().string("Location", endsWith(API_V2_BEER + "/" + id)));
+
+        verify(beerService).saveNewBeer(argThat(saved -> "Andes".equals(saved.getBeerName())
+                && saved.getBeerStyle() == BeerStyleEnum.IPA && saved.getUpc() == 1L));
+    }
+
+    @Test
+    public void handlePostRetryWithIdempotencyKeyReturnsOriginalBeer() throws Exception {
+        UUID id = UUID.randomUUID();
+        final BeerDtoV2 beerDto = BeerDtoV2.builder()
+                .beerName("Andes")
+                .beerStyle(BeerStyleEnum.IPA)
+                .upc(1L)
+                .build();
+
+        given(beerService.saveNewBeer(any(BeerDtoV2.class)))
+                .willReturn(BeerDtoV2.builder()
+                        .id(id)
+                        .beerName("Andes")
+                        .beerStyle(BeerStyleEnum.IPA)
+                        .upc(1L)
+                        .build());
+
+        for (int i = 0; i < 2; i++) {
+            mockMvc.perform(post(API_V2_BEER)
+                    .header(IdempotentCreates.IDEMPOTENCY_KEY, "create-andes")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(asJsonString(beerDto)))
+                    .andExpect(status().isCreated())
+                    .andExpect(header().string(HttpHeaders.LOCATION, endsWith(API_V2_BEER + "/" + id)));
+        }
+
+        verify(beerService, times(1)).saveNewBeer(any(BeerDtoV2.class));
+    }
+
     @Test
     public void handlePostFailsInvalidUpc() throws Exception {
         UUID id = UUID.randomUUID();
@@ -141,7 +614,8 @@ public class BeerControllerV2Test {
                 .contentType(MediaType.APPLICATION_JSON)
                 .accept(MediaType.APPLICATION_JSON)
                 .content(asJsonString(beerDto)))
-                .andExpect(status().isBadRequest());
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$[0]", equalTo("upc: must be greater than 0")));
     }
 
     @Test
@@ -166,6 +640,85 @@ public class BeerControllerV2Test {
 
     }
 
+    @Test
+    public void handleBatchPostNdjson() throws Exception {
+        final UUID first = UUID.randomUUID();
+        final UUID second = UUID.randomUUID();
+        final String body = asJsonString(BeerDtoV2.builder().beerName("Andes").beerStyle(BeerStyleEnum.IPA).upc(1L).build()) + "\n"
+                + asJsonString(BeerDtoV2.builder().beerName("Quilmes").beerStyle(BeerStyleEnum.LAGER).upc(-1L).build()) + "\n"
+                + asJsonString(BeerDtoV2.builder().beerName("Patagonia").beerStyle(BeerStyleEnum.ALE).upc(3L).build()) + "\n";
+
+        given(beerService.saveNewBeers(anyList())).willReturn(List.of(
+                BeerBatchResultDto.builder().index(0).id(first).build(),
+                BeerBatchResultDto.builder().index(1).id(second).build()));
+
+        mockMvc.perform(post(API_V2_BEER + "/batch")
+                .contentType(MediaTypes.APPLICATION_NDJSON)
+                .accept(MediaType.APPLICATION_JSON)
+                .content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()", equalTo(3)))
+                .andExpect(jsonPath("$[0].id", equalTo(first.toString())))
+                .andExpect(jsonPath("$[1].errors.length()", equalTo(1)))
+                .andExpect(jsonPath("$[2].index", equalTo(2)))
+                .andExpect(jsonPath("$[2].id", equalTo(second.toString())));
+
+        verify(beerService).saveNewBeers(anyList());
+    }
+
+    @Test
+    public void handleBatchPostJsonArray() throws Exception {
+        final UUID id = UUID.randomUUID();
+        final String body = asJsonString(List.of(
+                BeerDtoV2.builder().beerName("Andes").beerStyle(BeerStyleEnum.IPA).upc(1L).build()));
+
+        given(beerService.saveNewBeers(anyList()))
+                .willReturn(List.of(BeerBatchResultDto.builder().index(0).id(id).build()));
+
+        mockMvc.perform(post(API_V2_BEER + "/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_JSON)
+                .content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id", equalTo(id.toString())));
+    }
+
+    @Test
+    public void handleBatchPostMalformed() throws Exception {
+        mockMvc.perform(post(API_V2_BEER + "/batch")
+                .contentType(MediaTypes.APPLICATION_NDJSON)
+                .accept(MediaType.APPLICATION_JSON)
+                .content("{\"beerName\": "))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()", equalTo(1)))
+                .andExpect(jsonPath("$[0].index", equalTo(0)))
+                .andExpect(jsonPath("$[0].errors.length()", equalTo(1)));
+
+        verify(beerService, never()).saveNewBeers(anyList());
+    }
+
+    @Test
+    public void handleBatchPostMalformedMidStreamSavesWhatCameBefore() throws Exception {
+        final UUID id = UUID.randomUUID();
+        final String body = asJsonString(BeerDtoV2.builder().beerName("Andes").beerStyle(BeerStyleEnum.IPA).upc(1L).build()) + "\n"
+                + "{\"beerName\": \n"
+                + asJsonString(BeerDtoV2.builder().beerName("Patagonia").beerStyle(BeerStyleEnum.ALE).upc(3L).build()) + "\n";
+
+        given(beerService.saveNewBeers(anyList()))
+                .willReturn(List.of(BeerBatchResultDto.builder().index(0).id(id).build()));
+
+        mockMvc.perform(post(API_V2_BEER + "/batch")
+                .contentType(MediaTypes.APPLICATION_NDJSON)
+                .accept(MediaType.APPLICATION_JSON)
+                .content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()", equalTo(2)))
+                .andExpect(jsonPath("$[0].id", equalTo(id.toString())))
+                .andExpect(jsonPath("$[1].index", equalTo(1)))
+                .andExpect(jsonPath("$[1].id").doesNotExist())
+                .andExpect(jsonPath("$[1].errors.length()", equalTo(1)));
+    }
+
     @Test
     public void handleUpdate() throws Exception {
         BeerDtoV2 beerToSaveDto = BeerDtoV2.builder()
@@ -194,17 +747,62 @@ public class BeerControllerV2Test {
                                 parameterWithName("beerId").description("UUID of desired beer to update.")),
                         requestFields(
                                 fields.withPath("id").description("Id of beer").ignored(),
+                                fields.withPath("version").description("Version of beer, read only").ignored(),
                                 fields.withPath("createdDate").description("Date Created").ignored(),
                                 fields.withPath("lastUpdatedDate").description("Date of last update").ignored(),
                                 fields.withPath("beerName").description("Beer name"),
                                 fields.withPath("beerStyle").description("Beer Style"),
-                                fields.withPath("upc").description("UPC of Beer")
+                                fields.withPath("upc").description("UPC of Beer"),
+                                fields.withPath("quantityOnHand").description("Units in stock, read only").ignored()
                         )));
 
 
         verify(beerService).updateBeer(any(UUID.class), any(BeerDtoV2.class));
     }
 
+    @Test
+    public void adjustInventory() throws Exception {
+        final UUID id = UUID.randomUUID();
+        given(beerService.adjustInventory(id, -3L)).willReturn(true);
+
+        ConstrainedFields fields = new ConstrainedFields(InventoryAdjustmentDto.class);
+
+        mockMvc.perform(post(API_V2_BEER + "/{beerId}/inventory/adjust", id)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(asJsonString(InventoryAdjustmentDto.builder().delta(-3L).build())))
+                .andExpect(status().isNoContent())
+                .andDo(document("v2/beer-inventory-adjust",
+                        pathParameters(
+                                parameterWithName("beerId").description("UUID of the beer whose stock changes.")),
+                        requestFields(
+                                fields.withPath("delta").description("Units to add, or to take when negative")
+                        )));
+
+        verify(beerService).adjustInventory(id, -3L);
+    }
+
+    @Test
+    public void adjustInventoryBeyondStockIsConflict() throws Exception {
+        final UUID id = UUID.randomUUID();
+        given(beerService.adjustInventory(id, -3L)).willReturn(false);
+
+        mockMvc.perform(post(API_V2_BEER + "/{beerId}/inventory/adjust", id)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(asJsonString(InventoryAdjustmentDto.builder().delta(-3L).build())))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$[0]", equalTo("Not enough of beer " + id + " on hand")));
+    }
+
+    @Test
+    public void adjustInventoryFailsOversizedDelta() throws Exception {
+        mockMvc.perform(post(API_V2_BEER + "/{beerId}/inventory/adjust", UUID.randomUUID())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(asJsonString(InventoryAdjustmentDto.builder().delta(InventoryAdjustmentDto.MAX_DELTA + 1).build())))
+                .andExpect(status().isBadRequest());
+
+        verify(beerService, never()).adjustInventory(any(UUID.class), anyLong());
+    }
+
     @Test
     public void deleteBeer() throws Exception {
         UUID id = UUID.randomUUID();
@@ -0,0 +1,216 @@
+package guru.springframework.msscbrewery.web.controller.v2;
+
+import guru.springframework.msscbrewery.repositories.DuplicateUpcException;
+import guru.springframework.msscbrewery.services.v2.ReactiveBeerServiceV2;
+import guru.springframework.msscbrewery.web.controller.NotFoundException;
+import guru.springframework.msscbrewery.web.model.v2.BeerDtoV2;
+import guru.springframework.msscbrewery.web.model.v2.BeerStyleEnum;
+import guru.springframework.msscbrewery.web.model.v2.InventoryAdjustmentDto;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.UUID;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.then;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+
+public class BeerHandlerV2Test {
+
+    private static final String API_V2_BEER = "/api/v2/beer";
+
+    ReactiveBeerServiceV2 beerService;
+    WebTestClient webTestClient;
+
+    @BeforeEach
+    void setUp() {
+        beerService = mock(ReactiveBeerServiceV2.class);
+        final BeerHandlerV2 handler = new BeerHandlerV2(beerService, "http://localhost", "8080");
+        webTestClient = WebTestClient.bindToRouterFunction(new BeerRoutesV2().beerRoutesV2(handler)).build();
+    }
+
+    @Test
+    void getBeerOk() {
+        final UUID id = UUID.randomUUID();
+        given(beerService.getBeerVersion(id)).willReturn(Mono.just(2L));
+        given(beerService.getQuantityOnHand(id)).willReturn(Mono.just(24L));
+        given(beerService.getBeerById(id)).willReturn(Mono.just(validBeer().id(id).version(2L).quantityOnHand(24L).build()));
+
+        webTestClient.get().uri(API_V2_BEER + "/{beerId}", id)
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "\"2-24\"")
+                .expectBody()
+                .jsonPath("$.id").isEqualTo(id.toString())
+                .jsonPath("$.version").isEqualTo(2)
+                .jsonPath("$.quantityOnHand").isEqualTo(24);
+    }
+
+    @Test
+    void getBeerNotModified() {
+        final UUID id = UUID.randomUUID();
+        given(beerService.getBeerVersion(id)).willReturn(Mono.just(2L));
+        given(beerService.getQuantityOnHand(id)).willReturn(Mono.just(24L));
+
+        webTestClient.get().uri(API_V2_BEER + "/{beerId}", id)
+                .header(HttpHeaders.IF_NONE_MATCH, "\"2-24\"")
+                .exchange()
+                .expectStatus().isNotModified();
+
+        then(beerService).should(never()).getBeerById(any());
+    }
+
+    @Test
+    void getMissingBeerIsNotFound() {
+        final UUID id = UUID.randomUUID();
+        given(beerService.getBeerVersion(id)).willReturn(Mono.empty());
+        given(beerService.getQuantityOnHand(id)).willReturn(Mono.just(0L));
+        given(beerService.getBeerById(id)).willReturn(Mono.error(new NotFoundException()));
+
+        webTestClient.get().uri(API_V2_BEER + "/{beerId}", id)
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+
+    @Test
+    void getBeerWithBadIdIsBadRequest() {
+        webTestClient.get().uri(API_V2_BEER + "/not-a-uuid")
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    void searchBeers() {
+        given(beerService.searchBeers("qui", 10)).willReturn(Flux.just(validBeer().id(UUID.randomUUID()).build()));
+
+        webTestClient.get().uri(API_V2_BEER + "/search?prefix=qui")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$[0].beerName").isEqualTo("Quilmes");
+    }
+
+    @Test
+    void listBeersOverLimitIsBadRequest() {
+        webTestClient.get().uri(API_V2_BEER + "?limit=1001")
+                .exchange()
+                .expectStatus().isBadRequest();
+
+        then(beerService).should(never()).listBeers(any(), anyInt());
+    }
+
+    @Test
+    void saveNewBeer() {
+        final UUID id = UUID.randomUUID();
+        given(beerService.saveNewBeer(any())).willReturn(Mono.just(validBeer().id(id).version(1L).build()));
+
+        webTestClient.post().uri(API_V2_BEER)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(validBeer().build())
+                .exchange()
+                .expectStatus().isCreated()
+                .expectHeader().valueEquals(HttpHeaders.LOCATION, "http://localhost:8080/api/v2/beer/" + id);
+    }
+
+    @Test
+    void saveInvalidBeerIsBadRequest() {
+        webTestClient.post().uri(API_V2_BEER)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(validBeer().beerName(null).build())
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$[0]").isEqualTo("beerName: must not be null");
+
+        then(beerService).should(never()).saveNewBeer(any());
+    }
+
+    @Test
+    void saveDuplicateUpcIsConflict() {
+        given(beerService.saveNewBeer(any())).willReturn(Mono.error(new DuplicateUpcException(1213L, UUID.randomUUID())));
+
+        webTestClient.post().uri(API_V2_BEER)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(validBeer().build())
+                .exchange()
+                .expectStatus().isEqualTo(409);
+    }
+
+    @Test
+    void updateBeer() {
+        final UUID id = UUID.randomUUID();
+        given(beerService.updateBeer(any(), any())).willReturn(Mono.just(validBeer().id(id).build()));
+
+        webTestClient.put().uri(API_V2_BEER + "/{beerId}", id)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(validBeer().build())
+                .exchange()
+                .expectStatus().isNoContent();
+    }
+
+    @Test
+    void deleteBeer() {
+        final UUID id = UUID.randomUUID();
+        given(beerService.deleteBeer(id)).willReturn(Mono.empty());
+
+        webTestClient.delete().uri(API_V2_BEER + "/{beerId}", id)
+                .exchange()
+                .expectStatus().isNoContent();
+    }
+
+    @Test
+    void adjustInventory() {
+        final UUID id = UUID.randomUUID();
+        given(beerService.adjustInventory(id, -3L)).willReturn(Mono.just(true));
+
+        webTestClient.post().uri(API_V2_BEER + "/{beerId}/inventory/adjust", id)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(InventoryAdjustmentDto.builder().delta(-3L).build())
+                .exchange()
+                .expectStatus().isNoContent();
+    }
+
+    @Test
+    void adjustInventoryBeyondStockIsConflict() {
+        final UUID id = UUID.randomUUID();
+        given(beerService.adjustInventory(id, -3L)).willReturn(Mono.just(false));
+
+        webTestClient.post().uri(API_V2_BEER + "/{beerId}/inventory/adjust", id)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(InventoryAdjustmentDto.builder().delta(-3L).build())
+                .exchange()
+                .expectStatus().isEqualTo(409)
+                .expectBody()
+                .jsonPath("$[0]").isEqualTo("Not enough of beer " + id + " on hand");
+    }
+
+    @Test
+    void adjustInventoryWithoutDeltaIsBadRequest() {
+        webTestClient.post().uri(API_V2_BEER + "/{beerId}/inventory/adjust", UUID.randomUUID())
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(InventoryAdjustmentDto.builder().build())
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$[0]").isEqualTo("delta: must not be null");
+
+        then(beerService).should(never()).adjustInventory(any(), anyLong());
+    }
+
+    private BeerDtoV2.BeerDtoV2Builder validBeer() {
+        return BeerDtoV2.builder()
+                .beerName("Quilmes")
+                .beerStyle(BeerStyleEnum.ALE)
+                .upc(1213L);
+    }
+}
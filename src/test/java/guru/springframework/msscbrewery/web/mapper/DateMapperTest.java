@@ -0,0 +1,45 @@
+package guru.springframework.msscbrewery.web.mapper;
+
+import org.junit.jupiter.api.Test;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DateMapperTest {
+
+    DateMapper dateMapper = new DateMapper();
+
+    @Test
+    void timestampToOffsetDateTimeKeepsInstantAndNanos() {
+        final Timestamp timestamp = Timestamp.from(Instant.parse("2020-07-31T18:25:43.123456789Z"));
+
+        final OffsetDateTime offsetDateTime = dateMapper.asOffsetDateTime(timestamp);
+
+        assertEquals(OffsetDateTime.parse("2020-07-31T18:25:43.123456789Z"), offsetDateTime);
+        assertEquals(ZoneOffset.UTC, offsetDateTime.getOffset());
+    }
+
+    @Test
+    void offsetDateTimeToTimestampUsesInstant() {
+        final OffsetDateTime offsetDateTime = OffsetDateTime.parse("2020-07-31T20:25:43.5+02:00");
+
+        assertEquals(Timestamp.from(Instant.parse("2020-07-31T18:25:43.5Z")), dateMapper.asTimestamp(offsetDateTime));
+    }
+
+    @Test
+    void roundTripsBeforeEpoch() {
+        final Timestamp timestamp = Timestamp.from(Instant.parse("1969-12-31T23:59:59.250Z"));
+
+        assertEquals(timestamp, dateMapper.asTimestamp(dateMapper.asOffsetDateTime(timestamp)));
+    }
+
+    @Test
+    void nullsMapToNull() {
+        assertNull(dateMapper.asOffsetDateTime(null));
+        assertNull(dateMapper.asTimestamp(null));
+    }
+}
@@ -0,0 +1,128 @@
+package guru.springframework.msscbrewery.web.validation;
+
+import guru.springframework.msscbrewery.web.model.BeerDto;
+import guru.springframework.msscbrewery.web.model.CustomerDto;
+import guru.springframework.msscbrewery.web.model.v2.BeerDtoV2;
+import guru.springframework.msscbrewery.web.model.v2.BeerStyleEnum;
+import guru.springframework.msscbrewery.web.model.v2.InventoryAdjustmentDto;
+import org.junit.jupiter.api.Test;
+import org.springframework.validation.BeanPropertyBindingResult;
+import org.springframework.validation.FieldError;
+import org.springframework.validation.beanvalidation.SpringValidatorAdapter;
+
+import javax.validation.Validation;
+import javax.validation.Validator;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Parity of the hand-written validators with Hibernate Validator, which still reads the DTO annotations.
+ */
+class DtoValidatorsTest {
+
+    Validator hibernateValidator = Validation.buildDefaultValidatorFactory().getValidator();
+    SpringValidatorAdapter beanValidator = new SpringValidatorAdapter(hibernateValidator);
+    DtoValidators dtoValidators = new DtoValidators(beanValidator);
+
+    @Test
+    void everyConstraintIsChecked() {
+        // a constraint added to a DTO fails here until its validator checks it too
+        assertEquals(Set.of("id:Null", "beerName:NotNull", "beerStyle:NotNull", "upc:Positive"), constraints(BeerDto.class));
+        assertEquals(Set.of("id:Null", "beerName:NotNull", "beerStyle:NotNull", "upc:Positive"), constraints(BeerDtoV2.class));
+        assertEquals(Set.of("id:Null", "name:NotNull", "name:Size"), constraints(CustomerDto.class));
+        assertEquals(Set.of("delta:NotNull", "delta:Min", "delta:Max"), constraints(InventoryAdjustmentDto.class));
+    }
+
+    @Test
+    void violationsMatchBeanValidation() {
+        for (Object dto : samples()) {
+            assertEquals(beanValidationViolations(dto), new HashSet<>(messages(DtoValidators.violationsOf(dto))),
+                    dto::toString);
+        }
+    }
+
+    @Test
+    void fieldErrorsMatchSpringValidatorAdapter() {
+        for (Object dto : samples()) {
+            final BeanPropertyBindingResult expected = new BeanPropertyBindingResult(dto, "dto");
+            beanValidator.validate(dto, expected);
+            final BeanPropertyBindingResult actual = new BeanPropertyBindingResult(dto, "dto");
+            dtoValidators.validate(dto, actual);
+
+            assertEquals(describe(expected.getFieldErrors()), describe(actual.getFieldErrors()), dto::toString);
+        }
+    }
+
+    @Test
+    void validDtoAllocatesNoViolations() {
+        final List<FieldViolation> violations = DtoValidators.violationsOf(CustomerDto.builder().name("Joe Buck").build());
+
+        assertTrue(violations.isEmpty());
+        assertThrows(UnsupportedOperationException.class, () -> violations.add(null));
+    }
+
+    @Test
+    void otherTypesGoToTheFallback() {
+        final Object dto = new Object();
+        final BeanPropertyBindingResult errors = new BeanPropertyBindingResult(dto, "dto");
+
+        dtoValidators.validate(dto, errors);
+
+        assertEquals(0, errors.getErrorCount());
+        assertThrows(IllegalArgumentException.class, () -> DtoValidators.violationsOf(dto));
+    }
+
+    private static List<Object> samples() {
+        return List.of(
+                BeerDto.builder().beerName("Galaxy Cat").beerStyle("PALE_ALE").upc(1L).build(),
+                BeerDto.builder().id(UUID.randomUUID()).upc(0L).build(),
+                BeerDto.builder().beerName("").beerStyle("").upc(-5L).build(),
+                BeerDtoV2.builder().beerName("Galaxy Cat").beerStyle(BeerStyleEnum.PALE_ALE).build(),
+                BeerDtoV2.builder().id(UUID.randomUUID()).upc(Long.MIN_VALUE).build(),
+                BeerDtoV2.builder().beerName("Galaxy Cat").beerStyle(BeerStyleEnum.IPA).upc(0L).build(),
+                CustomerDto.builder().name("Joe").build(),
+                CustomerDto.builder().name("x".repeat(100)).build(),
+                CustomerDto.builder().name("Jo").build(),
+                CustomerDto.builder().name("x".repeat(101)).build(),
+                CustomerDto.builder().id(UUID.randomUUID()).build(),
+                CustomerDto.builder().id(UUID.randomUUID()).name("").build(),
+                InventoryAdjustmentDto.builder().delta(-3L).build(),
+                InventoryAdjustmentDto.builder().build(),
+                InventoryAdjustmentDto.builder().delta(InventoryAdjustmentDto.MAX_DELTA + 1).build(),
+                InventoryAdjustmentDto.builder().delta(Long.MIN_VALUE).build());
+    }
+
+    private Set<String> constraints(Class<?> type) {
+        return hibernateValidator.getConstraintsForClass(type).getConstrainedProperties().stream()
+                .flatMap(property -> property.getConstraintDescriptors().stream()
+                        .map(descriptor -> property.getPropertyName() + ":"
+                                + descriptor.getAnnotation().annotationType().getSimpleName()))
+                .collect(Collectors.toSet());
+    }
+
+    private Set<String> beanValidationViolations(Object dto) {
+        return hibernateValidator.validate(dto).stream()
+                .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                .collect(Collectors.toSet());
+    }
+
+    private static List<String> messages(List<FieldViolation> violations) {
+        return violations.stream().map(FieldViolation::toString).collect(Collectors.toList());
+    }
+
+    private static Set<String> describe(List<FieldError> errors) {
+        return errors.stream()
+                .map(error -> error.getField() + " " + Arrays.toString(error.getCodes()) + " "
+                        + Arrays.toString(error.getArguments()) + " " + error.getRejectedValue() + " "
+                        + error.getDefaultMessage())
+                .collect(Collectors.toSet());
+    }
+}